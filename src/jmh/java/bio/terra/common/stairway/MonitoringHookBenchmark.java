@@ -0,0 +1,124 @@
+package bio.terra.common.stairway;
+
+import bio.terra.stairway.Direction;
+import bio.terra.stairway.DynamicHook;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.FlightStatus;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the overhead {@link MonitoringHook} adds to each Step: creating the Step hook, starting
+ * and ending its Span, and recording the Step metrics. The Step runs within a Flight Span, as it
+ * would in Stairway, and Spans are sampled but not exported. Run with the gc profiler to see the
+ * allocations per Step.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MonitoringHookBenchmark {
+  private OpenTelemetrySdk openTelemetry;
+  private MonitoringHook hook;
+  private FlightContext flightContext;
+  private Scope flightScope;
+
+  @Setup
+  public void setUp() {
+    openTelemetry =
+        OpenTelemetrySdk.builder()
+            .setTracerProvider(SdkTracerProvider.builder().build())
+            .setMeterProvider(
+                SdkMeterProvider.builder()
+                    .registerMetricReader(
+                        PeriodicMetricReader.builder(new NoopMetricExporter())
+                            .setInterval(Duration.ofHours(1))
+                            .build())
+                    .build())
+            .build();
+    hook = new MonitoringHook(openTelemetry);
+    flightContext = flightContext();
+    flightScope =
+        openTelemetry.getTracer("benchmark").spanBuilder("flight").startSpan().makeCurrent();
+  }
+
+  @TearDown
+  public void tearDown() {
+    Span.current().end();
+    flightScope.close();
+    openTelemetry.close();
+  }
+
+  @Benchmark
+  public void step() {
+    DynamicHook stepHook = hook.stepFactory(flightContext).orElseThrow();
+    stepHook.start(flightContext);
+    stepHook.end(flightContext);
+  }
+
+  /** A FlightContext for the third Step of a Flight, as Stairway would pass to hooks. */
+  private static FlightContext flightContext() {
+    var inputParameters = new FlightMap();
+    var workingMap = new FlightMap();
+    return (FlightContext)
+        Proxy.newProxyInstance(
+            FlightContext.class.getClassLoader(),
+            new Class<?>[] {FlightContext.class},
+            (proxy, method, args) ->
+                switch (method.getName()) {
+                  case "getFlightId" -> "0b8e2e1c-5d4f-4e9b-9f1e-2a5f3c6d7e8f";
+                  case "getFlightClassName" -> "bio.terra.workspace.flight.CreateWorkspaceFlight";
+                  case "getStepClassName" -> "bio.terra.workspace.flight.CreateWorkspaceStep";
+                  case "getStepIndex" -> 2;
+                  case "getDirection" -> Direction.DO;
+                  case "getFlightStatus" -> FlightStatus.RUNNING;
+                  case "getInputParameters" -> inputParameters;
+                  case "getWorkingMap" -> workingMap;
+                  case "hashCode" -> System.identityHashCode(proxy);
+                  case "equals" -> proxy == args[0];
+                  default -> throw new UnsupportedOperationException(method.getName());
+                });
+  }
+
+  private static class NoopMetricExporter implements MetricExporter {
+    @Override
+    public CompletableResultCode export(Collection<MetricData> metrics) {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+      return AggregationTemporality.CUMULATIVE;
+    }
+  }
+}
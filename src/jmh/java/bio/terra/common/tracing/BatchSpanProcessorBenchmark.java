@@ -0,0 +1,119 @@
+package bio.terra.common.tracing;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Shows how the span export pipeline, the SDK's {@code BatchSpanProcessor} metered by {@link
+ * SpanExportMetrics}, behaves when the exporter can't keep up: the cost of ending a span should
+ * stay flat as the exporter slows down, with the excess showing up as dropped spans rather than as
+ * latency. The number of spans exported in each iteration is reported as a secondary result, to
+ * compare with the number of spans ended in it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class BatchSpanProcessorBenchmark {
+  @Param({"0", "1", "50"})
+  public int exportDelayMillis;
+
+  @Param({"2048"})
+  public int maxQueueSize;
+
+  private SpanExportMetrics metrics;
+  private SdkTracerProvider tracerProvider;
+  private Tracer tracer;
+  private final AtomicBoolean counted = new AtomicBoolean();
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    metrics = new SpanExportMetrics();
+    var processor =
+        BatchSpanProcessor.builder(metrics.meter(new SlowExporter(exportDelayMillis)))
+            .setMaxQueueSize(maxQueueSize)
+            .build();
+    tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build();
+    tracer = tracerProvider.get("benchmark");
+    counted.set(false);
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    tracerProvider.close();
+  }
+
+  /**
+   * The spans exported during an iteration, as of the end of its measurement. Each thread has its
+   * own counters and JMH sums them, so the first thread to finish reports the total and the others
+   * report none.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class SpanCounts {
+    public long exported;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      exported = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void count(BatchSpanProcessorBenchmark benchmark) {
+      if (benchmark.counted.compareAndSet(false, true)) {
+        exported = benchmark.metrics.exportedSpans();
+      }
+    }
+  }
+
+  @Benchmark
+  public void endSpan(SpanCounts counts) {
+    tracer.spanBuilder("span").startSpan().end();
+  }
+
+  private static class SlowExporter implements SpanExporter {
+    private final long delayNanos;
+
+    SlowExporter(int delayMillis) {
+      this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+      if (delayNanos > 0) {
+        LockSupport.parkNanos(delayNanos);
+      }
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      return CompletableResultCode.ofSuccess();
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package bio.terra.common.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import io.opentelemetry.semconv.UrlAttributes;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the per-span cost of {@link ExcludingUrlSampler}. Run with the gc profiler to check
+ * that sampling decisions do not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExcludingUrlSamplerBenchmark {
+  private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+
+  private Sampler sampler;
+  private Attributes excludedAttributes;
+  private Attributes includedAttributes;
+
+  @Setup
+  public void setUp() {
+    sampler =
+        new ExcludingUrlSampler(
+            List.of(
+                "/status",
+                "/version",
+                "/actuator/**",
+                "/swagger-ui/**",
+                "/api/workspaces/*/health",
+                "/**/*.js"),
+            Sampler.alwaysOn());
+    excludedAttributes =
+        Attributes.of(UrlAttributes.URL_PATH, "/actuator/prometheus", UrlAttributes.URL_QUERY, "");
+    includedAttributes =
+        Attributes.of(
+            UrlAttributes.URL_PATH,
+            "/api/workspaces/v1/0b8e2e1c-5d4f-4e9b-9f1e-2a5f3c6d7e8f/resources",
+            UrlAttributes.URL_QUERY,
+            "offset=0&limit=10");
+  }
+
+  @Benchmark
+  public SamplingResult excluded() {
+    return sampler.shouldSample(
+        Context.root(), TRACE_ID, "GET", SpanKind.SERVER, excludedAttributes, List.of());
+  }
+
+  @Benchmark
+  public SamplingResult included() {
+    return sampler.shouldSample(
+        Context.root(), TRACE_ID, "GET", SpanKind.SERVER, includedAttributes, List.of());
+  }
+}
@@ -0,0 +1,165 @@
+package bio.terra.common.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the overhead {@link OkHttpClientTracingInterceptor} adds to each outbound call, against
+ * a chain which answers immediately. Spans are sampled but not exported, and metrics are recorded
+ * by the SDK, so this covers span naming, attribute extraction, header injection and metrics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OkHttpClientTracingInterceptorBenchmark {
+  @Param({"sampled", "unsampled", "noop"})
+  public String tracing;
+
+  private OpenTelemetrySdk sdk;
+  private Interceptor interceptor;
+  private FakeChain chain;
+
+  @Setup
+  public void setUp() {
+    OpenTelemetry openTelemetry;
+    if ("noop".equals(tracing)) {
+      openTelemetry = OpenTelemetry.noop();
+    } else {
+      sdk =
+          OpenTelemetrySdk.builder()
+              .setTracerProvider(
+                  SdkTracerProvider.builder()
+                      .setSampler(
+                          "sampled".equals(tracing) ? Sampler.alwaysOn() : Sampler.alwaysOff())
+                      .build())
+              .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+              .build();
+      openTelemetry = sdk;
+    }
+    interceptor = new OkHttpClientTracingInterceptor(openTelemetry);
+    chain =
+        new FakeChain(
+            new Request.Builder()
+                .url(
+                    "https://sam.dsde-dev.broadinstitute.org/api/resources/v2/workspace/"
+                        + "0b8e2e1c-5d4f-4e9b-9f1e-2a5f3c6d7e8f/action/read")
+                .header("Authorization", "Bearer token")
+                .build());
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (sdk != null) {
+      sdk.close();
+    }
+  }
+
+  @Benchmark
+  public Response intercept() throws IOException {
+    return interceptor.intercept(chain);
+  }
+
+  @Benchmark
+  public Response baseline() throws IOException {
+    return chain.proceed(chain.request());
+  }
+
+  private static class FakeChain implements Interceptor.Chain {
+    private static final ResponseBody BODY =
+        ResponseBody.create("{}", MediaType.get("application/json"));
+
+    private final Request request;
+
+    FakeChain(Request request) {
+      this.request = request;
+    }
+
+    @NotNull
+    @Override
+    public Request request() {
+      return request;
+    }
+
+    @NotNull
+    @Override
+    public Response proceed(@NotNull Request request) {
+      return new Response.Builder()
+          .request(request)
+          .protocol(Protocol.HTTP_1_1)
+          .code(200)
+          .message("OK")
+          .body(BODY)
+          .build();
+    }
+
+    @Nullable
+    @Override
+    public Connection connection() {
+      return null;
+    }
+
+    @NotNull
+    @Override
+    public Call call() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int connectTimeoutMillis() {
+      return 0;
+    }
+
+    @NotNull
+    @Override
+    public Interceptor.Chain withConnectTimeout(int timeout, @NotNull TimeUnit unit) {
+      return this;
+    }
+
+    @Override
+    public int readTimeoutMillis() {
+      return 0;
+    }
+
+    @NotNull
+    @Override
+    public Interceptor.Chain withReadTimeout(int timeout, @NotNull TimeUnit unit) {
+      return this;
+    }
+
+    @Override
+    public int writeTimeoutMillis() {
+      return 0;
+    }
+
+    @NotNull
+    @Override
+    public Interceptor.Chain withWriteTimeout(int timeout, @NotNull TimeUnit unit) {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package bio.terra.common.gcpmetrics;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.Data;
+import io.opentelemetry.sdk.metrics.data.DoubleExemplarData;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramBuckets;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramData;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramPointData;
+import io.opentelemetry.sdk.metrics.data.HistogramData;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.MetricDataType;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.resources.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link MetricExporter} which converts base-2 exponential histograms to explicit bucket
+ * histograms before handing them to its delegate, for exporters like Cloud Monitoring's which only
+ * understand the latter.
+ *
+ * <p>The conversion is lossless: each exponential bucket becomes an explicit bucket with the same
+ * bounds. Zero and negative values are counted in the first bucket, which ends at the lower bound
+ * of the first positive bucket; latencies are never negative.
+ */
+class ExponentialHistogramConverter implements MetricExporter {
+  private final MetricExporter delegate;
+
+  ExponentialHistogramConverter(MetricExporter delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<MetricData> metrics) {
+    return delegate.export(metrics.stream().map(ExponentialHistogramConverter::convert).toList());
+  }
+
+  static MetricData convert(MetricData metric) {
+    if (metric.getType() != MetricDataType.EXPONENTIAL_HISTOGRAM) {
+      return metric;
+    }
+    ExponentialHistogramData data = metric.getExponentialHistogramData();
+    List<HistogramPointData> points =
+        data.getPoints().stream().map(ExponentialHistogramConverter::convertPoint).toList();
+    return new ConvertedMetric(
+        metric.getResource(),
+        metric.getInstrumentationScopeInfo(),
+        metric.getName(),
+        metric.getDescription(),
+        metric.getUnit(),
+        MetricDataType.HISTOGRAM,
+        new ConvertedHistogram(data.getAggregationTemporality(), points));
+  }
+
+  static HistogramPointData convertPoint(ExponentialHistogramPointData point) {
+    ExponentialHistogramBuckets positive = point.getPositiveBuckets();
+    List<Long> positiveCounts = positive.getBucketCounts();
+    List<Double> boundaries = new ArrayList<>(positiveCounts.size() + 1);
+    List<Long> counts = new ArrayList<>(positiveCounts.size() + 2);
+    counts.add(point.getZeroCount() + point.getNegativeBuckets().getTotalCount());
+    if (!positiveCounts.isEmpty()) {
+      // Positive bucket i holds the values in (base^i, base^(i+1)], where base = 2^(2^-scale).
+      int offset = positive.getOffset();
+      for (int i = 0; i <= positiveCounts.size(); i++) {
+        boundaries.add(Math.pow(2, Math.scalb((double) (offset + i), -point.getScale())));
+      }
+      counts.addAll(positiveCounts);
+      counts.add(0L);
+    }
+    return new ConvertedPoint(
+        point.getStartEpochNanos(),
+        point.getEpochNanos(),
+        point.getAttributes(),
+        point.getSum(),
+        point.getCount(),
+        point.hasMin(),
+        point.getMin(),
+        point.hasMax(),
+        point.getMax(),
+        boundaries,
+        counts,
+        point.getExemplars());
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return delegate.flush();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return delegate.shutdown();
+  }
+
+  @Override
+  public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+    return delegate.getAggregationTemporality(instrumentType);
+  }
+
+  @Override
+  public Aggregation getDefaultAggregation(InstrumentType instrumentType) {
+    return delegate.getDefaultAggregation(instrumentType);
+  }
+
+  private record ConvertedMetric(
+      Resource getResource,
+      InstrumentationScopeInfo getInstrumentationScopeInfo,
+      String getName,
+      String getDescription,
+      String getUnit,
+      MetricDataType getType,
+      Data<?> getData)
+      implements MetricData {}
+
+  private record ConvertedHistogram(
+      AggregationTemporality getAggregationTemporality, Collection<HistogramPointData> getPoints)
+      implements HistogramData {}
+
+  private record ConvertedPoint(
+      long getStartEpochNanos,
+      long getEpochNanos,
+      Attributes getAttributes,
+      double getSum,
+      long getCount,
+      boolean hasMin,
+      double getMin,
+      boolean hasMax,
+      double getMax,
+      List<Double> getBoundaries,
+      List<Long> getCounts,
+      List<DoubleExemplarData> getExemplars)
+      implements HistogramPointData {}
+}
@@ -1,28 +1,78 @@
 package bio.terra.common.gcpmetrics;
 
+import bio.terra.common.opentelemetry.HistogramProperties;
 import com.google.cloud.opentelemetry.metric.GoogleCloudMetricExporter;
+import com.google.cloud.opentelemetry.metric.MetricConfiguration;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
 import io.opentelemetry.sdk.metrics.export.MetricReader;
 import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 @ComponentScan(basePackages = "bio.terra.common.opentelemetry")
+@EnableConfigurationProperties(value = {GcpMetricsProperties.class})
 public class GcpMetricsConfig {
   private final Logger logger = LoggerFactory.getLogger(GcpMetricsConfig.class);
 
-  /** Creates OpenTelemetry MetricReader that exports metrics to Google Cloud Monitoring */
+  /**
+   * Creates the exporter to Google Cloud Monitoring, with the timeout and batching of {@link
+   * GcpMetricsProperties}. Cloud Monitoring's exporter does not support exponential histograms, so
+   * they are converted to explicit buckets first if {@link HistogramProperties#exponential()} is
+   * set.
+   */
+  @Bean(destroyMethod = "") // shut down by the reader
+  @ConditionalOnProperty(
+      name = "terra.common.google.metrics.enabled",
+      havingValue = "true",
+      matchIfMissing = true)
+  public MeteredMetricExporter gcpMetricsExporter(
+      GcpMetricsProperties gcpMetricsProperties, HistogramProperties histogramProperties) {
+    MetricExporter exporter =
+        GoogleCloudMetricExporter.createWithConfiguration(
+            MetricConfiguration.builder()
+                .setDeadline(gcpMetricsProperties.exportTimeout())
+                .build());
+    if (histogramProperties.exponential()) {
+      exporter = new ExponentialHistogramConverter(exporter);
+    }
+    return new MeteredMetricExporter(
+        exporter, gcpMetricsProperties.maxExportBatchSize(), gcpMetricsProperties.exportTimeout());
+  }
+
+  /**
+   * Creates OpenTelemetry MetricReader that exports metrics to Google Cloud Monitoring every
+   * {@link GcpMetricsProperties#exportInterval()}.
+   */
   @Bean(destroyMethod = "close")
   @ConditionalOnProperty(
       name = "terra.common.google.metrics.enabled",
       havingValue = "true",
       matchIfMissing = true)
-  public MetricReader gcpMetricsReader() {
+  public MetricReader gcpMetricsReader(
+      MeteredMetricExporter gcpMetricsExporter, GcpMetricsProperties gcpMetricsProperties) {
     logger.info("GCP metrics enabled.");
-    return PeriodicMetricReader.create(GoogleCloudMetricExporter.createWithDefaultConfiguration());
+    return PeriodicMetricReader.builder(gcpMetricsExporter)
+        .setInterval(gcpMetricsProperties.exportInterval())
+        .build();
+  }
+
+  /** Exposes the metric export metrics, until the application context closes. */
+  @Bean(destroyMethod = "close")
+  public AutoCloseable gcpMetricsExportInstruments(
+      ObjectProvider<MeteredMetricExporter> exporters,
+      ObjectProvider<OpenTelemetry> openTelemetry) {
+    MeteredMetricExporter exporter = exporters.getIfAvailable();
+    OpenTelemetry available = openTelemetry.getIfAvailable();
+    return exporter == null || available == null
+        ? () -> {}
+        : exporter.registerInstruments(available);
   }
 }
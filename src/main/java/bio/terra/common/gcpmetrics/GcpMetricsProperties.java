@@ -0,0 +1,21 @@
+package bio.terra.common.gcpmetrics;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for exporting metrics to Google Cloud Monitoring. Cloud Monitoring charges per time
+ * series point written, so a longer interval trades resolution for cost.
+ *
+ * @param exportInterval how often metrics are collected and exported
+ * @param exportTimeout how long exporting each collection may take in total, across its export
+ *     calls; also Cloud Monitoring's deadline for each call
+ * @param maxExportBatchSize the maximum number of points, i.e. time series, per export call; larger
+ *     collections are split into several calls, so that one failing call doesn't lose all metrics
+ */
+@ConfigurationProperties(prefix = "terra.common.google.metrics")
+public record GcpMetricsProperties(
+    @DefaultValue("60s") Duration exportInterval,
+    @DefaultValue("30s") Duration exportTimeout,
+    @DefaultValue("200") int maxExportBatchSize) {}
@@ -0,0 +1,138 @@
+package bio.terra.common.gcpmetrics;
+
+import static bio.terra.common.opentelemetry.MetricNames.METRICS_PREFIX;
+
+import bio.terra.common.opentelemetry.ExportMetrics;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link MetricExporter} which splits each collection into batches of at most a number of points,
+ * i.e. time series, for its delegate, waits at most a timeout for all of them, and reports how the
+ * exports went with {@link ExportMetrics}:
+ *
+ * <ul>
+ *   <li>the number of points exported or failed to export;
+ *   <li>the latency of each export call.
+ * </ul>
+ *
+ * <p>Metrics are not split across batches, so a metric with more points than a batch holds is
+ * exported in a batch of its own. Batches left when the timeout runs out are not exported.
+ */
+public class MeteredMetricExporter implements MetricExporter {
+  private static final Logger logger = LoggerFactory.getLogger(MeteredMetricExporter.class);
+
+  public static final String POINTS_METER_NAME = METRICS_PREFIX + "/metrics/export/points";
+  public static final String LATENCY_METER_NAME = METRICS_PREFIX + "/metrics/export/latency";
+
+  private final MetricExporter delegate;
+  private final int maxExportBatchSize;
+  private final long exportTimeoutNanos;
+  private final ExportMetrics exportMetrics =
+      new ExportMetrics("metric points", POINTS_METER_NAME, LATENCY_METER_NAME);
+
+  public MeteredMetricExporter(
+      MetricExporter delegate, int maxExportBatchSize, Duration exportTimeout) {
+    this.delegate = delegate;
+    this.maxExportBatchSize = maxExportBatchSize;
+    this.exportTimeoutNanos = exportTimeout.toNanos();
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<MetricData> metrics) {
+    long deadline = System.nanoTime() + exportTimeoutNanos;
+    boolean success = true;
+    for (Batch batch : batches(metrics)) {
+      long remainingNanos = deadline - System.nanoTime();
+      if (remainingNanos <= 0) {
+        logger.warn("Metric export timed out, dropping {} points", batch.points());
+        exportMetrics.failed(batch.points());
+        success = false;
+        continue;
+      }
+      success &=
+          exportMetrics
+              .export(batch.points(), () -> exportWithin(batch.metrics(), remainingNanos))
+              .isSuccess();
+    }
+    return success ? CompletableResultCode.ofSuccess() : CompletableResultCode.ofFailure();
+  }
+
+  private CompletableResultCode exportWithin(List<MetricData> metrics, long timeoutNanos) {
+    CompletableResultCode result =
+        delegate.export(metrics).join(timeoutNanos, TimeUnit.NANOSECONDS);
+    return result.isSuccess()
+        ? CompletableResultCode.ofSuccess()
+        : CompletableResultCode.ofFailure();
+  }
+
+  private List<Batch> batches(Collection<MetricData> metrics) {
+    List<Batch> batches = new ArrayList<>();
+    List<MetricData> batch = new ArrayList<>();
+    int points = 0;
+    for (MetricData metric : metrics) {
+      int metricPoints = metric.getData().getPoints().size();
+      if (!batch.isEmpty() && points + metricPoints > maxExportBatchSize) {
+        batches.add(new Batch(batch, points));
+        batch = new ArrayList<>();
+        points = 0;
+      }
+      batch.add(metric);
+      points += metricPoints;
+    }
+    if (!batch.isEmpty()) {
+      batches.add(new Batch(batch, points));
+    }
+    return batches;
+  }
+
+  private record Batch(List<MetricData> metrics, int points) {}
+
+  @Override
+  public CompletableResultCode flush() {
+    return delegate.flush();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return delegate.shutdown();
+  }
+
+  @Override
+  public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+    return delegate.getAggregationTemporality(instrumentType);
+  }
+
+  @Override
+  public Aggregation getDefaultAggregation(InstrumentType instrumentType) {
+    return delegate.getDefaultAggregation(instrumentType);
+  }
+
+  long exportedPoints() {
+    return exportMetrics.exported();
+  }
+
+  long failedPoints() {
+    return exportMetrics.failed();
+  }
+
+  /**
+   * Exposes the point counts and export latency as OpenTelemetry instruments. Closing the returned
+   * handle unregisters the counter and stops recording export latency.
+   */
+  public AutoCloseable registerInstruments(OpenTelemetry openTelemetry) {
+    return exportMetrics.registerInstruments(openTelemetry, MeteredMetricExporter.class.getName());
+  }
+}
@@ -0,0 +1,22 @@
+package bio.terra.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** One run of a Stairway flight; a flight which is paused and resumed runs several times. */
+@Name("bio.terra.common.stairway.Flight")
+@Label("Stairway Flight")
+@Category({"Terra", "Stairway"})
+@Description("A run of a Stairway flight")
+public class FlightEvent extends TracedEvent {
+  @Label("Flight ID")
+  public String flightId;
+
+  @Label("Flight Class")
+  public String flightClass;
+
+  @Label("Status")
+  public String status;
+}
@@ -0,0 +1,31 @@
+package bio.terra.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** An inbound HTTP request, from the start of the servlet filter chain to the response. */
+@Name("bio.terra.common.HttpRequest")
+@Label("HTTP Request")
+@Category({"Terra", "HTTP"})
+@Description("An HTTP request served by the application")
+public class HttpRequestEvent extends TracedEvent {
+  @Label("Method")
+  public String method;
+
+  @Label("Path")
+  public String path;
+
+  @Label("Status")
+  public int status;
+
+  @Label("Request Size")
+  @DataAmount
+  public long requestSize;
+
+  @Label("Response Size")
+  @DataAmount
+  public long responseSize;
+}
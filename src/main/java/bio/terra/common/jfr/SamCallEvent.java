@@ -0,0 +1,23 @@
+package bio.terra.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A call to Sam made through {@link bio.terra.common.sam.SamRetry}, including its retries. */
+@Name("bio.terra.common.sam.SamCall")
+@Label("Sam Call")
+@Category({"Terra", "Sam"})
+@Description("A call to Sam, from its first attempt to its last")
+public class SamCallEvent extends TracedEvent {
+  @Label("Attempts")
+  public int attempts;
+
+  @Label("Succeeded")
+  public boolean succeeded;
+
+  @Label("Error Code")
+  @Description("The status code of the last failed attempt, or -1 if none failed; 0 is a timeout")
+  public int errorCode = -1;
+}
@@ -0,0 +1,28 @@
+package bio.terra.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** One execution of a Stairway step, doing or undoing it. */
+@Name("bio.terra.common.stairway.Step")
+@Label("Stairway Step")
+@Category({"Terra", "Stairway"})
+@Description("An execution of a Stairway step")
+public class StepEvent extends TracedEvent {
+  @Label("Flight ID")
+  public String flightId;
+
+  @Label("Flight Class")
+  public String flightClass;
+
+  @Label("Step Class")
+  public String stepClass;
+
+  @Label("Step Index")
+  public int stepIndex;
+
+  @Label("Direction")
+  public String direction;
+}
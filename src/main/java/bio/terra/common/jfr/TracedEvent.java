@@ -0,0 +1,41 @@
+package bio.terra.common.jfr;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base of this library's JDK Flight Recorder events, which carry the trace and span IDs of the
+ * span they happened in so that recordings can be lined up with traces.
+ *
+ * <p>Events cost next to nothing while no recording enables them. To keep it that way, fill in
+ * their fields, including the span, only once {@link #shouldCommit()} returns true:
+ *
+ * <pre>{@code
+ * var event = new FlightEvent();
+ * event.begin();
+ * ...
+ * if (event.shouldCommit()) {
+ *   event.flightId = flightId;
+ *   event.setSpan(Span.current());
+ *   event.commit();
+ * }
+ * }</pre>
+ */
+public abstract class TracedEvent extends Event {
+  @Label("Trace ID")
+  public String traceId;
+
+  @Label("Span ID")
+  public String spanId;
+
+  /** Sets the trace and span IDs from the span, unless it is invalid, e.g. no span is current. */
+  public void setSpan(Span span) {
+    SpanContext spanContext = span.getSpanContext();
+    if (spanContext.isValid()) {
+      traceId = spanContext.getTraceId();
+      spanId = spanContext.getSpanId();
+    }
+  }
+}
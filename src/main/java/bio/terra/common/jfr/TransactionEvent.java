@@ -0,0 +1,25 @@
+package bio.terra.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A call to a method annotated with {@link bio.terra.common.db.ReadTransaction} or {@link
+ * bio.terra.common.db.WriteTransaction}, including all of its attempts.
+ */
+@Name("bio.terra.common.db.Transaction")
+@Label("Database Transaction")
+@Category({"Terra", "Database"})
+@Description("A retried database transaction, from its first attempt to its last")
+public class TransactionEvent extends TracedEvent {
+  @Label("Method")
+  public String method;
+
+  @Label("Attempts")
+  public int attempts;
+
+  @Label("Succeeded")
+  public boolean succeeded;
+}
@@ -0,0 +1,22 @@
+package bio.terra.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A failed attempt of a database transaction, which may be retried. */
+@Name("bio.terra.common.db.TransactionRetry")
+@Label("Database Transaction Retry")
+@Category({"Terra", "Database"})
+@Description("A failed attempt of a database transaction")
+public class TransactionRetryEvent extends TracedEvent {
+  @Label("Method")
+  public String method;
+
+  @Label("Attempt")
+  public int attempt;
+
+  @Label("Exception")
+  public String exception;
+}
@@ -0,0 +1,88 @@
+package bio.terra.common.logging;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * A Servlet filter that opens a {@link RequestLogBuffer} for each inbound HTTP request, and decides
+ * once the request completes whether the buffered DEBUG and TRACE events are written out or
+ * dropped.
+ *
+ * <p>The buffer is keyed by the requestId, so this filter must run after the RequestIdFilter. No
+ * buffers are opened unless {@link LoggingProperties#getDebugBufferLoggerPrefixes()} names the
+ * loggers to buffer.
+ */
+class DebugBufferFilter implements Filter {
+  private static final Logger logger = LoggerFactory.getLogger(DebugBufferFilter.class);
+
+  private final boolean enabled;
+  private final long latencyThresholdNanos;
+  private final int maxEventsPerRequest;
+  private final long maxBytesPerRequest;
+  private final long maxBytesTotal;
+  // Estimated size of all buffered events across in-flight requests.
+  private final AtomicLong bufferedBytes = new AtomicLong();
+
+  DebugBufferFilter(LoggingProperties properties) {
+    this.enabled = !properties.getDebugBufferLoggerPrefixes().isEmpty();
+    if (!enabled) {
+      logger.warn(
+          "Debug buffering is enabled but no logger prefixes are set, so nothing is buffered");
+    }
+    this.latencyThresholdNanos = properties.getDebugBufferLatencyThreshold().toNanos();
+    this.maxEventsPerRequest = properties.getDebugBufferMaxEventsPerRequest();
+    this.maxBytesPerRequest = properties.getDebugBufferMaxSizePerRequest().toBytes();
+    this.maxBytesTotal = properties.getDebugBufferMaxSizeTotal().toBytes();
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    String requestId = MDC.get(RequestIdFilter.REQUEST_ID_MDC_KEY);
+    RequestLogBuffer buffer =
+        !enabled || requestId == null
+            ? null
+            : RequestLogBuffer.open(
+                requestId, maxEventsPerRequest, maxBytesPerRequest, bufferedBytes, maxBytesTotal);
+    if (buffer == null) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    long start = System.nanoTime();
+    try {
+      chain.doFilter(request, response);
+    } catch (Throwable t) {
+      buffer.flush("request failed with " + t.getClass().getName());
+      throw t;
+    }
+    long elapsedNanos = System.nanoTime() - start;
+
+    int status =
+        response instanceof HttpServletResponse httpResponse ? httpResponse.getStatus() : 0;
+    if (status >= 500) {
+      buffer.flush("response status " + status);
+    } else if (elapsedNanos >= latencyThresholdNanos) {
+      buffer.flush("request took " + Duration.ofNanos(elapsedNanos).toMillis() + "ms");
+    } else {
+      buffer.discard();
+    }
+  }
+
+  @Override
+  public void init(FilterConfig filterConfig) throws ServletException {}
+
+  @Override
+  public void destroy() {}
+}
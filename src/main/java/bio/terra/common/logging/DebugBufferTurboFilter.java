@@ -0,0 +1,63 @@
+package bio.terra.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import java.util.List;
+import org.slf4j.Marker;
+
+/**
+ * A Logback {@link TurboFilter} which diverts DEBUG and TRACE events into the {@link
+ * RequestLogBuffer} of the request being served, instead of dropping them because of the
+ * configured log level.
+ *
+ * <p>Events which the logger would emit anyway are left alone. When no request is being buffered,
+ * the cost of this filter is a single emptiness check per DEBUG or TRACE call.
+ *
+ * <p>Only loggers whose names start with one of the configured prefixes are buffered. Note that
+ * while a request is buffered, {@code isDebugEnabled()} and {@code isTraceEnabled()} return true
+ * for those loggers, so that callers go on to build the event; other loggers answer as usual.
+ */
+class DebugBufferTurboFilter extends TurboFilter {
+  static final String NAME = "terra-debug-buffer";
+
+  private final List<String> loggerPrefixes;
+
+  DebugBufferTurboFilter(List<String> loggerPrefixes) {
+    this.loggerPrefixes = List.copyOf(loggerPrefixes);
+    setName(NAME);
+  }
+
+  @Override
+  public FilterReply decide(
+      Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+    if (level.levelInt > Level.DEBUG_INT || !RequestLogBuffer.hasActiveBuffers()) {
+      return FilterReply.NEUTRAL;
+    }
+    // Logger.isDebugEnabled() would itself consult the turbo filters, so compare levels directly.
+    if (level.isGreaterOrEqual(logger.getEffectiveLevel()) || !isBuffered(logger)) {
+      return FilterReply.NEUTRAL;
+    }
+    RequestLogBuffer buffer = RequestLogBuffer.forCurrentRequest();
+    if (buffer == null) {
+      return FilterReply.NEUTRAL;
+    }
+    if (format == null) {
+      // This is an isDebugEnabled()-style probe rather than an actual event.
+      return FilterReply.ACCEPT;
+    }
+    buffer.add(logger, level, format, params, t);
+    return FilterReply.DENY;
+  }
+
+  private boolean isBuffered(Logger logger) {
+    String name = logger.getName();
+    for (String prefix : loggerPrefixes) {
+      if (name.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -1,9 +1,9 @@
 package bio.terra.common.logging;
 
-import ch.qos.logback.classic.pattern.ThrowableProxyConverter;
 import ch.qos.logback.classic.spi.CallerData;
 import ch.qos.logback.classic.spi.ILoggingEvent;
-import ch.qos.logback.contrib.jackson.JacksonJsonFormatter;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.StackTraceElementProxy;
 import ch.qos.logback.contrib.json.JsonLayoutBase;
 import ch.qos.logback.core.CoreConstants;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -13,7 +13,8 @@ import com.google.gson.JsonObject;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanId;
 import io.opentelemetry.api.trace.TraceId;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -56,40 +57,85 @@ import org.springframework.util.StringUtils;
  * that Google Cloud knows how to ingest, such as support for HttpRequest. See also <a
  * href="https://github.com/ankurcha/gcloud-logging-slf4j-logback/">gcloud-logging-slf4j-logback</a>
  * which inspired some of the patterns used here.
+ *
+ * <p>Each line is kept under a maximum size, since Cloud Logging rejects oversized entries. The
+ * limit is enforced while the line is written rather than by cutting the finished string: the
+ * message, stack trace and any field values which don't fit are cut short with a {@value
+ * #TRUNCATION_MARKER} marker, and serialization of an oversized value stops as soon as it crosses
+ * the limit. This keeps the memory used per event proportional to the limit, whatever the size of
+ * the payload.
  */
 class GoogleJsonLayout extends JsonLayoutBase<ILoggingEvent> {
 
   // A reference to the current Spring app context, on order to pull out the spring.application.name
   // and spring.application.version variable for inclusion in JSON output.
   private ConfigurableApplicationContext applicationContext;
-  // A Jackson ObjectMapper to support converting Gson-type payloads into Jackson nodes.
+  // The logging package's shared ObjectMapper, used both to render field values and to convert
+  // Gson-type payloads into Jackson nodes.
   private ObjectMapper objectMapper;
-  // A Logback utility class to assist with handling stack traces.
-  private ThrowableProxyConverter throwableProxyConverter;
+  // Maximum length of a log line, in characters (which are bytes for ASCII output).
+  private final int maxLineSize;
+  // Maximum length of the message including the stack trace, leaving room for the metadata fields.
+  private final int maxMessageSize;
+
+  static final String TRUNCATION_MARKER = "...[truncated]";
+  private static final String LABELS_KEY = "labels";
+  private static final String CLOUD_LABELS_KEY = "logging.googleapis.com/labels";
+  // Room kept for the metadata fields which follow the message.
+  private static final int METADATA_RESERVE = 4096;
+  private static final int MIN_FIELD_VALUE_SIZE = TRUNCATION_MARKER.length() + 2;
+  private static final int INITIAL_LINE_CAPACITY = 1024;
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
 
-  GoogleJsonLayout(ConfigurableApplicationContext applicationContext) {
+  GoogleJsonLayout(ConfigurableApplicationContext applicationContext, int maxLineSize) {
     this.applicationContext = applicationContext;
-    this.objectMapper = new ObjectMapper();
-    this.throwableProxyConverter = new ThrowableProxyConverter();
-    // "full" is a magic string used by the TPC to indicate we want a full stack trace, rather
-    // than a truncated version.
-    this.throwableProxyConverter.setOptionList(Collections.singletonList("full"));
+    this.objectMapper = LoggingUtils.OBJECT_MAPPER;
+    this.maxLineSize = maxLineSize;
+    this.maxMessageSize = Math.max(maxLineSize - METADATA_RESERVE, maxLineSize / 2);
 
     // Configure the superclass.
     this.appendLineSeparator = true;
-    setJsonFormatter(new JacksonJsonFormatter());
-  }
-
-  @Override
-  public void start() {
-    super.start();
-    throwableProxyConverter.start();
   }
 
+  /**
+   * Renders the map built by {@link #toJsonMap} as a single JSON line of at most {@code
+   * maxLineSize} characters, plus the line separator. Fields collected by {@link StructuredLog}
+   * are not in the map: they are written straight from the builder's container, and take
+   * precedence over map entries with the same key.
+   */
   @Override
-  public void stop() {
-    throwableProxyConverter.stop();
-    super.stop();
+  public String doLayout(ILoggingEvent event) {
+    Map<String, Object> jsonMap = toJsonMap(event);
+    StructuredLogFields fields = structuredLogFields(event);
+    StringBuilder line = new StringBuilder(Math.min(INITIAL_LINE_CAPACITY, maxLineSize));
+    line.append('{');
+    boolean full = false;
+    for (Map.Entry<String, Object> entry : jsonMap.entrySet()) {
+      if (fields != null && fields.lastIndexOf(inputKey(entry.getKey())) >= 0) {
+        continue;
+      }
+      if (!appendField(line, entry.getKey(), entry.getValue())) {
+        // The line is full; the remaining fields are dropped.
+        full = true;
+        break;
+      }
+    }
+    if (fields != null && !full) {
+      for (int i = 0; i < fields.size(); i++) {
+        // As with a map, the last value of a repeated key wins.
+        if (fields.lastIndexOf(fields.keyAt(i)) != i) {
+          continue;
+        }
+        if (!appendField(line, outputKey(fields.keyAt(i)), fields.valueAt(i))) {
+          break;
+        }
+      }
+    }
+    line.append('}');
+    if (appendLineSeparator) {
+      line.append(CoreConstants.LINE_SEPARATOR);
+    }
+    return line.toString();
   }
 
   /**
@@ -103,6 +149,7 @@ class GoogleJsonLayout extends JsonLayoutBase<ILoggingEvent> {
   @SuppressWarnings("PMD.SystemPrintln")
   protected Map<String, Object> toJsonMap(ILoggingEvent event) {
     Map<String, Object> outputMap = new LinkedHashMap<>();
+    boolean alert = false;
 
     outputMap.put("timestampSeconds", TimeUnit.MILLISECONDS.toSeconds(event.getTimeStamp()));
     outputMap.put("timestampNanos", TimeUnit.MILLISECONDS.toNanos(event.getTimeStamp() % 1_000));
@@ -135,7 +182,15 @@ class GoogleJsonLayout extends JsonLayoutBase<ILoggingEvent> {
     if (event.getArgumentArray() != null) {
       for (Object arg : event.getArgumentArray()) {
         try {
-          if (arg instanceof Map) {
+          if (arg instanceof StructuredLogFields fields) {
+            // Fields collected by the StructuredLog builder are written straight out of the
+            // builder's container by doLayout, rather than copied into this map. Only look for the
+            // alert key here.
+            int alertIndex = fields.lastIndexOf(LoggingUtils.ALERT_KEY);
+            if (alertIndex >= 0 && Boolean.TRUE.equals(fields.valueAt(alertIndex))) {
+              alert = true;
+            }
+          } else if (arg instanceof Map) {
             // Handle arbitrary Map by splatting each key-value pair into the main output map.
             @SuppressWarnings("unchecked")
             Map<String, Object> jsonMap = (Map<String, Object>) arg;
@@ -165,23 +220,305 @@ class GoogleJsonLayout extends JsonLayoutBase<ILoggingEvent> {
 
     // If the generic JSON splatting above caused a 'labels' entry to exist, move the value to
     // the well-known key that Cloud Logging will ingest as proper labels key-value pairs.
-    if (outputMap.containsKey("labels")) {
-      outputMap.put("logging.googleapis.com/labels", outputMap.get("labels"));
-      outputMap.remove("labels");
+    if (outputMap.containsKey(LABELS_KEY)) {
+      outputMap.put(CLOUD_LABELS_KEY, outputMap.get(LABELS_KEY));
+      outputMap.remove(LABELS_KEY);
+    }
+
+    if (alert || Boolean.TRUE.equals(outputMap.get(LoggingUtils.ALERT_KEY))) {
+      LogMetrics.INSTANCE.recordAlert(event.getLevel(), event.getLoggerName());
     }
 
     return outputMap;
   }
 
-  // Pulls the log event message, and appends a stack trace if the event contains a throwable.
+  /** Returns the fields collected by {@link StructuredLog} for the event, if any. */
+  private static StructuredLogFields structuredLogFields(ILoggingEvent event) {
+    if (event.getArgumentArray() != null) {
+      for (Object arg : event.getArgumentArray()) {
+        if (arg instanceof StructuredLogFields fields) {
+          return fields;
+        }
+      }
+    }
+    return null;
+  }
+
+  // A 'labels' field is written under the key that Cloud Logging ingests as labels, see toJsonMap.
+  private static String outputKey(String key) {
+    return LABELS_KEY.equals(key) ? CLOUD_LABELS_KEY : key;
+  }
+
+  private static String inputKey(String key) {
+    return CLOUD_LABELS_KEY.equals(key) ? LABELS_KEY : key;
+  }
+
+  // Pulls the log event message, and appends a stack trace if the event contains a throwable. The
+  // result is cut short at maxMessageSize characters.
   String getMessage(ILoggingEvent event) {
     String message = event.getFormattedMessage();
+    IThrowableProxy throwableProxy = event.getThrowableProxy();
+    if (throwableProxy == null && (message == null || message.length() <= maxMessageSize)) {
+      return message;
+    }
 
-    String stackTrace = throwableProxyConverter.convert(event);
-    if (!isNullOrEmpty(stackTrace)) {
-      return message + "\n" + stackTrace;
+    StringBuilder builder = new StringBuilder();
+    if (message != null && !appendBounded(builder, message, maxMessageSize)) {
+      return builder.append(TRUNCATION_MARKER).toString();
+    }
+    if (throwableProxy != null) {
+      builder.append('\n');
+      appendThrowable(builder, "", 0, throwableProxy, maxMessageSize);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Appends a stack trace in the same format as Logback's ThrowableProxyConverter, stopping with a
+   * marker once the builder holds {@code limit} characters, rather than rendering every frame of a
+   * deep stack.
+   */
+  private static void appendThrowable(
+      StringBuilder builder, String prefix, int indent, IThrowableProxy throwableProxy, int limit) {
+    appendIndent(builder, indent);
+    builder.append(prefix);
+    if (throwableProxy.isCyclic()) {
+      builder.append("[CIRCULAR REFERENCE: ");
+    }
+    builder.append(throwableProxy.getClassName());
+    String throwableMessage = throwableProxy.getMessage();
+    if (throwableMessage != null) {
+      builder.append(": ");
+      if (!appendBounded(builder, throwableMessage, limit)) {
+        builder.append(TRUNCATION_MARKER);
+        return;
+      }
+    }
+    if (throwableProxy.isCyclic()) {
+      builder.append(']');
+      return;
+    }
+
+    StackTraceElementProxy[] frames = throwableProxy.getStackTraceElementProxyArray();
+    int commonFrames = throwableProxy.getCommonFrames();
+    for (int i = 0; i < frames.length - commonFrames; i++) {
+      if (builder.length() >= limit) {
+        builder.append('\n');
+        appendIndent(builder, indent + 1);
+        builder.append(TRUNCATION_MARKER);
+        return;
+      }
+      builder.append('\n');
+      appendIndent(builder, indent + 1);
+      builder.append(frames[i].getSTEAsString());
+    }
+    if (commonFrames > 0) {
+      builder.append('\n');
+      appendIndent(builder, indent + 1);
+      builder.append("... ").append(commonFrames).append(" common frames omitted");
+    }
+
+    IThrowableProxy[] suppressed = throwableProxy.getSuppressed();
+    if (suppressed != null) {
+      for (IThrowableProxy suppressedProxy : suppressed) {
+        if (builder.length() >= limit) {
+          return;
+        }
+        builder.append('\n');
+        appendThrowable(builder, "Suppressed: ", indent + 1, suppressedProxy, limit);
+      }
+    }
+    IThrowableProxy cause = throwableProxy.getCause();
+    if (cause != null && builder.length() < limit) {
+      builder.append('\n');
+      appendThrowable(builder, "Caused by: ", indent, cause, limit);
+    }
+  }
+
+  private static void appendIndent(StringBuilder builder, int indent) {
+    for (int i = 0; i < indent; i++) {
+      builder.append(CoreConstants.TAB);
+    }
+  }
+
+  // Appends as much of the string as fits in limit characters; returns false if it was cut short.
+  private static boolean appendBounded(StringBuilder builder, String string, int limit) {
+    int available = Math.max(0, limit - builder.length());
+    if (string.length() <= available) {
+      builder.append(string);
+      return true;
+    }
+    builder.append(string, 0, available);
+    return false;
+  }
+
+  /**
+   * Appends a key-value pair to the line, cutting the value short if it doesn't fit. Returns false
+   * if the line is too full to hold even a truncated value.
+   */
+  private boolean appendField(StringBuilder line, String key, Object value) {
+    int fieldStart = line.length();
+    if (fieldStart > 1) {
+      line.append(',');
+    }
+    appendJsonString(line, key, Integer.MAX_VALUE);
+    line.append(':');
+    // Leave room for the closing brace.
+    int available = maxLineSize - line.length() - 1;
+    if (available < MIN_FIELD_VALUE_SIZE) {
+      line.setLength(fieldStart);
+      return false;
+    }
+
+    if (value instanceof CharSequence charSequence) {
+      appendJsonString(line, charSequence, available);
+      return true;
+    }
+    int valueStart = line.length();
+    BoundedWriter writer = new BoundedWriter(line, valueStart + available);
+    try {
+      objectMapper.writeValue(writer, value);
+    } catch (IOException | RuntimeException e) {
+      line.setLength(valueStart);
+      if (writer.limitExceeded) {
+        appendJsonString(line, TRUNCATION_MARKER, available);
+      } else {
+        appendJsonString(
+            line, "[unable to serialize: " + e.getClass().getSimpleName() + "]", available);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Appends a JSON string literal of at most {@code maxSize} characters including the quotes,
+   * ending the string with {@link #TRUNCATION_MARKER} if it had to be cut short. Escapes the same
+   * characters as Jackson's default configuration.
+   */
+  private static void appendJsonString(StringBuilder out, CharSequence value, int maxSize) {
+    int available = maxSize - 2;
+    boolean truncated = escapedLength(value, available) > available;
+    if (truncated) {
+      available -= TRUNCATION_MARKER.length();
+    }
+    out.append('"');
+    int written = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      int length = escapedLength(c);
+      if (written + length > available
+          || (truncated && Character.isHighSurrogate(c) && written + length + 1 > available)) {
+        // Out of room; don't split a surrogate pair either.
+        break;
+      }
+      appendEscaped(out, c);
+      written += length;
+    }
+    if (truncated) {
+      out.append(TRUNCATION_MARKER);
+    }
+    out.append('"');
+  }
+
+  // Returns the escaped length of the value, or any number above limit if it's longer than that.
+  // Stops scanning once past the limit, so the cost is bounded for huge values.
+  private static int escapedLength(CharSequence value, int limit) {
+    if (value.length() > limit) {
+      return value.length();
+    }
+    int length = 0;
+    for (int i = 0; i < value.length() && length <= limit; i++) {
+      length += escapedLength(value.charAt(i));
+    }
+    return length;
+  }
+
+  private static int escapedLength(char c) {
+    if (c == '"' || c == '\\') {
+      return 2;
+    }
+    if (c < 0x20) {
+      return c == '\b' || c == '\f' || c == '\n' || c == '\r' || c == '\t' ? 2 : 6;
+    }
+    return 1;
+  }
+
+  private static void appendEscaped(StringBuilder out, char c) {
+    switch (c) {
+      case '"' -> out.append("\\\"");
+      case '\\' -> out.append("\\\\");
+      case '\b' -> out.append("\\b");
+      case '\f' -> out.append("\\f");
+      case '\n' -> out.append("\\n");
+      case '\r' -> out.append("\\r");
+      case '\t' -> out.append("\\t");
+      default -> {
+        if (c < 0x20) {
+          out.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+        } else {
+          out.append(c);
+        }
+      }
+    }
+  }
+
+  /**
+   * A Writer which appends straight to the line being built, and fails as soon as the line would
+   * grow past a limit, so that serializing an oversized value costs no more than the limit. Jackson
+   * may wrap the failure, so callers check {@link #limitExceeded} rather than the exception.
+   */
+  private static final class BoundedWriter extends Writer {
+    private final StringBuilder line;
+    private final int limit;
+    private boolean limitExceeded;
+
+    BoundedWriter(StringBuilder line, int limit) {
+      this.line = line;
+      this.limit = limit;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+      ensureRoom(length);
+      line.append(chars, offset, length);
+    }
+
+    @Override
+    public void write(String string, int offset, int length) throws IOException {
+      ensureRoom(length);
+      line.append(string, offset, offset + length);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+      ensureRoom(1);
+      line.append((char) c);
+    }
+
+    private void ensureRoom(int length) throws IOException {
+      if (limitExceeded || line.length() + length > limit) {
+        limitExceeded = true;
+        throw new LineLimitExceededException();
+      }
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+  }
+
+  /** Thrown by BoundedWriter. Stackless, since it's only used for control flow. */
+  private static final class LineLimitExceededException extends IOException {
+    LineLimitExceededException() {
+      super("Log line size limit exceeded");
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
     }
-    return message;
   }
 
   /**
@@ -217,10 +554,6 @@ class GoogleJsonLayout extends JsonLayoutBase<ILoggingEvent> {
     return sourceLocation;
   }
 
-  private static boolean isNullOrEmpty(String string) {
-    return string == null || string.length() == 0;
-  }
-
   protected String formatTraceId(final String traceId) {
     // Trace IDs are either 64-bit or 128-bit, which is 16-digit hex, or 32-digit hex.
     // If traceId is 64-bit (16-digit hex), then we need to prepend 0's to make a 32-digit hex.
@@ -0,0 +1,158 @@
+package bio.terra.common.logging;
+
+import static bio.terra.common.opentelemetry.MetricNames.METRICS_PREFIX;
+
+import ch.qos.logback.classic.Level;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Counts the events and bytes written by the Terra logging pipeline, by level and logger, along
+ * with the number of events carrying {@link LoggingUtils#ALERT_KEY}.
+ *
+ * <p>Logging is configured before any Spring beans exist, so counting starts in a process-wide
+ * instance fed by {@link GoogleJsonLayout} and its encoder. Recording only touches a lock-free map
+ * lookup and a {@link LongAdder}; the counts are read when {@link #registerInstruments} exposes
+ * them as asynchronous OpenTelemetry counters, which happens once per metric collection.
+ *
+ * <p>To bound the metric cardinality, only the first {@link #DEFAULT_MAX_LOGGERS} logger names are
+ * tracked individually. Events from any further loggers are counted under {@link
+ * #OVERFLOW_LOGGER}.
+ */
+public final class LogMetrics {
+  public static final String EVENTS_METER_NAME = METRICS_PREFIX + "/logging/events";
+  public static final String BYTES_METER_NAME = METRICS_PREFIX + "/logging/bytes";
+  public static final String ALERTS_METER_NAME = METRICS_PREFIX + "/logging/alerts";
+  public static final AttributeKey<String> KEY_LEVEL = AttributeKey.stringKey("level");
+  public static final AttributeKey<String> KEY_LOGGER = AttributeKey.stringKey("logger");
+  public static final String OVERFLOW_LOGGER = "other";
+
+  static final int DEFAULT_MAX_LOGGERS = 200;
+  static final LogMetrics INSTANCE = new LogMetrics(DEFAULT_MAX_LOGGERS);
+
+  private static final List<Level> LEVELS =
+      List.of(Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR);
+
+  private final int maxLoggers;
+  private final ConcurrentHashMap<String, LoggerCounters> countersByLogger =
+      new ConcurrentHashMap<>();
+  private final LoggerCounters overflowCounters = new LoggerCounters(OVERFLOW_LOGGER);
+
+  LogMetrics(int maxLoggers) {
+    this.maxLoggers = maxLoggers;
+  }
+
+  /** Records an event that was written out, and the size of its encoded form. */
+  void recordEvent(Level level, String loggerName, long bytes) {
+    int index = levelIndex(level);
+    LoggerCounters counters = countersFor(loggerName);
+    counters.events[index].increment();
+    counters.bytes[index].add(bytes);
+  }
+
+  /** Records an event that was written out with the alert key set. */
+  void recordAlert(Level level, String loggerName) {
+    countersFor(loggerName).alerts[levelIndex(level)].increment();
+  }
+
+  /**
+   * Exposes the counts as OpenTelemetry counters. Closing the returned handle unregisters them,
+   * e.g. when the Spring context which owns the OpenTelemetry instance shuts down.
+   */
+  AutoCloseable registerInstruments(OpenTelemetry openTelemetry) {
+    Meter meter = openTelemetry.getMeter(LogMetrics.class.getName());
+    var events =
+        meter
+            .counterBuilder(EVENTS_METER_NAME)
+            .setDescription("Number of log events written")
+            .setUnit("1")
+            .buildWithCallback(measurement -> observe(measurement, counters -> counters.events));
+    var bytes =
+        meter
+            .counterBuilder(BYTES_METER_NAME)
+            .setDescription("Number of bytes of log events written")
+            .setUnit("By")
+            .buildWithCallback(measurement -> observe(measurement, counters -> counters.bytes));
+    var alerts =
+        meter
+            .counterBuilder(ALERTS_METER_NAME)
+            .setDescription("Number of log events written which trigger log-based alerting")
+            .setUnit("1")
+            .buildWithCallback(measurement -> observe(measurement, counters -> counters.alerts));
+    return () -> {
+      events.close();
+      bytes.close();
+      alerts.close();
+    };
+  }
+
+  private void observe(
+      ObservableLongMeasurement measurement, Function<LoggerCounters, LongAdder[]> counterType) {
+    countersByLogger.values().forEach(counters -> counters.observe(measurement, counterType));
+    overflowCounters.observe(measurement, counterType);
+  }
+
+  private LoggerCounters countersFor(String loggerName) {
+    LoggerCounters counters = countersByLogger.get(loggerName);
+    if (counters != null) {
+      return counters;
+    }
+    // The size check is racy, so the limit may be overshot by a few concurrent first events. That
+    // is fine; it only needs to keep the cardinality from growing without bound.
+    if (countersByLogger.size() >= maxLoggers) {
+      return overflowCounters;
+    }
+    return countersByLogger.computeIfAbsent(loggerName, LoggerCounters::new);
+  }
+
+  private static int levelIndex(Level level) {
+    return switch (level.levelInt) {
+      case Level.TRACE_INT -> 0;
+      case Level.DEBUG_INT -> 1;
+      case Level.INFO_INT -> 2;
+      case Level.WARN_INT -> 3;
+      default -> 4;
+    };
+  }
+
+  private static final class LoggerCounters {
+    // Attributes are built once per logger and level, so collection does not allocate them.
+    private final Attributes[] attributes = new Attributes[LEVELS.size()];
+    private final LongAdder[] events = newAdders();
+    private final LongAdder[] bytes = newAdders();
+    private final LongAdder[] alerts = newAdders();
+
+    LoggerCounters(String loggerName) {
+      for (int i = 0; i < LEVELS.size(); i++) {
+        attributes[i] = Attributes.of(KEY_LEVEL, LEVELS.get(i).levelStr, KEY_LOGGER, loggerName);
+      }
+    }
+
+    void observe(
+        ObservableLongMeasurement measurement, Function<LoggerCounters, LongAdder[]> counterType) {
+      LongAdder[] adders = counterType.apply(this);
+      for (int i = 0; i < adders.length; i++) {
+        long value = adders[i].sum();
+        // Skip levels this logger never wrote, rather than reporting a series of zeros.
+        if (value > 0) {
+          measurement.record(value, attributes[i]);
+        }
+      }
+    }
+
+    private static LongAdder[] newAdders() {
+      LongAdder[] adders = new LongAdder[LEVELS.size()];
+      for (int i = 0; i < adders.length; i++) {
+        adders[i] = new LongAdder();
+      }
+      return adders;
+    }
+  }
+}
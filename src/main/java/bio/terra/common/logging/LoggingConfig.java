@@ -1,7 +1,15 @@
 package bio.terra.common.logging;
 
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.instrumentation.logback.appender.v1_0.OpenTelemetryAppender;
+import io.opentelemetry.sdk.autoconfigure.spi.AutoConfigurationCustomizerProvider;
 import jakarta.annotation.PostConstruct;
+import java.util.Map;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,18 +17,25 @@ import org.springframework.core.annotation.Order;
 
 /**
  * Spring Configuration for Terra common logging setup. This config class installs three main
- * logging-related behaviors:
+ * logging-related behaviors, plus optional per-request log levels and debug-on-error buffering:
  *
  * <ul>
  *   <li>RequestIdFilter, which generates or propagates a random requestId token for inbound HTTP
  *       requests, and applies requestId to the MDC and the HttpResponse.
  *   <li>RequestLoggingFilter, which collects HTTP information and geneates an info log for each
  *       inbound HTTP request.
+ *   <li>RequestLogLevelFilter, which if enabled by {@link LoggingProperties} lets an authorized
+ *       caller raise the log level for a single request.
+ *   <li>DebugBufferFilter, which if enabled by {@link LoggingProperties} holds each request's
+ *       DEBUG logs and writes them out only if the request fails or is slow.
  *   <li>GoogleJsonLayout, which installs a custom JSON logback layout with enhanced metadata for
- *       Google Cloud Logging.
+ *       Google Cloud Logging, or an OpenTelemetry Logs bridge, see {@link LoggingProperties}.
+ *       Events written through the JSON layout are counted by {@link LogMetrics}, which this
+ *       config exports as OpenTelemetry metrics.
  * </ul>
  */
 @Configuration
+@EnableConfigurationProperties(LoggingProperties.class)
 public class LoggingConfig {
 
   private ConfigurableApplicationContext applicationContext;
@@ -41,6 +56,35 @@ public class LoggingConfig {
     return new RequestIdFilter();
   }
 
+  /**
+   * Lets authorized callers raise the log level of a single request, see {@link
+   * LoggingProperties#isRequestLogLevelEnabled()}.
+   *
+   * <p>Runs right after the RequestIdFilter bean, so the rest of the filter chain is logged at the
+   * requested level.
+   */
+  @Bean
+  @Order(1)
+  @ConditionalOnProperty(
+      name = "terra.common.logging.request-log-level-enabled", havingValue = "true")
+  public RequestLogLevelFilter getRequestLogLevelFilter(LoggingProperties loggingProperties) {
+    return new RequestLogLevelFilter(loggingProperties);
+  }
+
+  /**
+   * Buffers per-request DEBUG logs, see {@link LoggingProperties#isDebugBufferEnabled()}.
+   *
+   * <p>Needs to have lower precedence than the RequestIdFilter bean, since buffers are keyed by the
+   * requestId, and higher precedence than the RequestLoggingFilter bean, so the request summary is
+   * logged before any buffered events are flushed.
+   */
+  @Bean
+  @Order(2)
+  @ConditionalOnProperty(name = "terra.common.logging.debug-buffer-enabled", havingValue = "true")
+  public DebugBufferFilter getDebugBufferFilter(LoggingProperties loggingProperties) {
+    return new DebugBufferFilter(loggingProperties);
+  }
+
   /**
    * Cache the request and response body using Spring's utility classes, in order to allow the
    * request logging filter to calculate the request and response size. See <a
@@ -50,7 +94,7 @@ public class LoggingConfig {
    * <p>This needs to have higher precedence than the RequestLoggingFilter bean.
    */
   @Bean
-  @Order(1)
+  @Order(3)
   public RequestCacheFilter getRequestCacheFilter() {
     return new RequestCacheFilter();
   }
@@ -61,11 +105,54 @@ public class LoggingConfig {
    * <p>Needs to have lower precedence than the RequestCacheFilter bean.
    */
   @Bean
-  @Order(2)
+  @Order(4)
   public RequestLoggingFilter getRequestLoggingFilter() {
     return new RequestLoggingFilter();
   }
 
+  /**
+   * Exports the {@link LogMetrics} collected by the logging pipeline through the application's
+   * OpenTelemetry instance, if there is one. The instruments are unregistered when the context
+   * closes.
+   */
+  @Bean(destroyMethod = "close")
+  public AutoCloseable logMetricsInstruments(ObjectProvider<OpenTelemetry> openTelemetry) {
+    OpenTelemetry available = openTelemetry.getIfAvailable();
+    return available == null ? () -> {} : LogMetrics.INSTANCE.registerInstruments(available);
+  }
+
+  /**
+   * Applies the batching settings for the OpenTelemetry Logs pipeline, see {@link
+   * LoggingProperties#isOtelEnabled()}. The autoconfigured BatchLogRecordProcessor reports its
+   * queue size and the number of dropped records through the SDK's meter provider.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "terra.common.logging.otel-enabled", havingValue = "true")
+  public AutoConfigurationCustomizerProvider otelLogsCustomizer(
+      LoggingProperties loggingProperties) {
+    return customizer ->
+        customizer.addPropertiesCustomizer(
+            unused ->
+                Map.of(
+                    "otel.blrp.max.export.batch.size",
+                    String.valueOf(loggingProperties.getOtelMaxExportBatchSize()),
+                    "otel.blrp.max.queue.size",
+                    String.valueOf(loggingProperties.getOtelMaxQueueSize()),
+                    "otel.blrp.schedule.delay",
+                    loggingProperties.getOtelExportInterval().toMillis() + "ms"));
+  }
+
+  /**
+   * Connects the OpenTelemetryAppender set up by {@link LoggingUtils#initializeLogging} to the
+   * application's OpenTelemetry SDK, once all beans have been created.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "terra.common.logging.otel-enabled", havingValue = "true")
+  public SmartInitializingSingleton otelAppenderInstaller(
+      ObjectProvider<OpenTelemetry> openTelemetry) {
+    return () -> openTelemetry.ifAvailable(OpenTelemetryAppender::install);
+  }
+
   /**
    * Initialized the Terra logging setup after this configuration class is constructed. This is
    * intended as a fallback measure, in case the LoggingInitializer wasn't attached to the main
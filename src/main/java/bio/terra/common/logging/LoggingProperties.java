@@ -0,0 +1,195 @@
+package bio.terra.common.logging;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Properties for configuring Terra common logging.
+ *
+ * <p>Most of the logging setup happens in {@link LoggingInitializer}, before any Spring beans
+ * exist, so {@link LoggingUtils#initializeLogging} binds these properties straight from the
+ * environment as well as exposing them as a regular configuration properties bean.
+ */
+@ConfigurationProperties(prefix = LoggingProperties.PREFIX)
+public class LoggingProperties {
+  public static final String PREFIX = "terra.common.logging";
+
+  /**
+   * Maximum size of a JSON log line, measured in characters (which are bytes for ASCII output).
+   * Longer messages, stack traces and field values are cut short with a marker. The default leaves
+   * headroom under Cloud Logging's 256KB limit per log entry.
+   */
+  private DataSize maxLineSize = DataSize.ofKilobytes(200);
+
+  /** If true, log events are written to stdout as JSON lines, see {@link GoogleJsonLayout}. */
+  private boolean consoleEnabled = true;
+
+  /**
+   * If true, log events are also sent through the OpenTelemetry Logs SDK, using the same SDK
+   * instance (and so the same resource and trace context) as tracing and metrics. The exporter is
+   * chosen by the standard {@code otel.logs.exporter} property, which defaults to OTLP.
+   */
+  private boolean otelEnabled = false;
+
+  /** Maximum number of log records sent to the exporter in one batch. */
+  private int otelMaxExportBatchSize = 512;
+
+  /**
+   * Maximum number of log records queued for export. Records logged while the queue is full are
+   * dropped, and counted by the batch processor's own metrics.
+   */
+  private int otelMaxQueueSize = 2048;
+
+  /** Maximum time between two exports of queued log records. */
+  private Duration otelExportInterval = Duration.ofSeconds(1);
+
+  /**
+   * If true, DEBUG and TRACE events logged while serving an HTTP request are held in a per-request
+   * buffer, even if those levels are otherwise disabled. The buffer is written out only if the
+   * request fails (5xx status or an exception) or is slower than {@link
+   * #debugBufferLatencyThreshold}, and is otherwise dropped.
+   */
+  private boolean debugBufferEnabled = false;
+
+  /**
+   * Logger name prefixes whose DEBUG and TRACE events are buffered, typically the application's own
+   * packages. Nothing is buffered while this is empty, so that turning buffering on never renders
+   * the verbose debug logging of frameworks and libraries on every request.
+   */
+  private List<String> debugBufferLoggerPrefixes = List.of();
+
+  /** Requests slower than this have their buffered debug events written out. */
+  private Duration debugBufferLatencyThreshold = Duration.ofSeconds(10);
+
+  /** Maximum number of events buffered for a single request; later events are dropped. */
+  private int debugBufferMaxEventsPerRequest = 1000;
+
+  /** Approximate maximum memory used by the buffer of a single request. */
+  private DataSize debugBufferMaxSizePerRequest = DataSize.ofMegabytes(1);
+
+  /** Approximate maximum memory used by the buffers of all in-flight requests combined. */
+  private DataSize debugBufferMaxSizeTotal = DataSize.ofMegabytes(64);
+
+  /**
+   * If true, a caller holding {@link #requestLogLevelToken} can raise the log level for a single
+   * request with the X-Terra-Log-Level header, see {@link RequestLogLevelFilter}.
+   */
+  private boolean requestLogLevelEnabled = false;
+
+  /** Shared secret which must accompany a per-request log level header. Keep this out of git. */
+  private String requestLogLevelToken;
+
+  public DataSize getMaxLineSize() {
+    return maxLineSize;
+  }
+
+  public void setMaxLineSize(DataSize maxLineSize) {
+    this.maxLineSize = maxLineSize;
+  }
+
+  public boolean isConsoleEnabled() {
+    return consoleEnabled;
+  }
+
+  public void setConsoleEnabled(boolean consoleEnabled) {
+    this.consoleEnabled = consoleEnabled;
+  }
+
+  public boolean isOtelEnabled() {
+    return otelEnabled;
+  }
+
+  public void setOtelEnabled(boolean otelEnabled) {
+    this.otelEnabled = otelEnabled;
+  }
+
+  public int getOtelMaxExportBatchSize() {
+    return otelMaxExportBatchSize;
+  }
+
+  public void setOtelMaxExportBatchSize(int otelMaxExportBatchSize) {
+    this.otelMaxExportBatchSize = otelMaxExportBatchSize;
+  }
+
+  public int getOtelMaxQueueSize() {
+    return otelMaxQueueSize;
+  }
+
+  public void setOtelMaxQueueSize(int otelMaxQueueSize) {
+    this.otelMaxQueueSize = otelMaxQueueSize;
+  }
+
+  public Duration getOtelExportInterval() {
+    return otelExportInterval;
+  }
+
+  public void setOtelExportInterval(Duration otelExportInterval) {
+    this.otelExportInterval = otelExportInterval;
+  }
+
+  public boolean isDebugBufferEnabled() {
+    return debugBufferEnabled;
+  }
+
+  public void setDebugBufferEnabled(boolean debugBufferEnabled) {
+    this.debugBufferEnabled = debugBufferEnabled;
+  }
+
+  public List<String> getDebugBufferLoggerPrefixes() {
+    return debugBufferLoggerPrefixes;
+  }
+
+  public void setDebugBufferLoggerPrefixes(List<String> debugBufferLoggerPrefixes) {
+    this.debugBufferLoggerPrefixes = debugBufferLoggerPrefixes;
+  }
+
+  public Duration getDebugBufferLatencyThreshold() {
+    return debugBufferLatencyThreshold;
+  }
+
+  public void setDebugBufferLatencyThreshold(Duration debugBufferLatencyThreshold) {
+    this.debugBufferLatencyThreshold = debugBufferLatencyThreshold;
+  }
+
+  public int getDebugBufferMaxEventsPerRequest() {
+    return debugBufferMaxEventsPerRequest;
+  }
+
+  public void setDebugBufferMaxEventsPerRequest(int debugBufferMaxEventsPerRequest) {
+    this.debugBufferMaxEventsPerRequest = debugBufferMaxEventsPerRequest;
+  }
+
+  public DataSize getDebugBufferMaxSizePerRequest() {
+    return debugBufferMaxSizePerRequest;
+  }
+
+  public void setDebugBufferMaxSizePerRequest(DataSize debugBufferMaxSizePerRequest) {
+    this.debugBufferMaxSizePerRequest = debugBufferMaxSizePerRequest;
+  }
+
+  public DataSize getDebugBufferMaxSizeTotal() {
+    return debugBufferMaxSizeTotal;
+  }
+
+  public void setDebugBufferMaxSizeTotal(DataSize debugBufferMaxSizeTotal) {
+    this.debugBufferMaxSizeTotal = debugBufferMaxSizeTotal;
+  }
+
+  public boolean isRequestLogLevelEnabled() {
+    return requestLogLevelEnabled;
+  }
+
+  public void setRequestLogLevelEnabled(boolean requestLogLevelEnabled) {
+    this.requestLogLevelEnabled = requestLogLevelEnabled;
+  }
+
+  public String getRequestLogLevelToken() {
+    return requestLogLevelToken;
+  }
+
+  public void setRequestLogLevelToken(String requestLogLevelToken) {
+    this.requestLogLevelToken = requestLogLevelToken;
+  }
+}
@@ -1,17 +1,22 @@
 package bio.terra.common.logging;
 
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
 import ch.qos.logback.classic.util.ContextInitializer;
 import ch.qos.logback.core.ConsoleAppender;
 import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
-import com.fasterxml.jackson.core.JsonParser.Feature;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.opentelemetry.instrumentation.logback.appender.v1_0.OpenTelemetryAppender;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.env.ConfigurableEnvironment;
 
@@ -22,11 +27,20 @@ import org.springframework.core.env.ConfigurableEnvironment;
  */
 public final class LoggingUtils {
   public static final String TERRA_APPENDER_NAME = "terra-common";
+  public static final String TERRA_OTEL_APPENDER_NAME = "terra-common-otel";
 
   // A simple string which can be included as a key in JSON logging output. This is intended to
   // trigger log-based alerting to notify developers of unexpected errors.
   public static final String ALERT_KEY = "terraLogBasedAlert";
 
+  // A single ObjectMapper shared by the whole logging package. ObjectMapper is expensive to build
+  // but thread-safe once configured, so it must not be created per log call.
+  // Let's not be monsters here. Allow some more lenient Javascript-style JSON when parsing.
+  static final ObjectMapper OBJECT_MAPPER =
+      JsonMapper.builder()
+          .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES, JsonReadFeature.ALLOW_SINGLE_QUOTES)
+          .build();
+
   private LoggingUtils() {}
 
   public static Map<String, Boolean> alertObject() {
@@ -61,11 +75,7 @@ public final class LoggingUtils {
    * </pre>
    */
   public static JsonNode jsonFromString(String s) throws JsonProcessingException {
-    ObjectMapper mapper = new ObjectMapper();
-    // Let's not be monsters here. Allow some more lenient Javascript-style JSON.
-    mapper.configure(Feature.ALLOW_UNQUOTED_FIELD_NAMES, true);
-    mapper.configure(Feature.ALLOW_SINGLE_QUOTES, true);
-    return mapper.readTree(s);
+    return OBJECT_MAPPER.readTree(s);
   }
 
   /**
@@ -83,6 +93,9 @@ public final class LoggingUtils {
    *   // which lands in Cloud Logging via the 'jsonPayload' field, accessible by querying:
    *   jsonPayload.event.subfield.value = "12345"
    * </pre>
+   *
+   * <p>For events with several fields, or on hot paths, prefer {@link StructuredLog}, which does
+   * not allocate when the level is disabled and does not build a map per call.
    */
   public static Map<String, Object> structuredLogData(String key, Object value) {
     return Collections.singletonMap(key, value);
@@ -90,7 +103,7 @@ public final class LoggingUtils {
 
   /**
    * Initializes the Terra logging configuration, primarily by installing GoogleJsonLayout as the
-   * sole Logback logger.
+   * sole Logback logger, and optionally a bridge to the OpenTelemetry Logs SDK.
    *
    * <p>This method will only apply configuration once; subsequent calls will have no effect.
    *
@@ -104,6 +117,10 @@ public final class LoggingUtils {
     ch.qos.logback.classic.Logger logbackLogger =
         (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
     ConfigurableEnvironment environment = applicationContext.getEnvironment();
+    LoggingProperties loggingProperties =
+        Binder.get(environment)
+            .bind(LoggingProperties.PREFIX, LoggingProperties.class)
+            .orElseGet(LoggingProperties::new);
 
     if (Arrays.asList(environment.getActiveProfiles()).contains("human-readable-logging")) {
       System.out.println("Human-readable logging enabled, re-applying original logback.xml config");
@@ -123,21 +140,73 @@ public final class LoggingUtils {
         throw new RuntimeException("Error loading human-readable logging", e);
       }
     } else {
-      GoogleJsonLayout layout = new GoogleJsonLayout(applicationContext);
-      layout.start();
+      logbackLogger.detachAndStopAllAppenders();
 
-      LayoutWrappingEncoder encoder = new LayoutWrappingEncoder();
-      encoder.setLayout(layout);
-      encoder.start();
+      if (loggingProperties.isConsoleEnabled()) {
+        int maxLineSize =
+            (int) Math.min(Integer.MAX_VALUE, loggingProperties.getMaxLineSize().toBytes());
+        GoogleJsonLayout layout = new GoogleJsonLayout(applicationContext, maxLineSize);
+        layout.start();
 
-      ConsoleAppender appender = new ConsoleAppender();
-      appender.setName(TERRA_APPENDER_NAME);
-      appender.setEncoder(encoder);
-      appender.setContext(logbackLogger.getLoggerContext());
-      appender.start();
+        LayoutWrappingEncoder encoder = new MeteredLayoutWrappingEncoder(LogMetrics.INSTANCE);
+        encoder.setLayout(layout);
+        encoder.start();
 
-      logbackLogger.detachAndStopAllAppenders();
-      logbackLogger.addAppender(appender);
+        ConsoleAppender appender = new ConsoleAppender();
+        appender.setName(TERRA_APPENDER_NAME);
+        appender.setEncoder(encoder);
+        appender.setContext(logbackLogger.getLoggerContext());
+        appender.start();
+        logbackLogger.addAppender(appender);
+      }
+
+      if (loggingProperties.isOtelEnabled()) {
+        // Events are held in a small bounded queue until LoggingConfig installs the OpenTelemetry
+        // SDK into this appender, once the Spring context has created it.
+        OpenTelemetryAppender appender = new OpenTelemetryAppender();
+        appender.setName(TERRA_OTEL_APPENDER_NAME);
+        appender.setCaptureExperimentalAttributes(true);
+        appender.setCaptureMdcAttributes("*");
+        appender.setContext(logbackLogger.getLoggerContext());
+        appender.start();
+        logbackLogger.addAppender(appender);
+      }
     }
+
+    installTurboFilters(logbackLogger.getLoggerContext(), loggingProperties);
+  }
+
+  /**
+   * Replaces any previously installed Terra turbo filters, so that re-initialization (e.g. across
+   * Spring contexts in unit tests) picks up the current configuration.
+   *
+   * <p>Order matters: Logback stops at the first filter which accepts or denies an event, and an
+   * event logged at a level requested for the current request should be written out directly
+   * rather than buffered.
+   */
+  private static void installTurboFilters(
+      LoggerContext loggerContext, LoggingProperties loggingProperties) {
+    for (TurboFilter turboFilter : loggerContext.getTurboFilterList()) {
+      if (turboFilter instanceof RequestLogLevelTurboFilter
+          || turboFilter instanceof DebugBufferTurboFilter) {
+        loggerContext.getTurboFilterList().remove(turboFilter);
+        turboFilter.stop();
+      }
+    }
+    if (loggingProperties.isRequestLogLevelEnabled()) {
+      addTurboFilter(loggerContext, new RequestLogLevelTurboFilter());
+    }
+    if (loggingProperties.isDebugBufferEnabled()
+        && !loggingProperties.getDebugBufferLoggerPrefixes().isEmpty()) {
+      addTurboFilter(
+          loggerContext,
+          new DebugBufferTurboFilter(loggingProperties.getDebugBufferLoggerPrefixes()));
+    }
+  }
+
+  private static void addTurboFilter(LoggerContext loggerContext, TurboFilter turboFilter) {
+    turboFilter.setContext(loggerContext);
+    turboFilter.start();
+    loggerContext.addTurboFilter(turboFilter);
   }
 }
@@ -0,0 +1,23 @@
+package bio.terra.common.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+
+/**
+ * A {@link LayoutWrappingEncoder} which records each encoded event in {@link LogMetrics}. Counting
+ * here rather than in the layout gives the exact number of bytes written, at no extra cost.
+ */
+class MeteredLayoutWrappingEncoder extends LayoutWrappingEncoder<ILoggingEvent> {
+  private final LogMetrics logMetrics;
+
+  MeteredLayoutWrappingEncoder(LogMetrics logMetrics) {
+    this.logMetrics = logMetrics;
+  }
+
+  @Override
+  public byte[] encode(ILoggingEvent event) {
+    byte[] encoded = super.encode(event);
+    logMetrics.recordEvent(event.getLevel(), event.getLoggerName(), encoded.length);
+    return encoded;
+  }
+}
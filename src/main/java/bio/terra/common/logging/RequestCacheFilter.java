@@ -1,5 +1,7 @@
 package bio.terra.common.logging;
 
+import bio.terra.common.opentelemetry.HttpServerMetrics;
+import io.opentelemetry.context.Context;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.FilterConfig;
@@ -14,7 +16,12 @@ import org.springframework.web.util.ContentCachingResponseWrapper;
 
 /**
  * A Servlet filter that wraps the request and response in a ContentCachingFooWrapper, to allow the
- * payloads to be read by intermediate filters, i.e. the RequestLoggingFilter.
+ * payloads to be read by intermediate filters, i.e. the RequestLoggingFilter. Also reports the body
+ * sizes to {@link HttpServerMetrics}.
+ *
+ * <p>The sizes are reported into the current context once the chain returns, so they are only
+ * recorded if the filter of the server instrumentation using {@link HttpServerMetrics} runs outside
+ * this one, i.e. has a higher precedence, and so has made the request's context current.
  */
 class RequestCacheFilter implements Filter {
 
@@ -27,9 +34,17 @@ class RequestCacheFilter implements Filter {
         new ContentCachingResponseWrapper((HttpServletResponse) res);
 
     chain.doFilter(reqWrapper, resWrapper);
+    HttpServerMetrics.recordBodySizes(
+        Context.current(), requestBodySize(reqWrapper), resWrapper.getContentSize());
     resWrapper.copyBodyToResponse();
   }
 
+  // Prefer the declared length, since the cache only holds what the handler actually read.
+  private static long requestBodySize(ContentCachingRequestWrapper request) {
+    long declared = request.getContentLengthLong();
+    return declared >= 0 ? declared : request.getContentAsByteArray().length;
+  }
+
   @Override
   public void init(FilterConfig filterConfig) throws ServletException {}
 
@@ -13,14 +13,15 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.concurrent.ThreadLocalRandom;
-import org.hashids.Hashids;
 import org.slf4j.MDC;
 
 /**
  * A Servlet filter that ensures a requestId is extracted from an inbound HTTP request, or otherwise
  * generated randomly.
  *
- * <p>The requestId is added to the MDC context and set as a response header.
+ * <p>The requestId is added to the MDC context and set as a response header. Outbound calls made
+ * through the Terra tracing clients carry it in the same header, see {@link
+ * #currentRequestId()}.
  */
 @VisibleForTesting
 public class RequestIdFilter implements Filter {
@@ -28,11 +29,30 @@ public class RequestIdFilter implements Filter {
   public static final String REQUEST_ID_HEADER = "X-Request-ID";
   public static final String REQUEST_ID_MDC_KEY = "requestId";
 
-  private final Hashids hashids = new Hashids("requestIdSalt", 8);
+  private static final char[] BASE62_DIGITS =
+      "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+  // 62^11 > 2^64, so 11 base62 digits hold any 64-bit value.
+  private static final int REQUEST_ID_LENGTH = 11;
 
+  /** Generates a random requestId: 64 random bits, encoded as 11 URL-safe base62 characters. */
   @VisibleForTesting
   public String generateRequestId() {
-    return hashids.encode(ThreadLocalRandom.current().nextLong(0, Integer.MAX_VALUE));
+    long value = ThreadLocalRandom.current().nextLong();
+    char[] digits = new char[REQUEST_ID_LENGTH];
+    // Treat the first digit as unsigned; after that the remaining value is non-negative and the
+    // cheaper signed arithmetic is exact.
+    digits[REQUEST_ID_LENGTH - 1] = BASE62_DIGITS[(int) Long.remainderUnsigned(value, 62)];
+    value = Long.divideUnsigned(value, 62);
+    for (int i = REQUEST_ID_LENGTH - 2; i >= 0; i--) {
+      digits[i] = BASE62_DIGITS[(int) (value % 62)];
+      value /= 62;
+    }
+    return new String(digits);
+  }
+
+  /** Returns the requestId of the request being served on the current thread, if any. */
+  public static String currentRequestId() {
+    return MDC.get(REQUEST_ID_MDC_KEY);
   }
 
   @Override
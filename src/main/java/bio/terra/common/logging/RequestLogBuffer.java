@@ -0,0 +1,272 @@
+package bio.terra.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.google.gson.JsonObject;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.helpers.FormattingTuple;
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * Holds the DEBUG and TRACE events logged while serving a single HTTP request, keyed by the
+ * request ID set up by {@link RequestIdFilter}.
+ *
+ * <p>Events are added by {@link DebugBufferTurboFilter} from any thread whose MDC carries the
+ * request ID, and are either written out by {@link #flush(String)} or dropped by {@link #discard()}
+ * when the request completes. Memory use is bounded per request by an event count and a size, and
+ * across all requests by a shared size budget; events over either limit are dropped and counted.
+ *
+ * <p>Events are rendered when they are buffered: the message is formatted and any structured
+ * arguments are serialized to JSON, and no reference to the arguments is kept. The JSON is written
+ * out as is when the buffer is flushed. The size of an event is the size of those rendered strings,
+ * so large arguments count in full, and arguments mutated after the logging call are written out
+ * as they were when it was made.
+ */
+final class RequestLogBuffer {
+  private static final org.slf4j.Logger logger = LoggerFactory.getLogger(RequestLogBuffer.class);
+
+  // All buffers for requests which are currently in flight.
+  private static final ConcurrentHashMap<String, RequestLogBuffer> ACTIVE =
+      new ConcurrentHashMap<>();
+
+  private static final String FQCN = Logger.class.getName();
+  private static final StackTraceElement[] NO_CALLER_DATA = new StackTraceElement[0];
+
+  // Size estimates used for the memory caps, on top of the rendered strings. Throwables are kept as
+  // is and rendered when the event is written out, like for any other event.
+  private static final long EVENT_OVERHEAD_BYTES = 256;
+  private static final long THROWABLE_OVERHEAD_BYTES = 4096;
+
+  // Buffered events are written out with their rendered message as the argument of this format,
+  // so that the message is not formatted a second time.
+  private static final String MESSAGE_FORMAT = "{}";
+
+  private final String requestId;
+  private final int maxEvents;
+  private final long maxBytes;
+  private final AtomicLong globalBytes;
+  private final long globalMaxBytes;
+  private final List<BufferedEvent> events = new ArrayList<>();
+  private long bytes;
+  private int droppedEvents;
+  private boolean closed;
+
+  private RequestLogBuffer(
+      String requestId, int maxEvents, long maxBytes, AtomicLong globalBytes, long globalMaxBytes) {
+    this.requestId = requestId;
+    this.maxEvents = maxEvents;
+    this.maxBytes = maxBytes;
+    this.globalBytes = globalBytes;
+    this.globalMaxBytes = globalMaxBytes;
+  }
+
+  /**
+   * Starts buffering for the given request. Returns null if a buffer is already open for the same
+   * request ID, e.g. because a client reused an X-Request-ID header across concurrent requests.
+   */
+  static RequestLogBuffer open(
+      String requestId, int maxEvents, long maxBytes, AtomicLong globalBytes, long globalMaxBytes) {
+    var buffer = new RequestLogBuffer(requestId, maxEvents, maxBytes, globalBytes, globalMaxBytes);
+    return ACTIVE.putIfAbsent(requestId, buffer) == null ? buffer : null;
+  }
+
+  /** Cheap check used to skip all per-event work when no request is being buffered. */
+  static boolean hasActiveBuffers() {
+    return !ACTIVE.isEmpty();
+  }
+
+  /** Returns the buffer of the request the current thread is working on, if any. */
+  static RequestLogBuffer forCurrentRequest() {
+    String requestId = MDC.get(RequestIdFilter.REQUEST_ID_MDC_KEY);
+    return requestId == null ? null : ACTIVE.get(requestId);
+  }
+
+  /** Buffers an event. Caller data is not captured, since walking the stack is too costly here. */
+  void add(Logger eventLogger, Level level, String format, Object[] params, Throwable throwable) {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      // Don't render events which would be dropped anyway.
+      if (events.size() >= maxEvents) {
+        droppedEvents++;
+        return;
+      }
+    }
+    FormattingTuple formatted = MessageFormatter.arrayFormat(format, params);
+    String message = formatted.getMessage() == null ? "" : formatted.getMessage();
+    Throwable cause = throwable != null ? throwable : formatted.getThrowable();
+    Map<String, Object> structuredArguments = renderStructuredArguments(params);
+    long size =
+        EVENT_OVERHEAD_BYTES
+            + 2L * message.length()
+            + (structuredArguments == null ? 0 : 2L * renderedLength(structuredArguments))
+            + (cause == null ? 0 : THROWABLE_OVERHEAD_BYTES);
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      if (events.size() >= maxEvents || bytes + size > maxBytes) {
+        droppedEvents++;
+        return;
+      }
+      if (globalBytes.addAndGet(size) > globalMaxBytes) {
+        globalBytes.addAndGet(-size);
+        droppedEvents++;
+        return;
+      }
+      bytes += size;
+    }
+    // The arguments are set when the event is written out, see flush.
+    var event = new LoggingEvent(FQCN, eventLogger, level, MESSAGE_FORMAT, cause, null);
+    event.setCallerData(NO_CALLER_DATA);
+    // Snapshot the thread-dependent state now, since the event is rendered later.
+    event.getThreadName();
+    event.getMDCPropertyMap();
+    var bufferedEvent =
+        new BufferedEvent(eventLogger, event, message, structuredArguments, Context.current());
+    synchronized (this) {
+      // If the request completed in the meantime, close() already released our reservation.
+      if (!closed) {
+        events.add(bufferedEvent);
+      }
+    }
+  }
+
+  /**
+   * Merges the JSON-like arguments which {@link GoogleJsonLayout} splats onto its output into one
+   * map, or returns null if there are none. Later arguments override earlier ones, as in the
+   * layout. Object and array values are serialized to JSON and kept as {@link RawValue}s, which the
+   * layout writes out verbatim; scalar values are kept as plain Java values.
+   */
+  private static Map<String, Object> renderStructuredArguments(Object[] params) {
+    if (params == null) {
+      return null;
+    }
+    ObjectNode merged = null;
+    try {
+      for (Object param : params) {
+        JsonNode node = toJsonNode(param);
+        if (node != null && node.isObject()) {
+          if (merged == null) {
+            merged = LoggingUtils.OBJECT_MAPPER.createObjectNode();
+          }
+          merged.setAll((ObjectNode) node);
+        }
+      }
+      if (merged == null) {
+        return null;
+      }
+      Map<String, Object> rendered = new LinkedHashMap<>();
+      for (Iterator<Map.Entry<String, JsonNode>> it = merged.fields(); it.hasNext(); ) {
+        Map.Entry<String, JsonNode> field = it.next();
+        JsonNode value = field.getValue();
+        rendered.put(
+            field.getKey(),
+            value.isContainerNode()
+                ? new RawValue(LoggingUtils.OBJECT_MAPPER.writeValueAsString(value))
+                : LoggingUtils.OBJECT_MAPPER.treeToValue(value, Object.class));
+      }
+      return rendered;
+    } catch (Exception e) {
+      // Keep the message; the layout would fail to serialize these arguments too.
+      logger.warn("Unable to render the structured arguments of a buffered event", e);
+      return null;
+    }
+  }
+
+  // The number of characters of the rendered keys and values, for the memory caps.
+  private static long renderedLength(Map<String, Object> structuredArguments) {
+    long length = 0;
+    for (Map.Entry<String, Object> field : structuredArguments.entrySet()) {
+      Object value = field.getValue();
+      length +=
+          field.getKey().length()
+              + (value instanceof RawValue raw
+                  ? raw.rawValue().toString().length()
+                  : String.valueOf(value).length());
+    }
+    return length;
+  }
+
+  private static JsonNode toJsonNode(Object param) throws Exception {
+    if (param instanceof StructuredLogFields fields) {
+      ObjectNode node = LoggingUtils.OBJECT_MAPPER.createObjectNode();
+      for (int i = 0; i < fields.size(); i++) {
+        node.set(fields.keyAt(i), LoggingUtils.OBJECT_MAPPER.valueToTree(fields.valueAt(i)));
+      }
+      return node;
+    }
+    if (param instanceof Map || param instanceof JsonNode) {
+      return LoggingUtils.OBJECT_MAPPER.valueToTree(param);
+    }
+    if (param instanceof JsonObject jsonObject) {
+      return LoggingUtils.OBJECT_MAPPER.readTree(jsonObject.toString());
+    }
+    return null;
+  }
+
+  /** Stops buffering and writes out all buffered events, bypassing the configured log levels. */
+  void flush(String reason) {
+    List<BufferedEvent> toFlush = close();
+    logger.info(
+        "Writing {} buffered debug events for request {} ({}); {} events were dropped",
+        toFlush.size(),
+        requestId,
+        reason,
+        droppedEvents);
+    for (BufferedEvent bufferedEvent : toFlush) {
+      // Restore the tracing context so the layout can correlate the event with its span.
+      try (Scope ignored = bufferedEvent.context().makeCurrent()) {
+        bufferedEvent.logger().callAppenders(bufferedEvent.toLoggingEvent());
+      }
+    }
+  }
+
+  /** Stops buffering and drops all buffered events. */
+  void discard() {
+    close();
+  }
+
+  private List<BufferedEvent> close() {
+    ACTIVE.remove(requestId, this);
+    synchronized (this) {
+      closed = true;
+      globalBytes.addAndGet(-bytes);
+      bytes = 0;
+      List<BufferedEvent> buffered = new ArrayList<>(events);
+      events.clear();
+      return buffered;
+    }
+  }
+
+  private record BufferedEvent(
+      Logger logger,
+      LoggingEvent event,
+      String message,
+      Map<String, Object> structuredArguments,
+      Context context) {
+    /** Completes the event with its rendered message and structured arguments. */
+    private LoggingEvent toLoggingEvent() {
+      event.setArgumentArray(
+          structuredArguments == null
+              ? new Object[] {message}
+              : new Object[] {message, structuredArguments});
+      return event;
+    }
+  }
+}
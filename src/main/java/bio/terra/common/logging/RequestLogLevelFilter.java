@@ -0,0 +1,92 @@
+package bio.terra.common.logging;
+
+import ch.qos.logback.classic.Level;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+/**
+ * A Servlet filter that lets a caller raise the log verbosity for a single request, by sending the
+ * desired level in the {@value #LOG_LEVEL_HEADER} header along with the shared secret configured
+ * in {@link LoggingProperties#getRequestLogLevelToken()} in the {@value #LOG_LEVEL_TOKEN_HEADER}
+ * header. The level only applies to events logged on the thread serving the request, see {@link
+ * RequestLogLevelTurboFilter}.
+ *
+ * <p>Requests with a missing or wrong token are served normally; the header is ignored.
+ */
+class RequestLogLevelFilter implements Filter {
+  private static final Logger logger = LoggerFactory.getLogger(RequestLogLevelFilter.class);
+
+  public static final String LOG_LEVEL_HEADER = "X-Terra-Log-Level";
+  public static final String LOG_LEVEL_TOKEN_HEADER = "X-Terra-Log-Level-Token";
+
+  private final byte[] token;
+
+  RequestLogLevelFilter(LoggingProperties properties) {
+    String configuredToken = properties.getRequestLogLevelToken();
+    if (StringUtils.hasText(configuredToken)) {
+      token = configuredToken.getBytes(StandardCharsets.UTF_8);
+    } else {
+      logger.warn(
+          "Per-request log levels are enabled, but no {}.request-log-level-token is set; "
+              + "{} headers will be ignored",
+          LoggingProperties.PREFIX,
+          LOG_LEVEL_HEADER);
+      token = null;
+    }
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    Level level = requestedLevel(request);
+    if (level == null) {
+      chain.doFilter(request, response);
+      return;
+    }
+    RequestLogLevelTurboFilter.setForCurrentThread(level);
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      RequestLogLevelTurboFilter.clearForCurrentThread();
+    }
+  }
+
+  private Level requestedLevel(ServletRequest request) {
+    if (token == null || !(request instanceof HttpServletRequest httpRequest)) {
+      return null;
+    }
+    String levelHeader = httpRequest.getHeader(LOG_LEVEL_HEADER);
+    if (levelHeader == null) {
+      return null;
+    }
+    String tokenHeader = httpRequest.getHeader(LOG_LEVEL_TOKEN_HEADER);
+    // Compare in constant time, so the token can't be guessed from response latencies.
+    if (tokenHeader == null
+        || !MessageDigest.isEqual(token, tokenHeader.getBytes(StandardCharsets.UTF_8))) {
+      logger.warn("Ignoring {} header with a missing or invalid token", LOG_LEVEL_HEADER);
+      return null;
+    }
+    Level level = Level.toLevel(levelHeader, null);
+    if (level == null) {
+      logger.warn("Ignoring {} header with unknown level {}", LOG_LEVEL_HEADER, levelHeader);
+    }
+    return level;
+  }
+
+  @Override
+  public void init(FilterConfig filterConfig) throws ServletException {}
+
+  @Override
+  public void destroy() {}
+}
@@ -0,0 +1,56 @@
+package bio.terra.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Marker;
+
+/**
+ * A Logback {@link TurboFilter} which lowers the effective log level for the thread serving a
+ * single request, as requested by {@link RequestLogLevelFilter}. It never suppresses events which
+ * would be logged anyway.
+ *
+ * <p>On the normal path, where no request has asked for a different level, the cost of this filter
+ * is a single volatile read per logging call.
+ */
+class RequestLogLevelTurboFilter extends TurboFilter {
+  static final String NAME = "terra-request-log-level";
+
+  // Number of threads which currently have a level override, so the common case can skip the
+  // thread-local lookup entirely.
+  private static final AtomicInteger ACTIVE_OVERRIDES = new AtomicInteger();
+  private static final ThreadLocal<Level> OVERRIDE = new ThreadLocal<>();
+
+  RequestLogLevelTurboFilter() {
+    setName(NAME);
+  }
+
+  /** Logs all events at or above the given level on the current thread, until cleared. */
+  static void setForCurrentThread(Level level) {
+    if (OVERRIDE.get() == null) {
+      ACTIVE_OVERRIDES.incrementAndGet();
+    }
+    OVERRIDE.set(level);
+  }
+
+  static void clearForCurrentThread() {
+    if (OVERRIDE.get() != null) {
+      OVERRIDE.remove();
+      ACTIVE_OVERRIDES.decrementAndGet();
+    }
+  }
+
+  @Override
+  public FilterReply decide(
+      Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+    if (ACTIVE_OVERRIDES.get() == 0) {
+      return FilterReply.NEUTRAL;
+    }
+    Level override = OVERRIDE.get();
+    return override != null && level.isGreaterOrEqual(override)
+        ? FilterReply.ACCEPT
+        : FilterReply.NEUTRAL;
+  }
+}
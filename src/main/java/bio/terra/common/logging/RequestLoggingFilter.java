@@ -3,9 +3,10 @@ package bio.terra.common.logging;
 import static org.springframework.http.HttpHeaders.REFERER;
 import static org.springframework.http.HttpHeaders.USER_AGENT;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import bio.terra.common.jfr.HttpRequestEvent;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.logging.v2.model.HttpRequest;
+import io.opentelemetry.api.trace.Span;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.FilterConfig;
@@ -37,6 +38,8 @@ import org.springframework.web.util.ContentCachingResponseWrapper;
  * <p>The complete request and response details are logged at DEBUG level, while a short summary
  * message is logged at INFO level.
  *
+ * <p>Each request is also recorded as an {@link HttpRequestEvent} for JDK Flight Recorder.
+ *
  * <p>When the response is about to be returned, this class collects various request-related
  * metadata supported by the Cloud Logging API (see
  * https://cloud.google.com/logging/docs/reference/v2/rest/v2/LogEntry#HttpRequest). This data is
@@ -52,10 +55,12 @@ class RequestLoggingFilter implements Filter {
   public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
       throws IOException, ServletException {
 
-    if (req instanceof HttpServletRequest) {
+    if (req instanceof HttpServletRequest && log.isDebugEnabled()) {
       debugLogRequest((HttpServletRequest) req);
     }
 
+    var event = new HttpRequestEvent();
+    event.begin();
     Instant start = Instant.now();
     chain.doFilter(req, res);
     Duration latency = Duration.between(start, Instant.now());
@@ -75,12 +80,6 @@ class RequestLoggingFilter implements Filter {
       responseSize = ((ContentCachingResponseWrapper) response).getContentAsByteArray().length;
     }
 
-    Map<String, Object> logPayload = new HashMap<>();
-    logPayload.put(
-        "httpRequest",
-        getGoogleHttpRequestObject(request, response, latency, requestSize, responseSize));
-    logPayload.put("requestHeaders", getRequestHeaders(request));
-
     String requestPath;
     try {
       URI uri = new URI(request.getRequestURI());
@@ -89,15 +88,31 @@ class RequestLoggingFilter implements Filter {
       log.error("Error parsing request path. Logging the full URI instead.", e);
       requestPath = request.getRequestURI();
     }
-    // Log the message, and include the supplementary JSON as an additional arg.
+    if (event.shouldCommit()) {
+      event.method = request.getMethod();
+      event.path = requestPath;
+      event.status = response.getStatus();
+      event.requestSize = requestSize;
+      event.responseSize = responseSize;
+      event.setSpan(Span.current());
+      event.commit();
+    }
+    // Log the message, and include the supplementary JSON as structured fields.
     // If GoogleJsonLayout has been loaded, it will merge the JSON into the structured log output
     // for ingestion by Cloud Logging. If the default logback layout is being used, the JSON
-    // argument will be ignored.
+    // fields will be ignored.
     String message =
         String.format("%s %s %s", request.getMethod(), requestPath, response.getStatus());
-    log.info(message, logPayload);
-
-    debugLogResponse(response);
+    StructuredLog.info(log)
+        .field(
+            "httpRequest",
+            getGoogleHttpRequestObject(request, response, latency, requestSize, responseSize))
+        .field("requestHeaders", getRequestHeaders(request))
+        .log(message);
+
+    if (log.isDebugEnabled()) {
+      debugLogResponse(response);
+    }
   }
 
   @Override
@@ -138,7 +153,7 @@ class RequestLoggingFilter implements Filter {
 
     log.debug(
         "REQUEST: \n{}",
-        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(map));
+        LoggingUtils.OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(map));
   }
 
   /** Logs various details about the response at DEBUG severity. */
@@ -161,7 +176,7 @@ class RequestLoggingFilter implements Filter {
     }
     log.debug(
         "RESPONSE: \n{}",
-        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(map));
+        LoggingUtils.OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(map));
   }
 
   /**
@@ -0,0 +1,122 @@
+package bio.terra.common.logging;
+
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+/**
+ * A fluent builder for structured log events, which avoids building a temporary Map per call.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ *   StructuredLog.info(log).field("flightId", flightId).field("attempt", 3).log("Retrying flight");
+ *
+ *   // Results in an output log of the form:
+ *   {... "message": "Retrying flight", "flightId": "...", "attempt": 3, ...}
+ * </pre>
+ *
+ * <p>If the requested level is disabled for the logger, a shared no-op instance is returned and
+ * nothing is allocated. Otherwise the fields are collected into a container owned by the calling
+ * thread, which {@link GoogleJsonLayout} reads directly when rendering the event. The container is
+ * recycled as soon as {@code log} returns; this is safe with the synchronous console appender
+ * installed by {@link LoggingUtils#initializeLogging}, but this API should not be used with an
+ * asynchronous appender.
+ *
+ * <p>A builder must not be shared between threads or kept around: always finish the chain with one
+ * of the {@code log} methods.
+ */
+public final class StructuredLog {
+  private static final String MESSAGE_FORMAT = "{}";
+  private static final StructuredLog DISABLED = new StructuredLog();
+  private static final ThreadLocal<StructuredLog> POOL =
+      ThreadLocal.withInitial(StructuredLog::new);
+
+  private final StructuredLogFields fields = new StructuredLogFields();
+  private Logger logger;
+  private Level level;
+  private boolean inUse;
+
+  private StructuredLog() {}
+
+  public static StructuredLog trace(Logger logger) {
+    return logger.isTraceEnabled() ? acquire(logger, Level.TRACE) : DISABLED;
+  }
+
+  public static StructuredLog debug(Logger logger) {
+    return logger.isDebugEnabled() ? acquire(logger, Level.DEBUG) : DISABLED;
+  }
+
+  public static StructuredLog info(Logger logger) {
+    return logger.isInfoEnabled() ? acquire(logger, Level.INFO) : DISABLED;
+  }
+
+  public static StructuredLog warn(Logger logger) {
+    return logger.isWarnEnabled() ? acquire(logger, Level.WARN) : DISABLED;
+  }
+
+  public static StructuredLog error(Logger logger) {
+    return logger.isErrorEnabled() ? acquire(logger, Level.ERROR) : DISABLED;
+  }
+
+  private static StructuredLog acquire(Logger logger, Level level) {
+    StructuredLog structuredLog = POOL.get();
+    if (structuredLog.inUse) {
+      // Re-entrant use on this thread, e.g. a field value whose serialization itself logs. Fall
+      // back to a fresh instance rather than clobbering the event currently being written.
+      structuredLog = new StructuredLog();
+    }
+    structuredLog.inUse = true;
+    structuredLog.logger = logger;
+    structuredLog.level = level;
+    return structuredLog;
+  }
+
+  /**
+   * Adds a key-value pair to the JSON output of this event. The value may be any POJO that can be
+   * serialized by Jackson. A 'labels' key is treated like any other structured argument, see
+   * {@link GoogleJsonLayout}.
+   */
+  public StructuredLog field(String key, @Nullable Object value) {
+    if (logger != null) {
+      fields.add(key, value);
+    }
+    return this;
+  }
+
+  /** Marks this event as one which should trigger log-based alerting, see {@link LoggingUtils}. */
+  public StructuredLog alert() {
+    return field(LoggingUtils.ALERT_KEY, true);
+  }
+
+  /**
+   * Emits the event with the given message. The message is logged as is, even if it contains
+   * {@code {}}; the fields are carried in the JSON payload rather than interpolated into it.
+   */
+  public void log(String message) {
+    log(message, null);
+  }
+
+  /** Emits the event with the given message and a throwable whose stack trace will be logged. */
+  public void log(String message, @Nullable Throwable throwable) {
+    if (logger == null) {
+      return;
+    }
+    // The message is passed as the argument of a "{}" format, so it is never parsed as a format
+    // itself. The fields follow it as an extra argument, which the formatter ignores.
+    try {
+      switch (level) {
+        case TRACE -> logger.trace(MESSAGE_FORMAT, message, fields, throwable);
+        case DEBUG -> logger.debug(MESSAGE_FORMAT, message, fields, throwable);
+        case INFO -> logger.info(MESSAGE_FORMAT, message, fields, throwable);
+        case WARN -> logger.warn(MESSAGE_FORMAT, message, fields, throwable);
+        case ERROR -> logger.error(MESSAGE_FORMAT, message, fields, throwable);
+      }
+    } finally {
+      fields.clear();
+      logger = null;
+      level = null;
+      inUse = false;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package bio.terra.common.logging;
+
+import java.util.Arrays;
+
+/**
+ * A reusable container of key-value pairs collected by {@link StructuredLog}.
+ *
+ * <p>Keys and values are kept in parallel arrays, so adding a field does not allocate a map entry.
+ * The container is passed as-is as an argument of the logging event and {@link GoogleJsonLayout}
+ * reads the fields straight out of it. Instances are owned by a single thread and are cleared and
+ * reused after each logging call.
+ */
+final class StructuredLogFields {
+  private static final int INITIAL_CAPACITY = 8;
+  // Avoid pinning a large array to the thread forever after a single unusually wide event.
+  private static final int MAX_RETAINED_CAPACITY = 64;
+
+  private String[] keys = new String[INITIAL_CAPACITY];
+  private Object[] values = new Object[INITIAL_CAPACITY];
+  private int size;
+
+  void add(String key, Object value) {
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      values = Arrays.copyOf(values, size * 2);
+    }
+    keys[size] = key;
+    values[size] = value;
+    size++;
+  }
+
+  int size() {
+    return size;
+  }
+
+  String keyAt(int index) {
+    return keys[index];
+  }
+
+  Object valueAt(int index) {
+    return values[index];
+  }
+
+  /** Returns the index of the last field with the key, or -1 if there is none. */
+  int lastIndexOf(String key) {
+    for (int i = size - 1; i >= 0; i--) {
+      if (keys[i].equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  void clear() {
+    if (keys.length > MAX_RETAINED_CAPACITY) {
+      keys = new String[INITIAL_CAPACITY];
+      values = new Object[INITIAL_CAPACITY];
+    } else {
+      Arrays.fill(keys, 0, size, null);
+      Arrays.fill(values, 0, size, null);
+    }
+    size = 0;
+  }
+
+  /** Renders the fields for layouts which don't understand structured data, e.g. in local dev. */
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("{");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(keys[i]).append('=').append(values[i]);
+    }
+    return builder.append('}').toString();
+  }
+}
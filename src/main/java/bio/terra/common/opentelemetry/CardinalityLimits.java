@@ -0,0 +1,154 @@
+package bio.terra.common.opentelemetry;
+
+import static bio.terra.common.opentelemetry.MetricNames.METRICS_PREFIX;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.ObservableLongCounter;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the number of distinct attribute sets recorded by each instrument this library registers,
+ * e.g. the Stairway metrics, which are keyed by flight and step class names, and the HTTP metrics,
+ * which are keyed by route. Without a cap a bug, or a dynamically generated class name, can create
+ * an unbounded number of time series and exhaust the exporters' memory.
+ *
+ * <p>Each instrument gets a {@link Limiter}, which lets the first attribute sets through up to the
+ * instrument's limit and replaces any others with {@link #OVERFLOW}, like the SDK does for its own
+ * cardinality limit. Overflowed recordings are counted by instrument and exposed with {@link
+ * #registerInstruments(OpenTelemetry)}.
+ *
+ * <p>The instruments are created by code outside of Spring's control, e.g. {@link
+ * bio.terra.common.stairway.MonitoringHook}, so the limits are shared through {@link #global()} and
+ * configured from {@link CardinalityProperties} once the application context starts.
+ */
+public final class CardinalityLimits {
+  public static final String OVERFLOWS_METER_NAME =
+      METRICS_PREFIX + "/metrics/cardinality_overflows";
+  public static final AttributeKey<String> KEY_INSTRUMENT = AttributeKey.stringKey("instrument");
+
+  /** The attributes recorded in place of new attribute sets once an instrument is at its limit. */
+  public static final Attributes OVERFLOW =
+      Attributes.of(AttributeKey.booleanKey("otel.metric.overflow"), true);
+
+  public static final int DEFAULT_MAX_ATTRIBUTE_SETS = 2000;
+
+  private static final CardinalityLimits GLOBAL = new CardinalityLimits();
+
+  private final ConcurrentMap<String, Limiter> limiters = new ConcurrentHashMap<>();
+  private volatile int maxAttributeSets = DEFAULT_MAX_ATTRIBUTE_SETS;
+  private volatile Map<String, Integer> instrumentLimits = Map.of();
+
+  CardinalityLimits() {}
+
+  /** Returns the limits shared by all of this library's instruments. */
+  public static CardinalityLimits global() {
+    return GLOBAL;
+  }
+
+  /** Returns the limiter for the named instrument, creating it if needed. */
+  public Limiter limiter(String instrumentName) {
+    return limiters.computeIfAbsent(
+        instrumentName, name -> new Limiter(name, maxAttributeSetsFor(name)));
+  }
+
+  /**
+   * Sets the limits of all instruments, including those whose limiters already exist.
+   *
+   * @param maxAttributeSets the limit of instruments not listed below; zero or less means no limit
+   * @param instrumentLimits limits of specific instruments, by instrument name
+   */
+  public void configure(int maxAttributeSets, Map<String, Integer> instrumentLimits) {
+    this.maxAttributeSets = maxAttributeSets;
+    this.instrumentLimits = instrumentLimits == null ? Map.of() : Map.copyOf(instrumentLimits);
+    limiters.values().forEach(limiter -> limiter.setMaxAttributeSets(maxAttributeSetsFor(limiter)));
+  }
+
+  private int maxAttributeSetsFor(Limiter limiter) {
+    return maxAttributeSetsFor(limiter.instrumentName);
+  }
+
+  private int maxAttributeSetsFor(String instrumentName) {
+    return instrumentLimits.getOrDefault(instrumentName, maxAttributeSets);
+  }
+
+  /**
+   * Exposes the number of overflowed recordings as an OpenTelemetry counter, by instrument. Closing
+   * the returned handle unregisters it.
+   */
+  public AutoCloseable registerInstruments(OpenTelemetry openTelemetry) {
+    ObservableLongCounter overflows =
+        openTelemetry
+            .getMeter(CardinalityLimits.class.getName())
+            .counterBuilder(OVERFLOWS_METER_NAME)
+            .setDescription(
+                "Number of recordings whose attributes were replaced because their instrument"
+                    + " reached its cardinality limit")
+            .setUnit("1")
+            .buildWithCallback(
+                measurement ->
+                    limiters
+                        .values()
+                        .forEach(
+                            limiter -> {
+                              long count = limiter.overflows();
+                              if (count > 0) {
+                                measurement.record(count, limiter.attributes);
+                              }
+                            }));
+    return overflows::close;
+  }
+
+  /** Limits the attribute sets of one instrument. */
+  public static final class Limiter {
+    private final String instrumentName;
+    private final Attributes attributes;
+    private final Set<Attributes> seen = ConcurrentHashMap.newKeySet();
+    private final LongAdder overflows = new LongAdder();
+    private volatile int maxAttributeSets;
+    // Set once the limit is reached, so that overflowing recordings don't contend on the lock.
+    private volatile boolean full;
+
+    private Limiter(String instrumentName, int maxAttributeSets) {
+      this.instrumentName = instrumentName;
+      this.attributes = Attributes.of(KEY_INSTRUMENT, instrumentName);
+      this.maxAttributeSets = maxAttributeSets;
+    }
+
+    /**
+     * Returns the attributes to record: the given ones if they were seen before or the instrument
+     * is still below its limit, {@link #OVERFLOW} otherwise. Once let through, an attribute set is
+     * always let through, so measurements that must balance, e.g. of up-down counters, do.
+     */
+    public Attributes limit(Attributes attributes) {
+      if (seen.contains(attributes)) {
+        return attributes;
+      }
+      if (!full) {
+        synchronized (this) {
+          if (maxAttributeSets <= 0 || seen.size() < maxAttributeSets) {
+            seen.add(attributes);
+            return attributes;
+          }
+          full = true;
+        }
+      }
+      overflows.increment();
+      return OVERFLOW;
+    }
+
+    private synchronized void setMaxAttributeSets(int maxAttributeSets) {
+      this.maxAttributeSets = maxAttributeSets;
+      full = maxAttributeSets > 0 && seen.size() >= maxAttributeSets;
+    }
+
+    long overflows() {
+      return overflows.sum();
+    }
+  }
+}
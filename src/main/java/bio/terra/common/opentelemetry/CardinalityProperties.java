@@ -0,0 +1,17 @@
+package bio.terra.common.opentelemetry;
+
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Cardinality limits of the instruments this library registers, see {@link CardinalityLimits}.
+ *
+ * @param maxAttributeSets the maximum number of distinct attribute sets each instrument records;
+ *     zero or less means no limit
+ * @param instrumentLimits limits of specific instruments, by instrument name, e.g. {@code
+ *     terra.common.metrics.cardinality.instrument-limits[http.server.request.duration]=500}
+ */
+@ConfigurationProperties(prefix = "terra.common.metrics.cardinality")
+public record CardinalityProperties(
+    @DefaultValue("2000") int maxAttributeSets, Map<String, Integer> instrumentLimits) {}
@@ -0,0 +1,116 @@
+package bio.terra.common.opentelemetry;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts the items handed to an exporter, by whether they were exported, and times its export
+ * calls.
+ *
+ * <p>Exporters are built before the SDK's meter provider exists, so the counts are kept in {@link
+ * LongAdder}s and exposed with {@link #registerInstruments(OpenTelemetry, String)} once it does.
+ * Exports before then are counted but not timed.
+ */
+public final class ExportMetrics {
+  private static final Logger logger = LoggerFactory.getLogger(ExportMetrics.class);
+
+  public static final AttributeKey<String> KEY_OUTCOME = AttributeKey.stringKey("outcome");
+
+  private static final Attributes EXPORTED = Attributes.of(KEY_OUTCOME, "exported");
+  private static final Attributes FAILED = Attributes.of(KEY_OUTCOME, "failed");
+
+  private final String itemName;
+  private final String countMeterName;
+  private final String latencyMeterName;
+  private final LongAdder exported = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private volatile DoubleHistogram latency;
+
+  /**
+   * @param itemName what is exported, in the plural, e.g. "spans"
+   * @param countMeterName the name of the counter of exported and failed items
+   * @param latencyMeterName the name of the export call latency histogram
+   */
+  public ExportMetrics(String itemName, String countMeterName, String latencyMeterName) {
+    this.itemName = itemName;
+    this.countMeterName = countMeterName;
+    this.latencyMeterName = latencyMeterName;
+  }
+
+  /**
+   * Calls an export of the given number of items, and counts and times it once its result
+   * completes. An export which throws is counted as failed.
+   */
+  public CompletableResultCode export(int items, Supplier<CompletableResultCode> export) {
+    long start = System.nanoTime();
+    CompletableResultCode result;
+    try {
+      result = export.get();
+    } catch (RuntimeException e) {
+      logger.warn("Exporting {} {} failed", items, itemName, e);
+      result = CompletableResultCode.ofFailure();
+    }
+    CompletableResultCode completed = result;
+    result.whenComplete(() -> record(items, completed.isSuccess(), start));
+    return result;
+  }
+
+  /** Counts items which failed without an export call, e.g. because the export ran out of time. */
+  public void failed(int items) {
+    failed.add(items);
+  }
+
+  private void record(int items, boolean success, long startNanos) {
+    (success ? exported : failed).add(items);
+    DoubleHistogram histogram = latency;
+    if (histogram != null) {
+      histogram.record((System.nanoTime() - startNanos) / 1_000_000.0, success ? EXPORTED : FAILED);
+    }
+  }
+
+  public long exported() {
+    return exported.sum();
+  }
+
+  public long failed() {
+    return failed.sum();
+  }
+
+  /**
+   * Exposes the item counts and export latency as OpenTelemetry instruments. Closing the returned
+   * handle unregisters the counter and stops recording export latency.
+   */
+  public AutoCloseable registerInstruments(
+      OpenTelemetry openTelemetry, String instrumentationScopeName) {
+    Meter meter = openTelemetry.getMeter(instrumentationScopeName);
+    var counts =
+        meter
+            .counterBuilder(countMeterName)
+            .setDescription(
+                "Number of " + itemName + " sent to the exporter, by whether they were exported")
+            .setUnit("1")
+            .buildWithCallback(
+                measurement -> {
+                  measurement.record(exported.sum(), EXPORTED);
+                  measurement.record(failed.sum(), FAILED);
+                });
+    latency =
+        meter
+            .histogramBuilder(latencyMeterName)
+            .setDescription("Latency of " + itemName + " export calls")
+            .setUnit("ms")
+            .build();
+    return () -> {
+      latency = null;
+      counts.close();
+    };
+  }
+}
@@ -0,0 +1,35 @@
+package bio.terra.common.opentelemetry;
+
+import io.opentelemetry.sdk.metrics.Aggregation;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the latency histograms of Stairway flights and steps and of HTTP requests.
+ *
+ * <p>By default these use fixed bucket boundaries. In exponential mode they use OpenTelemetry
+ * base-2 exponential histograms instead, whose buckets adjust to the values recorded: relative
+ * error is bounded by the scale across the whole range, and attribute sets that only see a narrow
+ * range of values only hold buckets for that range. Prometheus serves these as native histograms,
+ * which need a Prometheus server that scrapes them; Cloud Monitoring receives them converted to
+ * explicit buckets.
+ *
+ * @param exponential whether latency histograms use base-2 exponential buckets
+ * @param maxScale the maximum scale of exponential histograms, from -10 to 20; each bucket is at
+ *     most {@code 2^(2^-maxScale)} times wider than the previous, and the scale is lowered as
+ *     needed to fit the values recorded in {@code maxBuckets}
+ * @param maxBuckets the maximum number of positive buckets of exponential histograms
+ */
+@ConfigurationProperties(prefix = "terra.common.metrics.histograms")
+public record HistogramProperties(
+    boolean exponential,
+    @DefaultValue("20") int maxScale,
+    @DefaultValue("160") int maxBuckets) {
+
+  /** Returns the aggregation to use for a latency histogram with the given explicit buckets. */
+  public Aggregation latencyAggregation(Aggregation explicitBuckets) {
+    return exponential
+        ? Aggregation.base2ExponentialBucketHistogram(maxBuckets, maxScale)
+        : explicitBuckets;
+  }
+}
@@ -0,0 +1,54 @@
+package bio.terra.common.opentelemetry;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor;
+import java.util.function.ToLongBiFunction;
+import java.util.function.ToLongFunction;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Adds the request and response body sizes to HTTP client spans, for {@link HttpClientMetrics}.
+ * The size functions return a negative number when the size is not known up front, e.g. for a
+ * chunked body, in which case the attribute is left out.
+ */
+public class HttpBodySizeExtractor<REQUEST, RESPONSE>
+    implements AttributesExtractor<REQUEST, RESPONSE> {
+  public static final AttributeKey<Long> REQUEST_BODY_SIZE =
+      AttributeKey.longKey("http.request.body.size");
+  public static final AttributeKey<Long> RESPONSE_BODY_SIZE =
+      AttributeKey.longKey("http.response.body.size");
+
+  private final ToLongFunction<REQUEST> requestSize;
+  private final ToLongBiFunction<REQUEST, RESPONSE> responseSize;
+
+  public HttpBodySizeExtractor(
+      ToLongFunction<REQUEST> requestSize, ToLongBiFunction<REQUEST, RESPONSE> responseSize) {
+    this.requestSize = requestSize;
+    this.responseSize = responseSize;
+  }
+
+  @Override
+  public void onStart(AttributesBuilder attributes, Context parentContext, REQUEST request) {
+    putIfKnown(attributes, REQUEST_BODY_SIZE, requestSize.applyAsLong(request));
+  }
+
+  @Override
+  public void onEnd(
+      AttributesBuilder attributes,
+      Context context,
+      REQUEST request,
+      @Nullable RESPONSE response,
+      @Nullable Throwable error) {
+    if (response != null) {
+      putIfKnown(attributes, RESPONSE_BODY_SIZE, responseSize.applyAsLong(request, response));
+    }
+  }
+
+  private static void putIfKnown(AttributesBuilder attributes, AttributeKey<Long> key, long size) {
+    if (size >= 0) {
+      attributes.put(key, size);
+    }
+  }
+}
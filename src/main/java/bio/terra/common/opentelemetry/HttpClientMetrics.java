@@ -0,0 +1,128 @@
+package bio.terra.common.opentelemetry;
+
+import static java.util.logging.Level.FINE;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.DoubleHistogramBuilder;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.LongHistogramBuilder;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.instrumentation.api.instrumenter.InstrumenterBuilder;
+import io.opentelemetry.instrumentation.api.instrumenter.OperationListener;
+import io.opentelemetry.instrumentation.api.instrumenter.OperationMetrics;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * {@link OperationListener} which keeps track of <a
+ * href="https://github.com/open-telemetry/semantic-conventions/blob/v1.23.0/docs/http/http-metrics.md#http-client">HTTP
+ * client metrics</a>; the client-side counterpart of {@link HttpServerMetrics}, with the same
+ * duration buckets.
+ *
+ * <p>Besides the request duration, this records the request and response body sizes, taken from
+ * the {@link HttpBodySizeExtractor#REQUEST_BODY_SIZE} and {@link
+ * HttpBodySizeExtractor#RESPONSE_BODY_SIZE} attributes when the instrumenter has an {@link
+ * HttpBodySizeExtractor} and the size is known.
+ */
+public final class HttpClientMetrics implements OperationListener {
+
+  private static final double NANOS_PER_S = TimeUnit.SECONDS.toNanos(1);
+
+  private static final ContextKey<State> HTTP_CLIENT_METRICS_STATE =
+      ContextKey.named("http-client-metrics-state");
+
+  private static final Logger logger = Logger.getLogger(HttpClientMetrics.class.getName());
+
+  /**
+   * Returns an {@link OperationMetrics} instance which can be used to enable recording of {@link
+   * HttpClientMetrics}.
+   *
+   * @see InstrumenterBuilder#addOperationMetrics(OperationMetrics)
+   */
+  public static OperationMetrics get() {
+    return HttpClientMetrics::new;
+  }
+
+  private final DoubleHistogram duration;
+  private final LongHistogram requestSize;
+  private final LongHistogram responseSize;
+  // the histograms are recorded with the same attributes, so they share one limiter
+  private final CardinalityLimits.Limiter limiter =
+      CardinalityLimits.global().limiter("http.client.request.duration");
+
+  private HttpClientMetrics(Meter meter) {
+    DoubleHistogramBuilder durationBuilder =
+        meter
+            .histogramBuilder("http.client.request.duration")
+            .setUnit("s")
+            .setDescription("Duration of HTTP client requests.")
+            .setExplicitBucketBoundariesAdvice(HttpMetricsAdvice.DURATION_SECONDS_BUCKETS);
+    HttpMetricsAdvice.applyClientDurationAdvice(durationBuilder);
+    duration = durationBuilder.build();
+
+    LongHistogramBuilder requestSizeBuilder =
+        meter
+            .histogramBuilder("http.client.request.body.size")
+            .setUnit("By")
+            .setDescription("Size of HTTP client request bodies.")
+            .ofLongs()
+            .setExplicitBucketBoundariesAdvice(HttpMetricsAdvice.BODY_SIZE_BYTES_BUCKETS);
+    HttpMetricsAdvice.applyClientSizeAdvice(requestSizeBuilder);
+    requestSize = requestSizeBuilder.build();
+
+    LongHistogramBuilder responseSizeBuilder =
+        meter
+            .histogramBuilder("http.client.response.body.size")
+            .setUnit("By")
+            .setDescription("Size of HTTP client response bodies.")
+            .ofLongs()
+            .setExplicitBucketBoundariesAdvice(HttpMetricsAdvice.BODY_SIZE_BYTES_BUCKETS);
+    HttpMetricsAdvice.applyClientSizeAdvice(responseSizeBuilder);
+    responseSize = responseSizeBuilder.build();
+  }
+
+  @Override
+  public Context onStart(Context context, Attributes startAttributes, long startNanos) {
+    return context.with(HTTP_CLIENT_METRICS_STATE, new State(startAttributes, startNanos));
+  }
+
+  @Override
+  public void onEnd(Context context, Attributes endAttributes, long endNanos) {
+    State state = context.get(HTTP_CLIENT_METRICS_STATE);
+    if (state == null) {
+      logger.log(
+          FINE,
+          "No state present when ending context {0}. Cannot record HTTP request metrics.",
+          context);
+      return;
+    }
+
+    Attributes attributes =
+        limiter.limit(HttpMetricsAdvice.clientAttributes(state.startAttributes(), endAttributes));
+
+    duration.record((endNanos - state.startTimeNanos()) / NANOS_PER_S, attributes, context);
+    // the request size is known when the request starts, the response size when it ends
+    recordSize(
+        requestSize,
+        state.startAttributes().get(HttpBodySizeExtractor.REQUEST_BODY_SIZE),
+        attributes,
+        context);
+    recordSize(
+        responseSize,
+        endAttributes.get(HttpBodySizeExtractor.RESPONSE_BODY_SIZE),
+        attributes,
+        context);
+  }
+
+  private static void recordSize(
+      LongHistogram histogram, Long size, Attributes attributes, Context context) {
+    if (size != null) {
+      histogram.record(size, attributes, context);
+    }
+  }
+
+  record State(Attributes startAttributes, long startTimeNanos) {}
+}
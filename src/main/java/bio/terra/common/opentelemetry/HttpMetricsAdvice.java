@@ -8,19 +8,29 @@ package bio.terra.common.opentelemetry;
 import static io.opentelemetry.semconv.ErrorAttributes.ERROR_TYPE;
 import static java.util.Arrays.asList;
 
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
 import io.opentelemetry.api.incubator.metrics.ExtendedDoubleHistogramBuilder;
+import io.opentelemetry.api.incubator.metrics.ExtendedLongHistogramBuilder;
+import io.opentelemetry.api.incubator.metrics.ExtendedLongUpDownCounterBuilder;
 import io.opentelemetry.api.metrics.DoubleHistogramBuilder;
+import io.opentelemetry.api.metrics.LongHistogramBuilder;
+import io.opentelemetry.api.metrics.LongUpDownCounterBuilder;
 import io.opentelemetry.semconv.HttpAttributes;
 import io.opentelemetry.semconv.NetworkAttributes;
 import io.opentelemetry.semconv.ServerAttributes;
 import io.opentelemetry.semconv.UrlAttributes;
 import java.util.List;
 import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
 
 /**
  * copied from <a
  * href="https://github.com/open-telemetry/opentelemetry-java-instrumentation/blob/release/v2.0.x/instrumentation-api/src/main/java/io/opentelemetry/instrumentation/api/semconv/http/HttpMetricsAdvice.java">HttpMetricsAdvice</a>
- * for the only purpose of overriding the DURATION_SECONDS_BUCKETS
+ * for the only purpose of overriding the DURATION_SECONDS_BUCKETS, plus advice for the body size
+ * histograms and active request counts of {@link HttpClientMetrics} and {@link HttpServerMetrics},
+ * and the selection of the advised attributes before recording
  */
 final class HttpMetricsAdvice {
 
@@ -48,36 +58,100 @@ final class HttpMetricsAdvice {
           .boxed()
           .toList();
 
+  // powers of 4 from 64B to 64MiB
+  static final List<Long> BODY_SIZE_BYTES_BUCKETS =
+      LongStream.iterate(64, b -> b <= 64L * 1024 * 1024, b -> b * 4).boxed().toList();
+
+  private static final List<AttributeKey<?>> CLIENT_ATTRIBUTES =
+      asList(
+          HttpAttributes.HTTP_REQUEST_METHOD,
+          HttpAttributes.HTTP_RESPONSE_STATUS_CODE,
+          ERROR_TYPE,
+          NetworkAttributes.NETWORK_PROTOCOL_NAME,
+          NetworkAttributes.NETWORK_PROTOCOL_VERSION,
+          ServerAttributes.SERVER_ADDRESS,
+          ServerAttributes.SERVER_PORT);
+
   static void applyClientDurationAdvice(DoubleHistogramBuilder builder) {
     if (!(builder instanceof ExtendedDoubleHistogramBuilder)) {
       return;
     }
-    ((ExtendedDoubleHistogramBuilder) builder)
-        .setAttributesAdvice(
-            asList(
-                HttpAttributes.HTTP_REQUEST_METHOD,
-                HttpAttributes.HTTP_RESPONSE_STATUS_CODE,
-                ERROR_TYPE,
-                NetworkAttributes.NETWORK_PROTOCOL_NAME,
-                NetworkAttributes.NETWORK_PROTOCOL_VERSION,
-                ServerAttributes.SERVER_ADDRESS,
-                ServerAttributes.SERVER_PORT));
+    ((ExtendedDoubleHistogramBuilder) builder).setAttributesAdvice(CLIENT_ATTRIBUTES);
+  }
+
+  static void applyClientSizeAdvice(LongHistogramBuilder builder) {
+    if (!(builder instanceof ExtendedLongHistogramBuilder)) {
+      return;
+    }
+    ((ExtendedLongHistogramBuilder) builder).setAttributesAdvice(CLIENT_ATTRIBUTES);
   }
 
+  private static final List<AttributeKey<?>> SERVER_ATTRIBUTES =
+      asList(
+          HttpAttributes.HTTP_ROUTE,
+          HttpAttributes.HTTP_REQUEST_METHOD,
+          HttpAttributes.HTTP_RESPONSE_STATUS_CODE,
+          ERROR_TYPE,
+          NetworkAttributes.NETWORK_PROTOCOL_NAME,
+          NetworkAttributes.NETWORK_PROTOCOL_VERSION,
+          UrlAttributes.URL_SCHEME);
+
   static void applyServerDurationAdvice(DoubleHistogramBuilder builder) {
     if (!(builder instanceof ExtendedDoubleHistogramBuilder)) {
       return;
     }
-    ((ExtendedDoubleHistogramBuilder) builder)
-        .setAttributesAdvice(
-            asList(
-                HttpAttributes.HTTP_ROUTE,
-                HttpAttributes.HTTP_REQUEST_METHOD,
-                HttpAttributes.HTTP_RESPONSE_STATUS_CODE,
-                ERROR_TYPE,
-                NetworkAttributes.NETWORK_PROTOCOL_NAME,
-                NetworkAttributes.NETWORK_PROTOCOL_VERSION,
-                UrlAttributes.URL_SCHEME));
+    ((ExtendedDoubleHistogramBuilder) builder).setAttributesAdvice(SERVER_ATTRIBUTES);
+  }
+
+  static void applyServerSizeAdvice(LongHistogramBuilder builder) {
+    if (!(builder instanceof ExtendedLongHistogramBuilder)) {
+      return;
+    }
+    ((ExtendedLongHistogramBuilder) builder).setAttributesAdvice(SERVER_ATTRIBUTES);
+  }
+
+  // the route and status are not known yet when a request starts
+  private static final List<AttributeKey<?>> SERVER_ACTIVE_REQUESTS_ATTRIBUTES =
+      asList(
+          HttpAttributes.HTTP_REQUEST_METHOD,
+          UrlAttributes.URL_SCHEME,
+          ServerAttributes.SERVER_ADDRESS,
+          ServerAttributes.SERVER_PORT);
+
+  static void applyServerActiveRequestsAdvice(LongUpDownCounterBuilder builder) {
+    if (!(builder instanceof ExtendedLongUpDownCounterBuilder)) {
+      return;
+    }
+    ((ExtendedLongUpDownCounterBuilder) builder)
+        .setAttributesAdvice(SERVER_ACTIVE_REQUESTS_ATTRIBUTES);
+  }
+
+  // The advice above is only applied by the SDK after recording. The metrics classes apply it
+  // themselves, so that cardinality limits count the attribute sets that are actually exported.
+
+  static Attributes clientAttributes(Attributes startAttributes, Attributes endAttributes) {
+    return select(CLIENT_ATTRIBUTES, startAttributes, endAttributes);
+  }
+
+  static Attributes serverAttributes(Attributes startAttributes, Attributes endAttributes) {
+    return select(SERVER_ATTRIBUTES, startAttributes, endAttributes);
+  }
+
+  /** Builds the given keys' values, preferring the end attributes like a merge would. */
+  @SuppressWarnings("unchecked")
+  private static Attributes select(
+      List<AttributeKey<?>> keys, Attributes startAttributes, Attributes endAttributes) {
+    AttributesBuilder builder = Attributes.builder();
+    for (AttributeKey<?> key : keys) {
+      Object value = endAttributes.get(key);
+      if (value == null) {
+        value = startAttributes.get(key);
+      }
+      if (value != null) {
+        builder.put((AttributeKey<Object>) key, value);
+      }
+    }
+    return builder.build();
   }
 
   private HttpMetricsAdvice() {}
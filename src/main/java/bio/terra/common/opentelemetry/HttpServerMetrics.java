@@ -12,6 +12,10 @@ import static java.util.logging.Level.FINE;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.metrics.DoubleHistogram;
 import io.opentelemetry.api.metrics.DoubleHistogramBuilder;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.LongHistogramBuilder;
+import io.opentelemetry.api.metrics.LongUpDownCounter;
+import io.opentelemetry.api.metrics.LongUpDownCounterBuilder;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.ContextKey;
@@ -30,6 +34,12 @@ import java.util.logging.Logger;
  * href="https://github.com/open-telemetry/semantic-conventions/blob/v1.23.0/docs/http/http-metrics.md#http-server">HTTP
  * server metrics</a>.
  *
+ * <p>Also records {@code http.server.active_requests}, and the request and response body sizes
+ * reported for the current request with {@link #recordBodySizes}, i.e. by the Terra request
+ * logging filters. The number of attribute sets the histograms record is capped by {@link
+ * CardinalityLimits}; the active request count is recorded with the start attributes, which the
+ * SDK reduces to the advised ones, so it is capped by the SDK's own limit.
+ *
  * @since 2.0.0
  */
 public final class HttpServerMetrics implements OperationListener {
@@ -51,7 +61,28 @@ public final class HttpServerMetrics implements OperationListener {
     return HttpServerMetrics::new;
   }
 
+  /**
+   * Records the body sizes of the server request being handled in the given context, to be
+   * reported when the request ends. Negative sizes are treated as unknown. Does nothing if the
+   * request is not instrumented with {@link HttpServerMetrics}, or if the context is not one the
+   * request's instrumentation started, e.g. because the caller runs outside the OpenTelemetry
+   * server filter.
+   */
+  public static void recordBodySizes(Context context, long requestSize, long responseSize) {
+    State state = context.get(HTTP_SERVER_METRICS_STATE);
+    if (state != null) {
+      state.requestBodySize = requestSize;
+      state.responseBodySize = responseSize;
+    }
+  }
+
   private final DoubleHistogram duration;
+  private final LongUpDownCounter activeRequests;
+  private final LongHistogram requestSize;
+  private final LongHistogram responseSize;
+  // the histograms are recorded with the same attributes, so they share one limiter
+  private final CardinalityLimits.Limiter requestLimiter =
+      CardinalityLimits.global().limiter("http.server.request.duration");
 
   private HttpServerMetrics(Meter meter) {
     DoubleHistogramBuilder stableDurationBuilder =
@@ -62,10 +93,39 @@ public final class HttpServerMetrics implements OperationListener {
             .setExplicitBucketBoundariesAdvice(HttpMetricsAdvice.DURATION_SECONDS_BUCKETS);
     HttpMetricsAdvice.applyServerDurationAdvice(stableDurationBuilder);
     duration = stableDurationBuilder.build();
+
+    LongUpDownCounterBuilder activeRequestsBuilder =
+        meter
+            .upDownCounterBuilder("http.server.active_requests")
+            .setUnit("{request}")
+            .setDescription("Number of active HTTP server requests.");
+    HttpMetricsAdvice.applyServerActiveRequestsAdvice(activeRequestsBuilder);
+    activeRequests = activeRequestsBuilder.build();
+
+    LongHistogramBuilder requestSizeBuilder =
+        meter
+            .histogramBuilder("http.server.request.body.size")
+            .setUnit("By")
+            .setDescription("Size of HTTP server request bodies.")
+            .ofLongs()
+            .setExplicitBucketBoundariesAdvice(HttpMetricsAdvice.BODY_SIZE_BYTES_BUCKETS);
+    HttpMetricsAdvice.applyServerSizeAdvice(requestSizeBuilder);
+    requestSize = requestSizeBuilder.build();
+
+    LongHistogramBuilder responseSizeBuilder =
+        meter
+            .histogramBuilder("http.server.response.body.size")
+            .setUnit("By")
+            .setDescription("Size of HTTP server response bodies.")
+            .ofLongs()
+            .setExplicitBucketBoundariesAdvice(HttpMetricsAdvice.BODY_SIZE_BYTES_BUCKETS);
+    HttpMetricsAdvice.applyServerSizeAdvice(responseSizeBuilder);
+    responseSize = responseSizeBuilder.build();
   }
 
   @Override
   public Context onStart(Context context, Attributes startAttributes, long startNanos) {
+    activeRequests.add(1, startAttributes, context);
     return context.with(HTTP_SERVER_METRICS_STATE, new State(startAttributes, startNanos));
   }
 
@@ -80,10 +140,33 @@ public final class HttpServerMetrics implements OperationListener {
       return;
     }
 
-    Attributes attributes = state.startAttributes().toBuilder().putAll(endAttributes).build();
+    // the active request count must be decremented with the same attributes it was incremented with
+    activeRequests.add(-1, state.startAttributes, context);
 
-    duration.record((endNanos - state.startTimeNanos()) / NANOS_PER_S, attributes, context);
+    // the one attributes build per request; all histograms share its result
+    Attributes attributes =
+        requestLimiter.limit(
+            HttpMetricsAdvice.serverAttributes(state.startAttributes, endAttributes));
+
+    duration.record((endNanos - state.startTimeNanos) / NANOS_PER_S, attributes, context);
+    if (state.requestBodySize >= 0) {
+      requestSize.record(state.requestBodySize, attributes, context);
+    }
+    if (state.responseBodySize >= 0) {
+      responseSize.record(state.responseBodySize, attributes, context);
+    }
   }
 
-  record State(Attributes startAttributes, long startTimeNanos) {}
+  static final class State {
+    private final Attributes startAttributes;
+    private final long startTimeNanos;
+    // set by recordBodySizes while the request is handled
+    private volatile long requestBodySize = -1;
+    private volatile long responseBodySize = -1;
+
+    State(Attributes startAttributes, long startTimeNanos) {
+      this.startAttributes = startAttributes;
+      this.startTimeNanos = startTimeNanos;
+    }
+  }
 }
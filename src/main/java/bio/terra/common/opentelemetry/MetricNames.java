@@ -0,0 +1,9 @@
+package bio.terra.common.opentelemetry;
+
+/** Naming shared by the metric instruments of this library. */
+public final class MetricNames {
+  /** Prefix of the names of all metric instruments defined by this library. */
+  public static final String METRICS_PREFIX = "terra/common-lib";
+
+  private MetricNames() {}
+}
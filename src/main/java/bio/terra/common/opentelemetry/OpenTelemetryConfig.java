@@ -1,31 +1,84 @@
 package bio.terra.common.opentelemetry;
 
-import bio.terra.common.tracing.ExcludingUrlSampler;
+import bio.terra.common.tracing.SamplerMetrics;
+import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.sdk.autoconfigure.spi.AutoConfigurationCustomizerProvider;
+import io.opentelemetry.sdk.metrics.Aggregation;
 import io.opentelemetry.sdk.metrics.InstrumentSelector;
 import io.opentelemetry.sdk.metrics.View;
 import io.opentelemetry.sdk.metrics.export.MetricReader;
 import io.opentelemetry.sdk.trace.SpanProcessor;
-import io.opentelemetry.sdk.trace.samplers.Sampler;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.data.util.Pair;
 
 @Configuration
-@EnableConfigurationProperties(value = {TracingProperties.class})
+@EnableConfigurationProperties(
+    value = {
+      TracingProperties.class,
+      TailSamplingProperties.class,
+      SpanExportProperties.class,
+      HistogramProperties.class,
+      CardinalityProperties.class
+    })
 public class OpenTelemetryConfig {
 
   public static final Set<String> DEFAULT_EXCLUDED_URLS = Set.of("/status", "/version");
 
+  /** Counts sampling decisions; see {@link #samplerMetricsInstruments}. */
+  @Bean
+  public SamplerMetrics samplerMetrics() {
+    return new SamplerMetrics();
+  }
+
+  /**
+   * Exposes the sampling decision counts through OpenTelemetry, until the application context
+   * closes.
+   */
+  @Bean(destroyMethod = "close")
+  public AutoCloseable samplerMetricsInstruments(
+      SamplerMetrics samplerMetrics, ObjectProvider<OpenTelemetry> openTelemetry) {
+    OpenTelemetry available = openTelemetry.getIfAvailable();
+    return available == null ? () -> {} : samplerMetrics.registerInstruments(available);
+  }
+
+  /**
+   * Applies the configured cardinality limits to this library's instruments, and exposes the
+   * number of recordings over the limits through OpenTelemetry until the application context
+   * closes.
+   */
+  @Bean(destroyMethod = "close")
+  public AutoCloseable cardinalityLimitsInstruments(
+      CardinalityProperties cardinalityProperties, ObjectProvider<OpenTelemetry> openTelemetry) {
+    CardinalityLimits limits = CardinalityLimits.global();
+    limits.configure(
+        cardinalityProperties.maxAttributeSets(), cardinalityProperties.instrumentLimits());
+    OpenTelemetry available = openTelemetry.getIfAvailable();
+    return available == null ? () -> {} : limits.registerInstruments(available);
+  }
+
+  /** Builds the tracing sampler, and rebuilds it when the sampling settings change at runtime. */
+  @Bean
+  public TracingSamplerManager tracingSamplerManager(
+      TracingProperties tracingProperties,
+      TailSamplingProperties tailSamplingProperties,
+      SamplerMetrics samplerMetrics,
+      Environment environment) {
+    return new TracingSamplerManager(
+        tracingProperties, samplerMetrics, environment, tailSamplingProperties.enabled());
+  }
+
   /** Customizes the OpenTelemetry SDK sampling and adds all views and span processors. */
   @Bean
   public AutoConfigurationCustomizerProvider otelCustomizer(
-      TracingProperties tracingProperties,
+      TracingSamplerManager tracingSamplerManager,
       ObjectProvider<Pair<InstrumentSelector, View>> views,
       ObjectProvider<MetricReader> metricReaders,
       ObjectProvider<SpanProcessor> spanProcessors) {
@@ -46,14 +99,53 @@ public class OpenTelemetryConfig {
       customizer.addTracerProviderCustomizer(
           (builder, unused) -> {
             spanProcessors.stream().forEach(builder::addSpanProcessor);
-            builder.setSampler(
-                new ExcludingUrlSampler(
-                    Optional.ofNullable(tracingProperties.excludedUrls())
-                        .orElse(DEFAULT_EXCLUDED_URLS),
-                    Sampler.parentBased(
-                        Sampler.traceIdRatioBased(tracingProperties.samplingRatio()))));
+            builder.setSampler(tracingSamplerManager.getSampler());
             return builder;
           });
     };
   }
+
+  /**
+   * Switches the HTTP request duration histograms to exponential buckets when {@link
+   * HistogramProperties#exponential()} is set. Otherwise they keep the bucket boundaries advised by
+   * {@link HttpMetricsAdvice}, so no views are needed.
+   */
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnProperty(name = "terra.common.metrics.histograms.exponential", havingValue = "true")
+  static class ExponentialHistogramViewConfig {
+    @Bean
+    public Pair<InstrumentSelector, View> httpServerDurationView(
+        HistogramProperties histogramProperties) {
+      return exponentialView("http.server.request.duration", histogramProperties);
+    }
+
+    @Bean
+    public Pair<InstrumentSelector, View> httpClientDurationView(
+        HistogramProperties histogramProperties) {
+      return exponentialView("http.client.request.duration", histogramProperties);
+    }
+
+    // Views without an attribute filter keep the attributes advised by the instrument.
+    private static Pair<InstrumentSelector, View> exponentialView(
+        String instrumentName, HistogramProperties histogramProperties) {
+      return Pair.of(
+          InstrumentSelector.builder().setName(instrumentName).build(),
+          View.builder()
+              .setAggregation(
+                  Aggregation.base2ExponentialBucketHistogram(
+                      histogramProperties.maxBuckets(), histogramProperties.maxScale()))
+              .build());
+    }
+  }
+
+  /** Exposes the sampling settings as an actuator endpoint, if the service uses actuator. */
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+  static class TracingSamplerEndpointConfig {
+    @Bean
+    public TracingSamplerEndpoint tracingSamplerEndpoint(
+        TracingSamplerManager tracingSamplerManager) {
+      return new TracingSamplerEndpoint(tracingSamplerManager);
+    }
+  }
 }
@@ -0,0 +1,58 @@
+package bio.terra.common.opentelemetry;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.instrumentation.runtimemetrics.java17.RuntimeMetrics;
+import io.opentelemetry.instrumentation.runtimemetrics.java17.RuntimeMetricsBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Records JVM runtime metrics through the application's OpenTelemetry instance: garbage collection
+ * durations, memory pool usage, thread counts, CPU usage and class loading, using the semantic
+ * convention {@code jvm.*} names, plus {@link VirtualThreadPinningMetrics}. These let latency be
+ * correlated with GC pauses, heap pressure and pinned virtual threads.
+ *
+ * <p>On by default; set {@code terra.common.metrics.runtime.enabled=false} to turn it off, or
+ * {@code terra.common.metrics.runtime.pinning-enabled=false} to keep only the JMX based metrics.
+ * The broader JDK Flight Recorder based metrics of {@link RuntimeMetrics}, e.g. allocation and lock
+ * contention, cost more to collect and are off unless {@code
+ * terra.common.metrics.runtime.jfr-enabled=true}.
+ */
+@Configuration
+@EnableConfigurationProperties(value = {RuntimeMetricsProperties.class})
+@ConditionalOnProperty(
+    name = "terra.common.metrics.runtime.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class RuntimeMetricsConfig {
+
+  /** Starts recording runtime metrics, until the application context closes. */
+  @Bean(destroyMethod = "close")
+  public AutoCloseable runtimeMetrics(
+      RuntimeMetricsProperties runtimeMetricsProperties,
+      ObjectProvider<OpenTelemetry> openTelemetry) {
+    OpenTelemetry available = openTelemetry.getIfAvailable();
+    return available == null ? () -> {} : start(available, runtimeMetricsProperties);
+  }
+
+  static AutoCloseable start(OpenTelemetry openTelemetry, RuntimeMetricsProperties properties) {
+    RuntimeMetricsBuilder builder = RuntimeMetrics.builder(openTelemetry);
+    if (!properties.jfrEnabled()) {
+      builder.disableAllFeatures();
+    }
+    RuntimeMetrics runtimeMetrics = builder.build();
+    if (!properties.pinningEnabled()) {
+      return runtimeMetrics;
+    }
+    AutoCloseable pinning =
+        VirtualThreadPinningMetrics.start(openTelemetry, properties.pinnedThreshold());
+    return () -> {
+      try (pinning) {
+        runtimeMetrics.close();
+      }
+    };
+  }
+}
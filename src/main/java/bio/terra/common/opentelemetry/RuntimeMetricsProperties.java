@@ -0,0 +1,23 @@
+package bio.terra.common.opentelemetry;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * JVM runtime metrics settings, see {@link RuntimeMetricsConfig}.
+ *
+ * @param enabled whether JVM metrics are recorded at all
+ * @param jfrEnabled whether the JDK Flight Recorder based metrics of the OpenTelemetry runtime
+ *     telemetry are recorded: memory allocation, lock contention, context switches, CPU count and
+ *     network I/O
+ * @param pinningEnabled whether virtual thread pinning is recorded, from its own JDK Flight
+ *     Recorder stream
+ * @param pinnedThreshold virtual threads pinned for less than this are not recorded
+ */
+@ConfigurationProperties(prefix = "terra.common.metrics.runtime")
+public record RuntimeMetricsProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("false") boolean jfrEnabled,
+    @DefaultValue("true") boolean pinningEnabled,
+    @DefaultValue("20ms") Duration pinnedThreshold) {}
@@ -0,0 +1,22 @@
+package bio.terra.common.opentelemetry;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the OpenTelemetry SDK's {@code BatchSpanProcessor}, which batches sampled spans for
+ * export. They are applied as the SDK's otel.bsp.* settings, so they hold for every autoconfigured
+ * span exporter. The defaults match the SDK's.
+ *
+ * @param maxQueueSize the maximum number of spans waiting for export; further spans are dropped
+ * @param maxExportBatchSize the maximum number of spans per export call
+ * @param scheduleDelay the longest a span waits before a partial batch is exported
+ * @param exportTimeout how long to wait for each export call
+ */
+@ConfigurationProperties(prefix = "terra.common.tracing.export")
+public record SpanExportProperties(
+    @DefaultValue("2048") int maxQueueSize,
+    @DefaultValue("512") int maxExportBatchSize,
+    @DefaultValue("5s") Duration scheduleDelay,
+    @DefaultValue("30s") Duration exportTimeout) {}
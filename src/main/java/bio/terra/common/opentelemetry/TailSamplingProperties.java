@@ -0,0 +1,25 @@
+package bio.terra.common.opentelemetry;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Tail sampling settings, see {@link bio.terra.common.tracing.TailSamplingSpanProcessor}.
+ *
+ * @param enabled whether traces dropped by the head sampler are recorded for tail sampling
+ * @param decisionWait how long to wait for a trace's local root span before deciding anyway
+ * @param latencyThreshold traces with a span at least this slow are exported
+ * @param baselineRatio the ratio of other traces to export anyway
+ * @param maxBufferedSpans the maximum number of spans held, across all undecided traces and those
+ *     waiting for export
+ * @param maxSpansPerTrace the maximum number of spans held for any one trace
+ */
+@ConfigurationProperties(prefix = "terra.common.tracing.tail-sampling")
+public record TailSamplingProperties(
+    boolean enabled,
+    @DefaultValue("10s") Duration decisionWait,
+    @DefaultValue("2s") Duration latencyThreshold,
+    @DefaultValue("0.001") double baselineRatio,
+    @DefaultValue("10000") int maxBufferedSpans,
+    @DefaultValue("500") int maxSpansPerTrace) {}
@@ -1,7 +1,40 @@
 package bio.terra.common.opentelemetry;
 
 import java.util.Collection;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.ConstructorBinding;
 
+/**
+ * Tracing settings.
+ *
+ * @param samplingRatio the ratio of root traces to sample, unless a route below matches
+ * @param excludedUrls urls which are never traced; see {@link
+ *     bio.terra.common.tracing.UrlPatternMatcher} for the supported patterns
+ * @param routeSamplingRatios sampling ratios for specific routes, checked in order
+ * @param maxTracesPerSecond the maximum number of root traces sampled per second across all
+ *     routes; zero or less means no limit
+ */
 @ConfigurationProperties(prefix = "terra.common.tracing")
-public record TracingProperties(double samplingRatio, Collection<String> excludedUrls) {}
+public record TracingProperties(
+    double samplingRatio,
+    Collection<String> excludedUrls,
+    List<RouteSamplingRatio> routeSamplingRatios,
+    double maxTracesPerSecond) {
+
+  // Bound from configuration through this constructor rather than the one below.
+  @ConstructorBinding
+  public TracingProperties {}
+
+  /** Settings without route sampling ratios or a traces-per-second cap, as in earlier versions. */
+  public TracingProperties(double samplingRatio, Collection<String> excludedUrls) {
+    this(samplingRatio, excludedUrls, List.of(), 0);
+  }
+
+  /**
+   * A sampling ratio for the spans whose url path, http route or name match a pattern, e.g.
+   * {@code terra.common.tracing.route-sampling-ratios[0].pattern=/api/workspaces/**} and {@code
+   * terra.common.tracing.route-sampling-ratios[0].ratio=0.01}.
+   */
+  public record RouteSamplingRatio(String pattern, double ratio) {}
+}
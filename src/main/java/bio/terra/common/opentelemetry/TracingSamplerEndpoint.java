@@ -0,0 +1,66 @@
+package bio.terra.common.opentelemetry;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * Actuator endpoint to inspect and change trace sampling at runtime, available when the service
+ * includes Spring Boot Actuator and exposes the {@code tracingsampler} endpoint.
+ *
+ * <ul>
+ *   <li>{@code GET} returns the current settings.
+ *   <li>{@code POST} overrides the sampling ratio, excluded urls or traces-per-second cap; omitted
+ *       ones are kept. Route ratios can only be changed through the environment.
+ *   <li>{@code POST} with {@code "reload": true} discards overrides and re-reads the settings from
+ *       the environment; any other settings in the same request are ignored.
+ * </ul>
+ *
+ * <p>Nothing re-reads the settings when the environment itself changes, since this library doesn't
+ * depend on Spring Cloud's refresh events: after changing the environment's property sources, ask
+ * for a reload through this endpoint or call {@link TracingSamplerManager#reload()}.
+ */
+@Endpoint(id = "tracingsampler")
+public class TracingSamplerEndpoint {
+  private final TracingSamplerManager manager;
+
+  public TracingSamplerEndpoint(TracingSamplerManager manager) {
+    this.manager = manager;
+  }
+
+  @ReadOperation
+  public Map<String, Object> current() {
+    TracingProperties current = manager.getCurrent();
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("samplingRatio", current.samplingRatio());
+    result.put("excludedUrls", current.excludedUrls());
+    result.put("routeSamplingRatios", current.routeSamplingRatios());
+    result.put("maxTracesPerSecond", current.maxTracesPerSecond());
+    result.put("description", manager.getSampler().getDescription());
+    return result;
+  }
+
+  @WriteOperation
+  public Map<String, Object> update(
+      @Nullable Double samplingRatio,
+      @Nullable Collection<String> excludedUrls,
+      @Nullable Double maxTracesPerSecond,
+      @Nullable Boolean reload) {
+    if (Boolean.TRUE.equals(reload)) {
+      manager.reload();
+      return current();
+    }
+    TracingProperties current = manager.getCurrent();
+    manager.update(
+        new TracingProperties(
+            samplingRatio != null ? samplingRatio : current.samplingRatio(),
+            excludedUrls != null ? excludedUrls : current.excludedUrls(),
+            current.routeSamplingRatios(),
+            maxTracesPerSecond != null ? maxTracesPerSecond : current.maxTracesPerSecond()));
+    return current();
+  }
+}
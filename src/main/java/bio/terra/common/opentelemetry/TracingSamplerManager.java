@@ -0,0 +1,106 @@
+package bio.terra.common.opentelemetry;
+
+import bio.terra.common.tracing.ExcludingUrlSampler;
+import bio.terra.common.tracing.ReconfigurableSampler;
+import bio.terra.common.tracing.RecordUnsampledSampler;
+import bio.terra.common.tracing.RouteSampler;
+import bio.terra.common.tracing.SamplerMetrics;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+/**
+ * Owns the tracing sampler and rebuilds it when the sampling settings change at runtime.
+ *
+ * <p>Settings can either be replaced outright with {@link #update(TracingProperties)}, or re-read
+ * from the Spring {@link Environment} with {@link #reload()} after its property sources have
+ * changed. The sampler installed in the tracer provider is a {@link ReconfigurableSampler}, so the
+ * new settings apply to all spans started afterwards without rebuilding the SDK.
+ */
+public class TracingSamplerManager {
+  private static final Logger logger = LoggerFactory.getLogger(TracingSamplerManager.class);
+  private static final String PREFIX = "terra.common.tracing";
+
+  private final Environment environment;
+  private final SamplerMetrics samplerMetrics;
+  private final boolean recordUnsampled;
+  private final ReconfigurableSampler sampler;
+  private volatile TracingProperties current;
+
+  public TracingSamplerManager(
+      TracingProperties tracingProperties, SamplerMetrics samplerMetrics, Environment environment) {
+    this(tracingProperties, samplerMetrics, environment, false);
+  }
+
+  /**
+   * @param recordUnsampled whether to keep recording the spans the sampler drops, for {@link
+   *     bio.terra.common.tracing.TailSamplingSpanProcessor}
+   */
+  public TracingSamplerManager(
+      TracingProperties tracingProperties,
+      SamplerMetrics samplerMetrics,
+      Environment environment,
+      boolean recordUnsampled) {
+    this.environment = environment;
+    this.samplerMetrics = samplerMetrics;
+    this.recordUnsampled = recordUnsampled;
+    this.current = tracingProperties;
+    this.sampler = new ReconfigurableSampler(buildSampler(tracingProperties));
+  }
+
+  /** The sampler to install in the tracer provider. */
+  public Sampler getSampler() {
+    return sampler;
+  }
+
+  /** The settings the sampler currently applies. */
+  public TracingProperties getCurrent() {
+    return current;
+  }
+
+  /**
+   * Replaces the sampling settings. The new sampler is built before it is swapped in, so invalid
+   * settings (e.g. a ratio outside [0, 1]) throw and leave the current sampler in place.
+   */
+  public synchronized void update(TracingProperties tracingProperties) {
+    Sampler updated = buildSampler(tracingProperties);
+    sampler.setDelegate(updated);
+    current = tracingProperties;
+    logger.info("Tracing sampler is now {}", updated.getDescription());
+  }
+
+  /** Re-reads the sampling settings from the environment and applies them. */
+  public synchronized void reload() {
+    update(
+        Binder.get(environment)
+            .bind(PREFIX, TracingProperties.class)
+            .orElseGet(() -> new TracingProperties(0, null, null, 0)));
+  }
+
+  private Sampler buildSampler(TracingProperties tracingProperties) {
+    List<TracingProperties.RouteSamplingRatio> routes =
+        Optional.ofNullable(tracingProperties.routeSamplingRatios()).orElse(List.of());
+    var rootSampler =
+        new RouteSampler(
+            routes.stream()
+                .map(route -> new RouteSampler.Route(route.pattern(), route.ratio()))
+                .toList(),
+            tracingProperties.samplingRatio(),
+            tracingProperties.maxTracesPerSecond(),
+            samplerMetrics);
+    Sampler headSampler = Sampler.parentBased(rootSampler);
+    if (recordUnsampled) {
+      // Excluded urls are still dropped outright, since we never want to trace them.
+      headSampler = new RecordUnsampledSampler(headSampler);
+    }
+    return new ExcludingUrlSampler(
+        Optional.ofNullable(tracingProperties.excludedUrls())
+            .orElse(OpenTelemetryConfig.DEFAULT_EXCLUDED_URLS),
+        headSampler,
+        samplerMetrics);
+  }
+}
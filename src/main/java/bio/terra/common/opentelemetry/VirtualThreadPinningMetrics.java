@@ -0,0 +1,57 @@
+package bio.terra.common.opentelemetry;
+
+import static bio.terra.common.opentelemetry.MetricNames.METRICS_PREFIX;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import java.time.Duration;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Records how long virtual threads stay pinned to their carrier thread, e.g. while blocking inside
+ * a {@code synchronized} block, from the JDK Flight Recorder's {@code jdk.VirtualThreadPinned}
+ * events. Pinned virtual threads hold on to a carrier thread, so enough of them can stall every
+ * other virtual thread in the process.
+ *
+ * <p>The event only exists on JDK 21 and later; on earlier JDKs nothing is recorded.
+ */
+final class VirtualThreadPinningMetrics {
+  static final String PINNED_METER_NAME = METRICS_PREFIX + "/jvm/virtual_thread/pinned";
+  static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private VirtualThreadPinningMetrics() {}
+
+  /** Returns whether this JVM can report pinned virtual threads. */
+  static boolean isAvailable() {
+    return FlightRecorder.isAvailable()
+        && FlightRecorder.getFlightRecorder().getEventTypes().stream()
+            .map(EventType::getName)
+            .anyMatch(PINNED_EVENT::equals);
+  }
+
+  /**
+   * Starts recording pinned virtual threads which stay pinned for at least the threshold, if this
+   * JVM can report them. Closing the returned handle stops the recording.
+   */
+  static AutoCloseable start(OpenTelemetry openTelemetry, Duration threshold) {
+    if (!isAvailable()) {
+      return () -> {};
+    }
+    DoubleHistogram pinned =
+        openTelemetry
+            .getMeter(VirtualThreadPinningMetrics.class.getName())
+            .histogramBuilder(PINNED_METER_NAME)
+            .setDescription("Duration that virtual threads were pinned to their carrier thread")
+            .setUnit("ms")
+            .build();
+    var stream = new RecordingStream();
+    // Stack traces would tell where, but cost more than the metric is worth.
+    stream.enable(PINNED_EVENT).withThreshold(threshold).withoutStackTrace();
+    stream.onEvent(
+        PINNED_EVENT, event -> pinned.record(event.getDuration().toNanos() / 1_000_000.0));
+    stream.startAsync();
+    return stream::close;
+  }
+}
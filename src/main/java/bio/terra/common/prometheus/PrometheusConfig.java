@@ -1,9 +1,9 @@
 package bio.terra.common.prometheus;
 
-import io.opentelemetry.exporter.prometheus.PrometheusHttpServer;
-import io.opentelemetry.sdk.metrics.export.MetricReader;
+import io.opentelemetry.api.OpenTelemetry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -16,14 +16,28 @@ import org.springframework.context.annotation.Configuration;
 public class PrometheusConfig {
   private final Logger logger = LoggerFactory.getLogger(PrometheusConfig.class);
 
-  /** Creates OpenTelemetry MetricReader that exports metrics to Prometheus HTTP server */
+  /**
+   * Creates OpenTelemetry MetricReader that exports metrics to Prometheus HTTP server. Scrapes
+   * which accept the OpenMetrics format, i.e. {@code Accept: application/openmetrics-text}, also
+   * get the exemplars linking histogram buckets to traces. See {@link PrometheusProperties} for the
+   * server's threads, compression and snapshot caching.
+   */
   @Bean(destroyMethod = "close")
   @ConditionalOnProperty(
       name = "terra.common.prometheus.endpointEnabled",
       havingValue = "true",
       matchIfMissing = true)
-  public MetricReader prometheusHttpServer(PrometheusProperties prometheusProperties) {
+  public PrometheusScrapeServer prometheusHttpServer(PrometheusProperties prometheusProperties) {
     logger.info("Prometheus metrics enabled.");
-    return PrometheusHttpServer.builder().setPort(prometheusProperties.getEndpointPort()).build();
+    return new PrometheusScrapeServer(prometheusProperties);
+  }
+
+  /** Exposes the scrape metrics, until the application context closes. */
+  @Bean(destroyMethod = "close")
+  public AutoCloseable prometheusScrapeInstruments(
+      ObjectProvider<PrometheusScrapeServer> servers, ObjectProvider<OpenTelemetry> openTelemetry) {
+    PrometheusScrapeServer server = servers.getIfAvailable();
+    OpenTelemetry available = openTelemetry.getIfAvailable();
+    return server == null || available == null ? () -> {} : server.registerInstruments(available);
   }
 }
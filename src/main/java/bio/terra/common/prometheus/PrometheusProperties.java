@@ -1,5 +1,6 @@
 package bio.terra.common.prometheus;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /** Properties for enabling service metrics export to Prometheus. */
@@ -24,6 +25,19 @@ public class PrometheusProperties {
    */
   private int endpointPort = 9098;
 
+  /** The number of threads serving scrapes. */
+  private int threads = 5;
+
+  /** If responses should be gzipped for scrapers which accept it. */
+  private boolean gzipEnabled = true;
+
+  /**
+   * The minimum time between collections of the metrics. Scrapes within this interval of the last
+   * collection are served the same snapshot, which bounds the CPU spent on frequent or concurrent
+   * scrapes. Zero, the default, collects the metrics on every scrape.
+   */
+  private Duration snapshotMinRefreshInterval = Duration.ZERO;
+
   public boolean isEndpointEnabled() {
     return endpointEnabled;
   }
@@ -39,4 +53,28 @@ public class PrometheusProperties {
   public void setEndpointPort(int endpointPort) {
     this.endpointPort = endpointPort;
   }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public boolean isGzipEnabled() {
+    return gzipEnabled;
+  }
+
+  public void setGzipEnabled(boolean gzipEnabled) {
+    this.gzipEnabled = gzipEnabled;
+  }
+
+  public Duration getSnapshotMinRefreshInterval() {
+    return snapshotMinRefreshInterval;
+  }
+
+  public void setSnapshotMinRefreshInterval(Duration snapshotMinRefreshInterval) {
+    this.snapshotMinRefreshInterval = snapshotMinRefreshInterval;
+  }
 }
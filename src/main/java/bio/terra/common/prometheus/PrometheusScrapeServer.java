@@ -0,0 +1,239 @@
+package bio.terra.common.prometheus;
+
+import static bio.terra.common.opentelemetry.MetricNames.METRICS_PREFIX;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.exporter.prometheus.PrometheusMetricReader;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.export.MemoryMode;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.export.CollectionRegistration;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+import io.prometheus.metrics.expositionformats.ExpositionFormatWriter;
+import io.prometheus.metrics.expositionformats.ExpositionFormats;
+import io.prometheus.metrics.model.snapshots.MetricSnapshots;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link MetricReader} which serves the SDK's metrics for Prometheus to scrape, like {@link
+ * io.opentelemetry.exporter.prometheus.PrometheusHttpServer}, with knobs to bound the work a scrape
+ * does on a busy pod:
+ *
+ * <ul>
+ *   <li>the number of threads serving scrapes;
+ *   <li>whether responses are gzipped for scrapers which accept it;
+ *   <li>a minimum interval between collections, within which scrapes are served the last snapshot.
+ * </ul>
+ *
+ * <p>The server starts before the SDK's meter provider exists, so the scrape duration and payload
+ * size are only recorded once {@link #registerInstruments(OpenTelemetry)} is called.
+ */
+public class PrometheusScrapeServer implements MetricReader {
+  private static final Logger logger = LoggerFactory.getLogger(PrometheusScrapeServer.class);
+
+  public static final String SCRAPE_DURATION_METER_NAME =
+      METRICS_PREFIX + "/prometheus/scrape/duration";
+  public static final String SCRAPE_SIZE_METER_NAME = METRICS_PREFIX + "/prometheus/scrape/size";
+  public static final AttributeKey<Boolean> KEY_CACHED = AttributeKey.booleanKey("cached");
+  public static final AttributeKey<Boolean> KEY_GZIP = AttributeKey.booleanKey("gzip");
+
+  private static final List<Long> SCRAPE_SIZE_BUCKETS =
+      List.of(
+          1_000L, 10_000L, 100_000L, 500_000L, 1_000_000L, 5_000_000L, 10_000_000L, 50_000_000L);
+
+  private final PrometheusMetricReader reader = new PrometheusMetricReader(true, null);
+  private final ExpositionFormats expositionFormats = ExpositionFormats.init();
+  private final boolean gzipEnabled;
+  private final long snapshotMinRefreshNanos;
+  private final ExecutorService executor;
+  private final HttpServer server;
+  private final AtomicBoolean isShutdown = new AtomicBoolean();
+
+  // Guarded by this
+  private MetricSnapshots snapshot;
+  private long snapshotNanos;
+
+  // Set once the SDK exists; scrapes before then are not measured.
+  private volatile DoubleHistogram scrapeDuration;
+  private volatile LongHistogram scrapeSize;
+
+  public PrometheusScrapeServer(PrometheusProperties properties) {
+    this.gzipEnabled = properties.isGzipEnabled();
+    this.snapshotMinRefreshNanos = properties.getSnapshotMinRefreshInterval().toNanos();
+    this.executor =
+        Executors.newFixedThreadPool(
+            properties.getThreads(),
+            runnable -> {
+              Thread thread = new Thread(runnable, "prometheus-scrape");
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      server = HttpServer.create(new InetSocketAddress(properties.getEndpointPort()), 0);
+    } catch (IOException e) {
+      executor.shutdown();
+      throw new UncheckedIOException(
+          "Could not start Prometheus server on port " + properties.getEndpointPort(), e);
+    }
+    server.createContext("/", this::handle);
+    server.createContext("/metrics", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      long start = System.nanoTime();
+      boolean gzip = gzipEnabled && acceptsGzip(exchange);
+      ExpositionFormatWriter writer =
+          expositionFormats.findWriter(exchange.getRequestHeaders().getFirst("Accept"));
+      var body = new ByteArrayOutputStream();
+      boolean cached;
+      try (OutputStream out = gzip ? new GZIPOutputStream(body) : body) {
+        Snapshot scraped =
+            snapshotMinRefreshNanos > 0 ? cachedSnapshot() : new Snapshot(reader.collect(), false);
+        cached = scraped.cached();
+        writer.write(out, scraped.metrics());
+      } catch (RuntimeException e) {
+        logger.warn("Prometheus scrape failed", e);
+        exchange.sendResponseHeaders(500, -1);
+        return;
+      }
+      exchange.getResponseHeaders().set("Content-Type", writer.getContentType());
+      if (gzip) {
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+      }
+      if (exchange.getRequestMethod().equals("HEAD")) {
+        exchange.sendResponseHeaders(200, -1);
+      } else {
+        exchange.sendResponseHeaders(200, body.size());
+        body.writeTo(exchange.getResponseBody());
+      }
+      record(start, body.size(), Attributes.of(KEY_CACHED, cached, KEY_GZIP, gzip));
+    }
+  }
+
+  /**
+   * Returns the last snapshot if it was collected within the minimum refresh interval, or collects
+   * a new one. Concurrent scrapes wait for a single collection.
+   */
+  synchronized Snapshot cachedSnapshot() {
+    long now = System.nanoTime();
+    if (snapshot != null && now - snapshotNanos < snapshotMinRefreshNanos) {
+      return new Snapshot(snapshot, true);
+    }
+    snapshot = reader.collect();
+    snapshotNanos = now;
+    return new Snapshot(snapshot, false);
+  }
+
+  /** The metrics served by a scrape, and whether they were collected for an earlier scrape. */
+  record Snapshot(MetricSnapshots metrics, boolean cached) {}
+
+  private static boolean acceptsGzip(HttpExchange exchange) {
+    List<String> encodings = exchange.getRequestHeaders().get("Accept-Encoding");
+    return encodings != null && encodings.stream().anyMatch(value -> value.contains("gzip"));
+  }
+
+  private void record(long startNanos, long size, Attributes attributes) {
+    DoubleHistogram duration = scrapeDuration;
+    LongHistogram payloadSize = scrapeSize;
+    if (duration != null && payloadSize != null) {
+      duration.record((System.nanoTime() - startNanos) / 1_000_000.0, attributes);
+      payloadSize.record(size, attributes);
+    }
+  }
+
+  /**
+   * Records the duration and payload size of each scrape as OpenTelemetry histograms. Closing the
+   * returned handle stops recording.
+   */
+  public AutoCloseable registerInstruments(OpenTelemetry openTelemetry) {
+    Meter meter = openTelemetry.getMeter(PrometheusScrapeServer.class.getName());
+    scrapeDuration =
+        meter
+            .histogramBuilder(SCRAPE_DURATION_METER_NAME)
+            .setDescription("Time taken to collect, format and send metrics to Prometheus")
+            .setUnit("ms")
+            .build();
+    scrapeSize =
+        meter
+            .histogramBuilder(SCRAPE_SIZE_METER_NAME)
+            .setDescription("Size of the metrics sent to Prometheus, after any compression")
+            .setUnit("By")
+            .ofLongs()
+            .setExplicitBucketBoundariesAdvice(SCRAPE_SIZE_BUCKETS)
+            .build();
+    return () -> {
+      scrapeDuration = null;
+      scrapeSize = null;
+    };
+  }
+
+  @Override
+  public void register(CollectionRegistration registration) {
+    reader.register(registration);
+  }
+
+  @Override
+  public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+    return reader.getAggregationTemporality(instrumentType);
+  }
+
+  @Override
+  public Aggregation getDefaultAggregation(InstrumentType instrumentType) {
+    return reader.getDefaultAggregation(instrumentType);
+  }
+
+  @Override
+  public MemoryMode getMemoryMode() {
+    return reader.getMemoryMode();
+  }
+
+  @Override
+  public CompletableResultCode forceFlush() {
+    return CompletableResultCode.ofSuccess();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    // Both Spring and the meter provider shut the reader down.
+    if (!isShutdown.compareAndSet(false, true)) {
+      return CompletableResultCode.ofSuccess();
+    }
+    server.stop(0);
+    executor.shutdown();
+    try {
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return reader.shutdown();
+  }
+
+  @Override
+  public String toString() {
+    return "PrometheusScrapeServer{address=" + server.getAddress() + "}";
+  }
+}
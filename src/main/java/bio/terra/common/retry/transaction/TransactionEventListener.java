@@ -0,0 +1,61 @@
+package bio.terra.common.retry.transaction;
+
+import bio.terra.common.jfr.TransactionEvent;
+import bio.terra.common.jfr.TransactionRetryEvent;
+import io.opentelemetry.api.trace.Span;
+import java.lang.reflect.Method;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.interceptor.MethodInvocationRetryCallback;
+
+/**
+ * Records each retried transaction as a {@link TransactionEvent}, and each of its failed attempts
+ * as a {@link TransactionRetryEvent}, for JDK Flight Recorder.
+ */
+class TransactionEventListener implements RetryListener {
+  private static final String EVENT_ATTRIBUTE = TransactionEvent.class.getName();
+
+  @Override
+  public <T, E extends Throwable> boolean open(RetryContext context, RetryCallback<T, E> callback) {
+    var event = new TransactionEvent();
+    event.begin();
+    context.setAttribute(EVENT_ATTRIBUTE, event);
+    return true;
+  }
+
+  @Override
+  public <T, E extends Throwable> void onError(
+      RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+    var event = new TransactionRetryEvent();
+    if (event.shouldCommit()) {
+      event.method = methodName(callback);
+      event.attempt = context.getRetryCount();
+      event.exception = throwable.getClass().getName();
+      event.setSpan(Span.current());
+      event.commit();
+    }
+  }
+
+  @Override
+  public <T, E extends Throwable> void close(
+      RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+    if (context.getAttribute(EVENT_ATTRIBUTE) instanceof TransactionEvent event
+        && event.shouldCommit()) {
+      event.method = methodName(callback);
+      event.succeeded = throwable == null;
+      // The retry count only counts failed attempts.
+      event.attempts = context.getRetryCount() + (event.succeeded ? 1 : 0);
+      event.setSpan(Span.current());
+      event.commit();
+    }
+  }
+
+  private static String methodName(RetryCallback<?, ?> callback) {
+    if (callback instanceof MethodInvocationRetryCallback<?, ?> methodCallback) {
+      Method method = methodCallback.getInvocation().getMethod();
+      return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+    return callback.getClass().getName();
+  }
+}
@@ -14,6 +14,7 @@ import org.springframework.retry.backoff.UniformRandomBackOffPolicy;
 import org.springframework.retry.interceptor.RetryInterceptorBuilder;
 import org.springframework.retry.policy.CompositeRetryPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
 
 @Configuration
 @EnableConfigurationProperties(TransactionRetryProperties.class)
@@ -23,13 +24,17 @@ public class TransactionRetryInterceptorConfiguration {
    * org.springframework.retry.annotation.Retryable}: <code>
    * @Retryable(interceptor = "transactionRetryInterceptor")</code>. Be sure to use {@link
    * org.springframework.retry.annotation.EnableRetry}.
+   *
+   * <p>Transactions and their failed attempts are recorded for JDK Flight Recorder by {@link
+   * TransactionEventListener}.
    */
   @Bean("transactionRetryInterceptor")
   public MethodInterceptor getTransactionRetryInterceptor(TransactionRetryProperties config) {
-    return RetryInterceptorBuilder.stateless()
-        .retryPolicy(createTransactionRetryPolicy(config))
-        .backOffPolicy(createTransactionBackOffPolicy(config))
-        .build();
+    RetryTemplate retryTemplate = new RetryTemplate();
+    retryTemplate.setRetryPolicy(createTransactionRetryPolicy(config));
+    retryTemplate.setBackOffPolicy(createTransactionBackOffPolicy(config));
+    retryTemplate.registerListener(new TransactionEventListener());
+    return RetryInterceptorBuilder.stateless().retryOperations(retryTemplate).build();
   }
 
   /**
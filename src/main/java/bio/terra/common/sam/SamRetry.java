@@ -2,6 +2,8 @@ package bio.terra.common.sam;
 
 import static java.time.Instant.now;
 
+import bio.terra.common.jfr.SamCallEvent;
+import io.opentelemetry.api.trace.Span;
 import java.net.SocketTimeoutException;
 import java.time.Duration;
 import java.time.Instant;
@@ -16,6 +18,9 @@ import org.slf4j.LoggerFactory;
  * Sam failures are generally just short periods of down-time.
  *
  * <p>SamRetry throws either the underlying ApiException from Sam or an InterruptedException.
+ *
+ * <p>Each call, with all of its attempts, is recorded as a {@link SamCallEvent} for JDK Flight
+ * Recorder.
  */
 public class SamRetry {
   private static final Logger logger = LoggerFactory.getLogger(SamRetry.class);
@@ -89,17 +94,30 @@ public class SamRetry {
   }
 
   private <T> T perform(SamFunction<T> function) throws ApiException, InterruptedException {
-    while (true) {
-      try {
-        return function.apply();
-      } catch (ApiException ex) {
-        if (isRetryable(ex)) {
-          logger.info("SamRetry: caught retry-able exception: ", ex);
-          sleepOrTimeoutBeforeRetrying(ex);
-        } else {
-          throw ex;
+    var event = new SamCallEvent();
+    event.begin();
+    try {
+      while (true) {
+        event.attempts++;
+        try {
+          T result = function.apply();
+          event.succeeded = true;
+          return result;
+        } catch (ApiException ex) {
+          event.errorCode = ex.getCode();
+          if (isRetryable(ex)) {
+            logger.info("SamRetry: caught retry-able exception: ", ex);
+            sleepOrTimeoutBeforeRetrying(ex);
+          } else {
+            throw ex;
+          }
         }
       }
+    } finally {
+      if (event.shouldCommit()) {
+        event.setSpan(Span.current());
+        event.commit();
+      }
     }
   }
 
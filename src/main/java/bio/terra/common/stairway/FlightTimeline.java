@@ -0,0 +1,116 @@
+package bio.terra.common.stairway;
+
+import bio.terra.stairway.Direction;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The timeline of one run of a Flight, built by {@link MonitoringHook} as the run's Steps execute,
+ * to tell where a slow Flight spent its time:
+ *
+ * <ul>
+ *   <li>doing Steps;
+ *   <li>undoing Steps, including the execution which failed and switched the Flight to undo;
+ *   <li>waiting between Steps, e.g. for Stairway to persist the Flight's state;
+ *   <li>retrying Steps, counted as executions of the same Step in the same direction.
+ * </ul>
+ *
+ * <p>A Flight's Steps run one at a time on one thread, so the timeline is not thread-safe.
+ */
+final class FlightTimeline {
+  private final long startNanos;
+  private final List<StepExecution> steps = new ArrayList<>();
+  private long lastEndNanos;
+  private long doNanos;
+  private long undoNanos;
+  private long waitNanos;
+
+  FlightTimeline(long startNanos) {
+    this.startNanos = startNanos;
+    this.lastEndNanos = startNanos;
+  }
+
+  /** Records a Step's execution, in the direction it started in. */
+  void addStep(
+      int stepIndex,
+      String stepClassName,
+      Direction direction,
+      long stepStartNanos,
+      long stepEndNanos) {
+    waitNanos += Math.max(0, stepStartNanos - lastEndNanos);
+    long durationNanos = stepEndNanos - stepStartNanos;
+    if (direction == Direction.DO) {
+      doNanos += durationNanos;
+    } else {
+      undoNanos += durationNanos;
+    }
+    steps.add(
+        new StepExecution(
+            stepIndex,
+            stepClassName,
+            direction,
+            TimeUnit.NANOSECONDS.toMillis(stepStartNanos - startNanos),
+            TimeUnit.NANOSECONDS.toMillis(durationNanos)));
+    lastEndNanos = stepEndNanos;
+  }
+
+  /** Ends the run, counting the time since the last Step as waiting. */
+  void end(long endNanos) {
+    waitNanos += Math.max(0, endNanos - lastEndNanos);
+    lastEndNanos = endNanos;
+  }
+
+  long doMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(doNanos);
+  }
+
+  long undoMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(undoNanos);
+  }
+
+  long waitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+  }
+
+  long totalMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(lastEndNanos - startNanos);
+  }
+
+  List<StepExecution> steps() {
+    return steps;
+  }
+
+  /** Returns the number of retries of each Step executed, in the order they first executed. */
+  List<StepRetries> retries() {
+    Map<StepKey, Integer> executions = new LinkedHashMap<>();
+    steps.forEach(
+        step ->
+            executions.merge(
+                new StepKey(step.stepIndex(), step.stepClassName(), step.direction()),
+                1,
+                Integer::sum));
+    return executions.entrySet().stream()
+        .map(entry -> entry.getKey().retries(entry.getValue() - 1))
+        .toList();
+  }
+
+  /** One execution of a Step, with times in milliseconds from the start of the run. */
+  record StepExecution(
+      int stepIndex,
+      String stepClassName,
+      Direction direction,
+      long startMillis,
+      long durationMillis) {}
+
+  /** The number of times a Step was retried in one direction. */
+  record StepRetries(String stepClassName, Direction direction, int retries) {}
+
+  private record StepKey(int stepIndex, String stepClassName, Direction direction) {
+    private StepRetries retries(int retries) {
+      return new StepRetries(stepClassName, direction, retries);
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package bio.terra.common.stairway;
 
+import bio.terra.common.opentelemetry.CardinalityLimits;
+import bio.terra.common.opentelemetry.MetricNames;
 import bio.terra.stairway.Direction;
 import bio.terra.stairway.FlightStatus;
 import io.opentelemetry.api.OpenTelemetry;
@@ -10,14 +12,25 @@ import io.opentelemetry.api.metrics.LongHistogram;
 import io.opentelemetry.sdk.metrics.Aggregation;
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 public class MetricsHelper {
-  public static final String METRICS_PREFIX = "terra/common-lib";
+  /** Kept for existing callers; see {@link MetricNames#METRICS_PREFIX}. */
+  public static final String METRICS_PREFIX = MetricNames.METRICS_PREFIX;
   public static final String FLIGHT_LATENCY_METER_NAME =
       METRICS_PREFIX + "/stairway/flight/latency";
   public static final String FLIGHT_ERROR_METER_NAME = METRICS_PREFIX + "/stairway/flight/error";
   public static final String STEP_LATENCY_METER_NAME = METRICS_PREFIX + "/stairway/step/latency";
   public static final String STEP_ERROR_METER_NAME = METRICS_PREFIX + "/stairway/step/error";
+  public static final String FLIGHT_RUNNING_METER_NAME =
+      METRICS_PREFIX + "/stairway/flight/running";
+  public static final String FLIGHT_QUEUE_LATENCY_METER_NAME =
+      METRICS_PREFIX + "/stairway/flight/queue_latency";
+  public static final String FLIGHT_PHASE_TIME_METER_NAME =
+      METRICS_PREFIX + "/stairway/flight/phase_time";
+  public static final String STEP_RETRIES_METER_NAME = METRICS_PREFIX + "/stairway/step/retries";
   public static final AttributeKey<String> KEY_FLIGHT_NAME = AttributeKey.stringKey("flight_name");
   public static final AttributeKey<String> KEY_FLIGHT_STATUS =
       AttributeKey.stringKey("flight_status");
@@ -25,6 +38,7 @@ public class MetricsHelper {
   public static final AttributeKey<String> KEY_STEP_DIRECTION =
       AttributeKey.stringKey("step_direction");
   public static final AttributeKey<String> KEY_ERROR = AttributeKey.stringKey("error_code");
+  public static final AttributeKey<String> KEY_PHASE = AttributeKey.stringKey("phase");
 
   /** Unit string for count. */
   private static final String COUNT = "1";
@@ -39,6 +53,10 @@ public class MetricsHelper {
               200.0, 300.0, 400.0, 500.0, 600.0, 700.0, 800.0, 900.0, 1000.0, 2000.0, 4000.0,
               8000.0, 16000.0, 32000.0, 64000.0));
 
+  public static final Aggregation RETRY_DISTRIBUTION =
+      Aggregation.explicitBucketHistogram(
+          List.of(0.0, 1.0, 2.0, 3.0, 5.0, 10.0, 20.0, 50.0, 100.0));
+
   public static final Aggregation COUNT_AGGREGATION = Aggregation.sum();
 
   /** Gauge for flight latency in milliseconds. */
@@ -53,6 +71,46 @@ public class MetricsHelper {
   /** Counter for number of errors from stairway steps. */
   private final LongCounter stepErrorCounter;
 
+  /** Histogram for time from submission to the first step in milliseconds. */
+  private final LongHistogram flightQueueLatencyHistogram;
+
+  /** Histogram for time spent doing, undoing and waiting between steps in milliseconds. */
+  private final LongHistogram flightPhaseTimeHistogram;
+
+  /** Histogram for number of retries of each step in a flight run. */
+  private final LongHistogram stepRetriesHistogram;
+
+  /** Flights running on this instance, by flight name. */
+  private final ConcurrentMap<Attributes, LongAdder> runningFlights = new ConcurrentHashMap<>();
+
+  // Flight and step names come from class names, so their number is bounded only by convention.
+  private final CardinalityLimits.Limiter flightLatencyLimiter =
+      CardinalityLimits.global().limiter(FLIGHT_LATENCY_METER_NAME);
+  private final CardinalityLimits.Limiter flightErrorLimiter =
+      CardinalityLimits.global().limiter(FLIGHT_ERROR_METER_NAME);
+  private final CardinalityLimits.Limiter stepLatencyLimiter =
+      CardinalityLimits.global().limiter(STEP_LATENCY_METER_NAME);
+  private final CardinalityLimits.Limiter stepErrorLimiter =
+      CardinalityLimits.global().limiter(STEP_ERROR_METER_NAME);
+  private final CardinalityLimits.Limiter flightRunningLimiter =
+      CardinalityLimits.global().limiter(FLIGHT_RUNNING_METER_NAME);
+  private final CardinalityLimits.Limiter flightQueueLatencyLimiter =
+      CardinalityLimits.global().limiter(FLIGHT_QUEUE_LATENCY_METER_NAME);
+  private final CardinalityLimits.Limiter flightPhaseTimeLimiter =
+      CardinalityLimits.global().limiter(FLIGHT_PHASE_TIME_METER_NAME);
+  private final CardinalityLimits.Limiter stepRetriesLimiter =
+      CardinalityLimits.global().limiter(STEP_RETRIES_METER_NAME);
+
+  // Attributes are rebuilt from the same few names for every Flight and Step, so cache them.
+  private final NameCache<FlightKey, FlightAttributes> flightAttributes =
+      new NameCache<>(FlightAttributes::of);
+  private final NameCache<StepKey, Attributes> stepAttributes =
+      new NameCache<>(StepKey::attributes);
+  private final NameCache<String, Attributes> flightNameAttributes =
+      new NameCache<>(flightName -> Attributes.of(KEY_FLIGHT_NAME, flightName));
+  private final NameCache<String, PhaseAttributes> phaseAttributes =
+      new NameCache<>(PhaseAttributes::of);
+
   public MetricsHelper(OpenTelemetry openTelemetry) {
     var meter = openTelemetry.getMeter(MetricsHelper.class.getName());
     flightLatencyHistogram =
@@ -81,43 +139,155 @@ public class MetricsHelper {
             .setDescription("Number of stairway step errors")
             .setUnit(COUNT)
             .build();
+    flightQueueLatencyHistogram =
+        meter
+            .histogramBuilder(FLIGHT_QUEUE_LATENCY_METER_NAME)
+            .setDescription("Time from submission of a stairway flight to its first step")
+            .setUnit(MILLISECOND)
+            .ofLongs()
+            .build();
+    flightPhaseTimeHistogram =
+        meter
+            .histogramBuilder(FLIGHT_PHASE_TIME_METER_NAME)
+            .setDescription(
+                "Time a stairway flight run spent doing, undoing and waiting between steps")
+            .setUnit(MILLISECOND)
+            .ofLongs()
+            .build();
+    stepRetriesHistogram =
+        meter
+            .histogramBuilder(STEP_RETRIES_METER_NAME)
+            .setDescription("Number of retries of a stairway step in a flight run")
+            .setUnit(COUNT)
+            .ofLongs()
+            .build();
+    meter
+        .upDownCounterBuilder(FLIGHT_RUNNING_METER_NAME)
+        .setDescription("Number of stairway flights running on this instance")
+        .setUnit(COUNT)
+        .buildWithCallback(
+            measurement ->
+                runningFlights.forEach(
+                    (attributes, count) -> measurement.record(count.sum(), attributes)));
   }
 
   /** Record the latency for stairway flights. */
   public void recordFlightLatency(String flightName, FlightStatus flightStatus, Duration latency) {
-    Attributes attributes =
-        Attributes.of(KEY_FLIGHT_NAME, flightName, KEY_FLIGHT_STATUS, flightStatus.name());
-
-    flightLatencyHistogram.record(latency.toMillis(), attributes);
+    recordFlightLatency(flightAttributes(flightName, flightStatus), latency.toMillis());
   }
 
   /** Records the failed flights. */
   public void recordFlightError(String flightName, FlightStatus flightStatus) {
-    Attributes attributes =
-        Attributes.of(KEY_ERROR, flightStatus.name(), KEY_FLIGHT_NAME, flightName);
-    flightErrorCounter.add(1, attributes);
+    recordFlightError(flightAttributes(flightName, flightStatus));
   }
 
   /** Record the latency for stairway flights. */
   public void recordStepLatency(
       String flightName, Direction stepDirection, String stepName, Duration latency) {
-    Attributes attributes =
-        Attributes.of(
-            KEY_FLIGHT_NAME, flightName,
-            KEY_STEP_DIRECTION, stepDirection.name(),
-            KEY_STEP_NAME, stepName);
-
-    stepLatencyHistogram.record(latency.toMillis(), attributes);
+    recordStepLatency(stepAttributes(flightName, stepDirection, stepName), latency.toMillis());
   }
 
   /** Records the failed flights. */
   public void recordStepDirection(String flightName, Direction stepDirection, String stepName) {
-    Attributes attributes =
-        Attributes.of(
-            KEY_FLIGHT_NAME, flightName,
-            KEY_STEP_DIRECTION, stepDirection.name(),
-            KEY_STEP_NAME, stepName);
+    recordStepDirection(stepAttributes(flightName, stepDirection, stepName));
+  }
+
+  /**
+   * Counts a flight as running, until {@link #recordFlightEnded(Attributes)} is called with the
+   * returned attributes.
+   */
+  public Attributes recordFlightStarted(String flightName) {
+    Attributes attributes = flightRunningLimiter.limit(flightNameAttributes.get(flightName));
+    runningFlights.computeIfAbsent(attributes, ignored -> new LongAdder()).increment();
+    return attributes;
+  }
+
+  /** Stops counting a flight as running. */
+  public void recordFlightEnded(Attributes runningAttributes) {
+    runningFlights.computeIfAbsent(runningAttributes, ignored -> new LongAdder()).decrement();
+  }
+
+  /** Record the time from submission of a stairway flight to its first step. */
+  public void recordFlightQueueLatency(String flightName, Duration latency) {
+    flightQueueLatencyHistogram.record(
+        Math.max(0, latency.toMillis()),
+        flightQueueLatencyLimiter.limit(flightNameAttributes.get(flightName)));
+  }
+
+  /**
+   * Records where a run of a flight spent its time, and how many times each of its steps was
+   * retried.
+   */
+  void recordFlightTimeline(String flightName, FlightTimeline timeline) {
+    PhaseAttributes phases = phaseAttributes.get(flightName);
+    flightPhaseTimeHistogram.record(
+        timeline.doMillis(), flightPhaseTimeLimiter.limit(phases.doing()));
+    flightPhaseTimeHistogram.record(
+        timeline.undoMillis(), flightPhaseTimeLimiter.limit(phases.undoing()));
+    flightPhaseTimeHistogram.record(
+        timeline.waitMillis(), flightPhaseTimeLimiter.limit(phases.waiting()));
+    for (FlightTimeline.StepRetries step : timeline.retries()) {
+      stepRetriesHistogram.record(
+          step.retries(),
+          stepRetriesLimiter.limit(
+              stepAttributes(flightName, step.direction(), step.stepClassName())));
+    }
+  }
+
+  /** Returns the cached attributes of a Flight's metrics. */
+  FlightAttributes flightAttributes(String flightName, FlightStatus flightStatus) {
+    return flightAttributes.get(new FlightKey(flightName, flightStatus));
+  }
+
+  /** Returns the cached attributes of a Step's metrics. */
+  Attributes stepAttributes(String flightName, Direction stepDirection, String stepName) {
+    return stepAttributes.get(new StepKey(flightName, stepDirection, stepName));
+  }
+
+  void recordFlightLatency(FlightAttributes attributes, long latencyMillis) {
+    flightLatencyHistogram.record(latencyMillis, flightLatencyLimiter.limit(attributes.latency()));
+  }
+
+  void recordFlightError(FlightAttributes attributes) {
+    flightErrorCounter.add(1, flightErrorLimiter.limit(attributes.error()));
+  }
+
+  void recordStepLatency(Attributes attributes, long latencyMillis) {
+    stepLatencyHistogram.record(latencyMillis, stepLatencyLimiter.limit(attributes));
+  }
+
+  void recordStepDirection(Attributes attributes) {
+    stepErrorCounter.add(1, stepErrorLimiter.limit(attributes));
+  }
+
+  private record FlightKey(String flightName, FlightStatus flightStatus) {}
+
+  /** The attributes of a Flight's latency and error metrics, which name the status differently. */
+  record FlightAttributes(Attributes latency, Attributes error) {
+    private static FlightAttributes of(FlightKey key) {
+      return new FlightAttributes(
+          Attributes.of(
+              KEY_FLIGHT_NAME, key.flightName(), KEY_FLIGHT_STATUS, key.flightStatus().name()),
+          Attributes.of(KEY_ERROR, key.flightStatus().name(), KEY_FLIGHT_NAME, key.flightName()));
+    }
+  }
+
+  /** The attributes of a Flight's phase times, one per phase. */
+  private record PhaseAttributes(Attributes doing, Attributes undoing, Attributes waiting) {
+    private static PhaseAttributes of(String flightName) {
+      return new PhaseAttributes(
+          Attributes.of(KEY_FLIGHT_NAME, flightName, KEY_PHASE, "do"),
+          Attributes.of(KEY_FLIGHT_NAME, flightName, KEY_PHASE, "undo"),
+          Attributes.of(KEY_FLIGHT_NAME, flightName, KEY_PHASE, "wait"));
+    }
+  }
 
-    stepErrorCounter.add(1, attributes);
+  private record StepKey(String flightName, Direction stepDirection, String stepName) {
+    private Attributes attributes() {
+      return Attributes.of(
+          KEY_FLIGHT_NAME, flightName,
+          KEY_STEP_DIRECTION, stepDirection.name(),
+          KEY_STEP_NAME, stepName);
+    }
   }
 }
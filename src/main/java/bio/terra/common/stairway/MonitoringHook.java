@@ -1,5 +1,10 @@
 package bio.terra.common.stairway;
 
+import bio.terra.common.jfr.FlightEvent;
+import bio.terra.common.jfr.StepEvent;
+import bio.terra.common.logging.RequestIdFilter;
+import bio.terra.common.logging.StructuredLog;
+import bio.terra.stairway.Direction;
 import bio.terra.stairway.DynamicHook;
 import bio.terra.stairway.Flight;
 import bio.terra.stairway.FlightContext;
@@ -8,20 +13,32 @@ import bio.terra.stairway.HookAction;
 import bio.terra.stairway.StairwayHook;
 import bio.terra.stairway.Step;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.google.common.base.Stopwatch;
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.internal.OtelEncodingUtils;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
 import io.opentelemetry.context.propagation.TextMapGetter;
 import io.opentelemetry.context.propagation.TextMapSetter;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.ClassUtils;
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 /**
  * A {@link StairwayHook} to add support for tracing execution of Stairway flights and record custom
@@ -42,26 +59,78 @@ import org.jetbrains.annotations.Nullable;
  *       Span Links</a>. The submission span is used to correlate all of the Flight Spans together.
  *       The submission Span may be created outside of the context of this hook and passed in with
  *       the input FlightMap; this allows all of the Flight Spans to be linked to the request Span
- *       that initiated the Flight. See {@link #serializeCurrentTracingContext(OpenTelemetry)}
- *       {@link #SUBMISSION_SPAN_CONTEXT_MAP_KEY}. If no submission Span is passed into the Flight,
- *       a dummy Submission span is created by this hook so that all Flight Spans are still
- *       correlated.
+ *       that initiated the Flight. See {@link #storeCurrentContextAsSubmission(FlightMap,
+ *       OpenTelemetry)} {@link #SUBMISSION_TRACEPARENT_MAP_KEY}. If no submission Span is passed
+ *       into the Flight, a dummy Submission span is created by this hook so that all Flight Spans
+ *       are still correlated.
  * </ul>
  *
  * <p>If a Span is not ended, it will not be exported to the tracing service.
  *
+ * <p>Flight and Step latencies are recorded in the context of their Span, so that sampled Spans are
+ * attached to the latency histograms as exemplars.
+ *
+ * <p>The hook also counts the Flights running on this instance, and records the time from a
+ * Flight's submission to its first Step if it was submitted with {@link
+ * #storeCurrentContextAsSubmission}.
+ *
+ * <p>Each run of a Flight is recorded as a {@link FlightTimeline} of its Step executions. When the
+ * run ends, the time it spent doing Steps, undoing them and waiting between them, and the number of
+ * retries of each Step, are recorded as metrics. With this class's logger at DEBUG level, the
+ * timeline is also logged as a structured "flight summary", with every Step execution.
+ *
+ * <p>Each Flight run and Step execution is also recorded as a {@link FlightEvent} or {@link
+ * StepEvent} for JDK Flight Recorder, with the IDs of its Span.
+ *
+ * <p>This hook also restores the requestId of the HTTP request which submitted the Flight, if it
+ * was stored in the input FlightMap with {@link #storeCurrentContextAsSubmission}, into the MDC
+ * while the Flight runs. Logs of the Flight can then be correlated with those of the request.
+ *
  * @see <a href="https://opentelemetry.io/docs/concepts/signals/traces/">OpenTelemetry Traces</a>
  */
 public class MonitoringHook implements StairwayHook {
-  /** The {@link FlightMap} key for the submission Span's context. */
+  private static final Logger logger = LoggerFactory.getLogger(MonitoringHook.class);
+
+  /**
+   * The {@link FlightMap} key for the submission Span's context, as a map encoded by the
+   * application's propagators. Superseded by {@link #SUBMISSION_TRACEPARENT_MAP_KEY}, but still
+   * read for Flights which were submitted with it.
+   */
   public static final String SUBMISSION_SPAN_CONTEXT_MAP_KEY = "openTelemetryTracingSpanContext";
 
+  /** The {@link FlightMap} key for the submission Span's context, as a W3C traceparent string. */
+  public static final String SUBMISSION_TRACEPARENT_MAP_KEY = "openTelemetryTraceparent";
+
+  /**
+   * The {@link FlightMap} key for the time the Flight was submitted, in milliseconds since the
+   * epoch by the submitting instance's clock. The submission Span's context carries no timestamp,
+   * so it is stored alongside.
+   */
+  public static final String SUBMISSION_TIME_MAP_KEY = "terraSubmissionTimeMillis";
+
+  /** The {@link FlightMap} key for the requestId of the request which submitted the Flight. */
+  public static final String REQUEST_ID_MAP_KEY = "terraRequestId";
+
   // Prefixes to use for Span names. Standard prefixes make it easier to search for all Spans of
   // different types.
   private static final String SUBMISSION_NAME_PREFIX = "stairway/submission/";
   private static final String FLIGHT_NAME_PREFIX = "stairway/flight/";
   private static final String STEP_NAME_PREFIX = "stairway/step/";
 
+  private static final AttributeKey<String> KEY_FLIGHT_ID =
+      AttributeKey.stringKey("stairway/flightId");
+  private static final AttributeKey<String> KEY_FLIGHT_CLASS =
+      AttributeKey.stringKey("stairway/flightClass");
+  private static final AttributeKey<String> KEY_STEP_CLASS =
+      AttributeKey.stringKey("stairway/stepClass");
+  private static final AttributeKey<Long> KEY_STEP_INDEX =
+      AttributeKey.longKey("stairway/stepIndex");
+  private static final AttributeKey<String> KEY_DIRECTION =
+      AttributeKey.stringKey("stairway/direction");
+
+  private static final TypeReference<Map<String, String>> CONTEXT_MAP_TYPE =
+      new TypeReference<>() {};
+
   private static final TextMapSetter<Map<String, String>> CONTEXT_SETTER =
       (Map<String, String> carrier, String key, String value) -> carrier.put(key, value);
 
@@ -83,6 +152,17 @@ public class MonitoringHook implements StairwayHook {
   private final Tracer tracer;
   private final MetricsHelper metricsHelper;
 
+  // Span names and the attributes shared by all executions of a Step are cached, rather than
+  // rebuilt from the class names for every Step.
+  private final NameCache<String, String> flightSpanNames =
+      new NameCache<>(
+          flightClassName -> FLIGHT_NAME_PREFIX + ClassUtils.getShortClassName(flightClassName));
+  private final NameCache<StepKey, StepSpan> stepSpans = new NameCache<>(StepKey::span);
+
+  // The timelines of the Flights running on this instance, by Flight ID. The Flight hook adds and
+  // removes them, and the Step hooks, which run on the same thread in between, fill them in.
+  private final ConcurrentMap<String, FlightTimeline> timelines = new ConcurrentHashMap<>();
+
   public MonitoringHook(OpenTelemetry openTelemetry) {
     this.openTelemetry = openTelemetry;
     this.tracer = openTelemetry.getTracer(getClass().getName());
@@ -100,13 +180,26 @@ public class MonitoringHook implements StairwayHook {
   }
 
   /**
-   * Store the current Span's {@link SpanContext} as the submission Span.
+   * Store the current Span's {@link SpanContext} as the submission Span, along with the time of
+   * submission and the requestId of the request being served, if any. The context is stored as a
+   * compact W3C traceparent string with {@link #SUBMISSION_TRACEPARENT_MAP_KEY}; baggage and trace
+   * state are not carried into the Flight.
    *
    * @param inputMap flight map to use to store the context
+   * @param openTelemetry no longer used, since the traceparent is encoded directly; kept for
+   *     compatibility with existing callers
    */
   public static void storeCurrentContextAsSubmission(
       FlightMap inputMap, OpenTelemetry openTelemetry) {
-    inputMap.put(SUBMISSION_SPAN_CONTEXT_MAP_KEY, serializeCurrentTracingContext(openTelemetry));
+    String traceparent = encodeTraceparent(Span.current().getSpanContext());
+    if (traceparent != null) {
+      inputMap.put(SUBMISSION_TRACEPARENT_MAP_KEY, traceparent);
+    }
+    inputMap.put(SUBMISSION_TIME_MAP_KEY, System.currentTimeMillis());
+    String requestId = RequestIdFilter.currentRequestId();
+    if (requestId != null) {
+      inputMap.put(REQUEST_ID_MAP_KEY, requestId);
+    }
   }
 
   @Override
@@ -126,56 +219,139 @@ public class MonitoringHook implements StairwayHook {
    */
   private class TraceFlightHook implements DynamicHook {
     private Scope flightScope;
-    private Stopwatch stopwatch;
+    private boolean timing;
+    private long startNanos;
+    private Attributes runningAttributes;
+    private FlightTimeline timeline;
+    private FlightEvent event;
+    private boolean requestIdInMdc;
 
     @Override
     public HookAction start(FlightContext flightContext) {
+      String requestId = flightContext.getInputParameters().get(REQUEST_ID_MAP_KEY, String.class);
+      if (requestId != null && MDC.get(RequestIdFilter.REQUEST_ID_MDC_KEY) == null) {
+        MDC.put(RequestIdFilter.REQUEST_ID_MDC_KEY, requestId);
+        requestIdInMdc = true;
+      }
       var submissionContext = getOrCreateSubmissionContext(flightContext);
       // Start the Flight Span and its Scope. We rely on implicit propagation to get this Flight
       // Span as the current span during Step execution. We must remember to close the Flight Scope
       // at the end of the Flight's current run.
       var flightSpan =
           tracer
-              .spanBuilder(
-                  FLIGHT_NAME_PREFIX
-                      + ClassUtils.getShortClassName(flightContext.getFlightClassName()))
+              .spanBuilder(flightSpanNames.get(flightContext.getFlightClassName()))
               .setParent(submissionContext)
               .addLink(Span.fromContext(submissionContext).getSpanContext())
-              .setAttribute("stairway/flightId", flightContext.getFlightId())
-              .setAttribute("stairway/flightClass", flightContext.getFlightClassName())
+              .setAttribute(KEY_FLIGHT_ID, flightContext.getFlightId())
+              .setAttribute(KEY_FLIGHT_CLASS, flightContext.getFlightClassName())
               .startSpan();
       // Start the Scope of the Flight Span's execution. We rely on implicit Span propagation to get
       // the scope for the step's execution. We must remember to close the Scope at the end of the
       // Flight.
       flightScope = flightSpan.makeCurrent();
 
-      stopwatch = Stopwatch.createStarted();
+      timing = true;
+      startNanos = System.nanoTime();
+      timeline = new FlightTimeline(startNanos);
+      timelines.put(flightContext.getFlightId(), timeline);
+      runningAttributes = metricsHelper.recordFlightStarted(flightContext.getFlightClassName());
+      recordQueueLatency(flightContext);
+      event = new FlightEvent();
+      event.begin();
       return HookAction.CONTINUE;
     }
 
     @Override
     public HookAction end(FlightContext flightContext) {
+      // Record the latency while the Flight Span is current, so that it can be linked to the
+      // Flight's trace as an exemplar.
+      var attributes =
+          metricsHelper.flightAttributes(
+              flightContext.getFlightClassName(), flightContext.getFlightStatus());
+      if (timing) {
+        metricsHelper.recordFlightLatency(attributes, elapsedMillis(startNanos));
+        timing = false;
+      }
+      if (timeline != null) {
+        timelines.remove(flightContext.getFlightId(), timeline);
+        timeline.end(System.nanoTime());
+        metricsHelper.recordFlightTimeline(flightContext.getFlightClassName(), timeline);
+        logFlightSummary(flightContext, timeline);
+        timeline = null;
+      }
       Span flightSpan = Span.current();
       flightSpan.setAttribute("flightStatus", flightContext.getFlightStatus().toString());
+      if (event != null && event.shouldCommit()) {
+        event.flightId = flightContext.getFlightId();
+        event.flightClass = flightContext.getFlightClassName();
+        event.status = flightContext.getFlightStatus().toString();
+        event.setSpan(flightSpan);
+        event.commit();
+      }
+      event = null;
       flightSpan.end();
       flightScope.close();
-      if (stopwatch != null) {
-        metricsHelper.recordFlightLatency(
-            flightContext.getFlightClassName(),
-            flightContext.getFlightStatus(),
-            stopwatch.elapsed());
-        stopwatch = null;
+      metricsHelper.recordFlightError(attributes);
+      if (runningAttributes != null) {
+        metricsHelper.recordFlightEnded(runningAttributes);
+        runningAttributes = null;
+      }
+      if (requestIdInMdc) {
+        MDC.remove(RequestIdFilter.REQUEST_ID_MDC_KEY);
+        requestIdInMdc = false;
       }
-      metricsHelper.recordFlightError(
-          flightContext.getFlightClassName(), flightContext.getFlightStatus());
       return HookAction.CONTINUE;
     }
   }
 
+  /**
+   * Records the time from the Flight's submission to its first step, if this run of the Flight is
+   * about to run it and the submission time was stored with {@link
+   * #storeCurrentContextAsSubmission}. Later runs of a Flight resume after waiting, which says
+   * nothing about how busy this Stairway is.
+   *
+   * <p>The Flight may have been submitted on another instance, so this compares two wall clocks and
+   * is off by any skew between them; a latency which comes out negative is recorded as zero.
+   */
+  private void recordQueueLatency(FlightContext flightContext) {
+    if (flightContext.getStepIndex() != 0 || flightContext.getDirection() != Direction.DO) {
+      return;
+    }
+    Long submissionTime =
+        flightContext.getInputParameters().get(SUBMISSION_TIME_MAP_KEY, Long.class);
+    if (submissionTime != null) {
+      metricsHelper.recordFlightQueueLatency(
+          flightContext.getFlightClassName(),
+          Duration.ofMillis(System.currentTimeMillis() - submissionTime));
+    }
+  }
+
+  /**
+   * Logs the timeline of a Flight run at DEBUG level, for finding where a slow Flight spent its
+   * time.
+   */
+  private static void logFlightSummary(FlightContext flightContext, FlightTimeline timeline) {
+    StructuredLog.debug(logger)
+        .field("flightId", flightContext.getFlightId())
+        .field("flightClass", flightContext.getFlightClassName())
+        .field("flightStatus", flightContext.getFlightStatus())
+        .field("totalMillis", timeline.totalMillis())
+        .field("doMillis", timeline.doMillis())
+        .field("undoMillis", timeline.undoMillis())
+        .field("waitMillis", timeline.waitMillis())
+        .field("steps", timeline.steps())
+        .log("Flight summary");
+  }
+
   /** A {@link DynamicHook} for creating Spans for each Step execution. */
   private class TraceStepHook implements DynamicHook {
     private Scope stepScope;
-    private Stopwatch stopwatch;
+    private boolean timing;
+    private long startNanos;
+    // The direction the Step started in, which Stairway may have changed by the time it ends.
+    private Direction startDirection;
+    private FlightTimeline timeline;
+    private StepEvent event;
 
     @Override
     public HookAction start(FlightContext flightContext) {
@@ -183,37 +359,65 @@ public class MonitoringHook implements StairwayHook {
       // the start of the flight, the current span here should be that same Flight Span.
       // Start the Scope of the Step Span's execution so that the step execution has a relevant
       // current span. We must remember to close the Scope at the end of the Step.
+      StepSpan stepSpan =
+          stepSpans.get(
+              new StepKey(
+                  flightContext.getFlightClassName(),
+                  flightContext.getStepClassName(),
+                  flightContext.getDirection()));
       stepScope =
           tracer
-              .spanBuilder(
-                  STEP_NAME_PREFIX + ClassUtils.getShortClassName(flightContext.getStepClassName()))
-              .setAttribute("stairway/flightId", flightContext.getFlightId())
-              .setAttribute("stairway/flightClass", flightContext.getFlightClassName())
-              .setAttribute("stairway/stepClass", flightContext.getStepClassName())
-              .setAttribute("stairway/stepIndex", flightContext.getStepIndex())
-              .setAttribute("stairway/direction", flightContext.getDirection().toString())
+              .spanBuilder(stepSpan.name())
+              .setAllAttributes(stepSpan.attributes())
+              .setAttribute(KEY_FLIGHT_ID, flightContext.getFlightId())
+              .setAttribute(KEY_STEP_INDEX, (long) flightContext.getStepIndex())
               .startSpan()
               .makeCurrent();
-      stopwatch = Stopwatch.createStarted();
+      timing = true;
+      startNanos = System.nanoTime();
+      startDirection = flightContext.getDirection();
+      timeline = timelines.get(flightContext.getFlightId());
+      event = new StepEvent();
+      event.begin();
       return HookAction.CONTINUE;
     }
 
     @Override
     public HookAction end(FlightContext flightContext) {
-      Span.current().end();
-      stepScope.close();
-      if (stopwatch != null) {
+      // As for Flights, record the latency while the Step Span is current.
+      var attributes =
+          metricsHelper.stepAttributes(
+              flightContext.getFlightClassName(),
+              flightContext.getDirection(),
+              flightContext.getStepClassName());
+      if (timing) {
+        long endNanos = System.nanoTime();
         metricsHelper.recordStepLatency(
-            flightContext.getFlightClassName(),
-            flightContext.getDirection(),
-            flightContext.getStepClassName(),
-            stopwatch.elapsed());
-        stopwatch = null;
+            attributes, TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos));
+        if (timeline != null) {
+          timeline.addStep(
+              flightContext.getStepIndex(),
+              flightContext.getStepClassName(),
+              startDirection,
+              startNanos,
+              endNanos);
+          timeline = null;
+        }
+        timing = false;
       }
-      metricsHelper.recordStepDirection(
-          flightContext.getFlightClassName(),
-          flightContext.getDirection(),
-          flightContext.getStepClassName());
+      if (event != null && event.shouldCommit()) {
+        event.flightId = flightContext.getFlightId();
+        event.flightClass = flightContext.getFlightClassName();
+        event.stepClass = flightContext.getStepClassName();
+        event.stepIndex = flightContext.getStepIndex();
+        event.direction = flightContext.getDirection().toString();
+        event.setSpan(Span.current());
+        event.commit();
+      }
+      event = null;
+      Span.current().end();
+      stepScope.close();
+      metricsHelper.recordStepDirection(attributes);
       return HookAction.CONTINUE;
     }
   }
@@ -223,34 +427,34 @@ public class MonitoringHook implements StairwayHook {
    * submission span to correlate all Flight Spans.
    */
   private Context getOrCreateSubmissionContext(FlightContext flightContext) {
-    // Check the input parameters for a submission span to link for the Flight.
-    Map<String, String> encodedContext =
-        flightContext
-            .getInputParameters()
-            .get(SUBMISSION_SPAN_CONTEXT_MAP_KEY, new TypeReference<>() {});
-    if (encodedContext != null) {
-      return decodeContext(encodedContext, openTelemetry);
-    }
-    // Check the working map for a submission span to link for the Flight.
-    encodedContext =
-        flightContext
-            .getWorkingMap()
-            .get(SUBMISSION_SPAN_CONTEXT_MAP_KEY, new TypeReference<>() {});
-    if (encodedContext != null) {
-      return decodeContext(encodedContext, openTelemetry);
+    // Check the input parameters, then the working map, for a submission span to link for the
+    // Flight. Flights submitted by earlier versions of this library store the context as a map.
+    for (FlightMap flightMap :
+        List.of(flightContext.getInputParameters(), flightContext.getWorkingMap())) {
+      Context context =
+          decodeTraceparent(flightMap.get(SUBMISSION_TRACEPARENT_MAP_KEY, String.class));
+      if (context != null) {
+        return context;
+      }
+      Map<String, String> encodedContext =
+          flightMap.get(SUBMISSION_SPAN_CONTEXT_MAP_KEY, CONTEXT_MAP_TYPE);
+      if (encodedContext != null) {
+        return decodeContext(encodedContext, openTelemetry);
+      }
     }
     // Create a new span to use as a submission span to link for the Flight Spans.
     var spanBuilder = tracer.spanBuilder(SUBMISSION_NAME_PREFIX + flightContext.getFlightId());
     spanBuilder.setNoParent();
-    spanBuilder.setAttribute("stairway/flightId", flightContext.getFlightId());
-    spanBuilder.setAttribute("stairway/flightClass", flightContext.getFlightClassName());
+    spanBuilder.setAttribute(KEY_FLIGHT_ID, flightContext.getFlightId());
+    spanBuilder.setAttribute(KEY_FLIGHT_CLASS, flightContext.getFlightClassName());
 
     var flightSpan = spanBuilder.startSpan();
     try (var ignored = flightSpan.makeCurrent()) {
       // Store the submission span so that there is only one of these per Flight ID.
-      flightContext
-          .getWorkingMap()
-          .put(SUBMISSION_SPAN_CONTEXT_MAP_KEY, encodeContext(Context.current(), openTelemetry));
+      String traceparent = encodeTraceparent(flightSpan.getSpanContext());
+      if (traceparent != null) {
+        flightContext.getWorkingMap().put(SUBMISSION_TRACEPARENT_MAP_KEY, traceparent);
+      }
       return Context.current();
     } finally {
       // End the span immediately. We cannot carry this span until the flight finishes, we merely
@@ -260,6 +464,67 @@ public class MonitoringHook implements StairwayHook {
     }
   }
 
+  /**
+   * Encode the SpanContext as a W3C traceparent string, or null if it is invalid. Works with {@link
+   * #decodeTraceparent(String)}.
+   */
+  @Nullable
+  static String encodeTraceparent(SpanContext spanContext) {
+    if (!spanContext.isValid()) {
+      return null;
+    }
+    return "00-"
+        + spanContext.getTraceId()
+        + "-"
+        + spanContext.getSpanId()
+        + "-"
+        + spanContext.getTraceFlags().asHex();
+  }
+
+  /**
+   * Decode a W3C traceparent string as the Context of a remote Span, or null if it is missing or
+   * malformed. Works with {@link #encodeTraceparent(SpanContext)}.
+   */
+  @Nullable
+  static Context decodeTraceparent(@Nullable String traceparent) {
+    // 00-<32 hex trace ID>-<16 hex span ID>-<2 hex flags>
+    if (traceparent == null
+        || traceparent.length() != 55
+        || !traceparent.startsWith("00-")
+        || traceparent.charAt(35) != '-'
+        || traceparent.charAt(52) != '-'
+        || !OtelEncodingUtils.isValidBase16String(traceparent.subSequence(3, 35))
+        || !OtelEncodingUtils.isValidBase16String(traceparent.subSequence(36, 52))
+        || !OtelEncodingUtils.isValidBase16String(traceparent.subSequence(53, 55))) {
+      return null;
+    }
+    var spanContext =
+        SpanContext.createFromRemoteParent(
+            traceparent.substring(3, 35),
+            traceparent.substring(36, 52),
+            TraceFlags.fromHex(traceparent, 53),
+            TraceState.getDefault());
+    return spanContext.isValid() ? Context.root().with(Span.wrap(spanContext)) : null;
+  }
+
+  private static long elapsedMillis(long startNanos) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+
+  private record StepKey(String flightClassName, String stepClassName, Direction direction) {
+    private StepSpan span() {
+      return new StepSpan(
+          STEP_NAME_PREFIX + ClassUtils.getShortClassName(stepClassName),
+          Attributes.of(
+              KEY_FLIGHT_CLASS, flightClassName,
+              KEY_STEP_CLASS, stepClassName,
+              KEY_DIRECTION, direction.toString()));
+    }
+  }
+
+  /** The name of a Step's Spans, and the attributes shared by all of them. */
+  private record StepSpan(String name, Attributes attributes) {}
+
   /** Encode the Context as a Map. Works with {@link #decodeContext(Map, OpenTelemetry)}. */
   private static Map<String, String> encodeContext(Context context, OpenTelemetry openTelemetry) {
     var propagator = openTelemetry.getPropagators().getTextMapPropagator();
@@ -0,0 +1,34 @@
+package bio.terra.common.stairway;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Caches values derived from Flight and Step class names, e.g. Span names and attributes, which
+ * would otherwise be rebuilt for every Step. Class names are few in practice, but to be safe the
+ * cache stops growing at {@link #MAX_SIZE} entries and computes any others each time.
+ */
+final class NameCache<K, V> {
+  static final int MAX_SIZE = 10_000;
+
+  private final ConcurrentMap<K, V> cache = new ConcurrentHashMap<>();
+  private final Function<K, V> compute;
+
+  NameCache(Function<K, V> compute) {
+    this.compute = compute;
+  }
+
+  V get(K key) {
+    V value = cache.get(key);
+    if (value != null) {
+      return value;
+    }
+    value = compute.apply(key);
+    if (cache.size() < MAX_SIZE) {
+      V previous = cache.putIfAbsent(key, value);
+      return previous == null ? value : previous;
+    }
+    return value;
+  }
+}
@@ -3,42 +3,78 @@ package bio.terra.common.stairway;
 import static bio.terra.common.stairway.MetricsHelper.COUNT_AGGREGATION;
 import static bio.terra.common.stairway.MetricsHelper.FLIGHT_ERROR_METER_NAME;
 import static bio.terra.common.stairway.MetricsHelper.FLIGHT_LATENCY_METER_NAME;
+import static bio.terra.common.stairway.MetricsHelper.FLIGHT_PHASE_TIME_METER_NAME;
+import static bio.terra.common.stairway.MetricsHelper.FLIGHT_QUEUE_LATENCY_METER_NAME;
 import static bio.terra.common.stairway.MetricsHelper.KEY_ERROR;
 import static bio.terra.common.stairway.MetricsHelper.KEY_FLIGHT_NAME;
 import static bio.terra.common.stairway.MetricsHelper.KEY_FLIGHT_STATUS;
+import static bio.terra.common.stairway.MetricsHelper.KEY_PHASE;
 import static bio.terra.common.stairway.MetricsHelper.KEY_STEP_DIRECTION;
 import static bio.terra.common.stairway.MetricsHelper.KEY_STEP_NAME;
 import static bio.terra.common.stairway.MetricsHelper.LATENCY_DISTRIBUTION;
+import static bio.terra.common.stairway.MetricsHelper.RETRY_DISTRIBUTION;
 import static bio.terra.common.stairway.MetricsHelper.STEP_ERROR_METER_NAME;
 import static bio.terra.common.stairway.MetricsHelper.STEP_LATENCY_METER_NAME;
+import static bio.terra.common.stairway.MetricsHelper.STEP_RETRIES_METER_NAME;
 
+import bio.terra.common.opentelemetry.HistogramProperties;
+import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.sdk.metrics.InstrumentSelector;
 import io.opentelemetry.sdk.metrics.View;
 import java.util.Set;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.util.Pair;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @Configuration
-@EnableConfigurationProperties(value = {StairwayProperties.class})
+@EnableConfigurationProperties(value = {StairwayProperties.class, HistogramProperties.class})
 public class StairwayConfig {
   @Bean(name = FLIGHT_LATENCY_METER_NAME)
-  public Pair<InstrumentSelector, View> flightLatencyView() {
+  public Pair<InstrumentSelector, View> flightLatencyView(HistogramProperties histogramProperties) {
     return Pair.of(
-        InstrumentSelector.builder().setMeterName(FLIGHT_LATENCY_METER_NAME).build(),
+        InstrumentSelector.builder().setName(FLIGHT_LATENCY_METER_NAME).build(),
         View.builder()
             .setName(FLIGHT_LATENCY_METER_NAME)
             .setDescription("The distribution of latencies")
-            .setAggregation(LATENCY_DISTRIBUTION)
+            .setAggregation(histogramProperties.latencyAggregation(LATENCY_DISTRIBUTION))
             .setAttributeFilter(Set.of(KEY_FLIGHT_NAME.getKey(), KEY_FLIGHT_STATUS.getKey()))
             .build());
   }
 
+  @Bean(name = FLIGHT_QUEUE_LATENCY_METER_NAME)
+  public Pair<InstrumentSelector, View> flightQueueLatencyView(
+      HistogramProperties histogramProperties) {
+    return Pair.of(
+        InstrumentSelector.builder().setName(FLIGHT_QUEUE_LATENCY_METER_NAME).build(),
+        View.builder()
+            .setName(FLIGHT_QUEUE_LATENCY_METER_NAME)
+            .setDescription("The distribution of latencies")
+            .setAggregation(histogramProperties.latencyAggregation(LATENCY_DISTRIBUTION))
+            .setAttributeFilter(Set.of(KEY_FLIGHT_NAME.getKey()))
+            .build());
+  }
+
+  @Bean(name = FLIGHT_PHASE_TIME_METER_NAME)
+  public Pair<InstrumentSelector, View> flightPhaseTimeView(
+      HistogramProperties histogramProperties) {
+    return Pair.of(
+        InstrumentSelector.builder().setName(FLIGHT_PHASE_TIME_METER_NAME).build(),
+        View.builder()
+            .setName(FLIGHT_PHASE_TIME_METER_NAME)
+            .setDescription("The distribution of latencies")
+            .setAggregation(histogramProperties.latencyAggregation(LATENCY_DISTRIBUTION))
+            .setAttributeFilter(Set.of(KEY_FLIGHT_NAME.getKey(), KEY_PHASE.getKey()))
+            .build());
+  }
+
   @Bean(name = FLIGHT_ERROR_METER_NAME)
   public Pair<InstrumentSelector, View> flightErrorView() {
     return Pair.of(
-        InstrumentSelector.builder().setMeterName(FLIGHT_ERROR_METER_NAME).build(),
+        InstrumentSelector.builder().setName(FLIGHT_ERROR_METER_NAME).build(),
         View.builder()
             .setName(FLIGHT_ERROR_METER_NAME)
             .setDescription("The number and types of errors")
@@ -48,13 +84,13 @@ public class StairwayConfig {
   }
 
   @Bean(name = STEP_LATENCY_METER_NAME)
-  public Pair<InstrumentSelector, View> stepLatencyView() {
+  public Pair<InstrumentSelector, View> stepLatencyView(HistogramProperties histogramProperties) {
     return Pair.of(
-        InstrumentSelector.builder().setMeterName(STEP_LATENCY_METER_NAME).build(),
+        InstrumentSelector.builder().setName(STEP_LATENCY_METER_NAME).build(),
         View.builder()
             .setName(STEP_LATENCY_METER_NAME)
             .setDescription("The distribution of latencies")
-            .setAggregation(LATENCY_DISTRIBUTION)
+            .setAggregation(histogramProperties.latencyAggregation(LATENCY_DISTRIBUTION))
             .setAttributeFilter(
                 Set.of(
                     KEY_FLIGHT_NAME.getKey(), KEY_STEP_DIRECTION.getKey(), KEY_STEP_NAME.getKey()))
@@ -64,7 +100,7 @@ public class StairwayConfig {
   @Bean(name = STEP_ERROR_METER_NAME)
   public Pair<InstrumentSelector, View> stepErrorView() {
     return Pair.of(
-        InstrumentSelector.builder().setMeterName(STEP_ERROR_METER_NAME).build(),
+        InstrumentSelector.builder().setName(STEP_ERROR_METER_NAME).build(),
         View.builder()
             .setName(STEP_ERROR_METER_NAME)
             .setDescription("The number and types of errors")
@@ -74,4 +110,31 @@ public class StairwayConfig {
                     KEY_FLIGHT_NAME.getKey(), KEY_STEP_DIRECTION.getKey(), KEY_STEP_NAME.getKey()))
             .build());
   }
+
+  @Bean(name = STEP_RETRIES_METER_NAME)
+  public Pair<InstrumentSelector, View> stepRetriesView() {
+    return Pair.of(
+        InstrumentSelector.builder().setName(STEP_RETRIES_METER_NAME).build(),
+        View.builder()
+            .setName(STEP_RETRIES_METER_NAME)
+            .setDescription("The distribution of retries")
+            .setAggregation(RETRY_DISTRIBUTION)
+            .setAttributeFilter(
+                Set.of(
+                    KEY_FLIGHT_NAME.getKey(), KEY_STEP_DIRECTION.getKey(), KEY_STEP_NAME.getKey()))
+            .build());
+  }
+
+  /** Exposes the Stairway executor metrics, until the application context closes. */
+  @Bean(destroyMethod = "close")
+  public AutoCloseable stairwayExecutorInstruments(
+      @Qualifier(StairwayProperties.STAIRWAY_EXECUTOR_BEAN_NAME)
+          ObjectProvider<ThreadPoolTaskExecutor> executor,
+      ObjectProvider<OpenTelemetry> openTelemetry) {
+    ThreadPoolTaskExecutor available = executor.getIfAvailable();
+    OpenTelemetry availableOpenTelemetry = openTelemetry.getIfAvailable();
+    return available == null || availableOpenTelemetry == null
+        ? () -> {}
+        : StairwayExecutorMetrics.registerInstruments(availableOpenTelemetry, available);
+  }
 }
@@ -0,0 +1,50 @@
+package bio.terra.common.stairway;
+
+import static bio.terra.common.stairway.MetricsHelper.METRICS_PREFIX;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.Meter;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Exposes how busy the executor which runs Stairway flights is:
+ *
+ * <ul>
+ *   <li>the number of threads running flights;
+ *   <li>the number of flights waiting in the executor's queue.
+ * </ul>
+ */
+public final class StairwayExecutorMetrics {
+  public static final String ACTIVE_THREADS_METER_NAME =
+      METRICS_PREFIX + "/stairway/executor/active_threads";
+  public static final String QUEUE_DEPTH_METER_NAME =
+      METRICS_PREFIX + "/stairway/executor/queue_depth";
+
+  private StairwayExecutorMetrics() {}
+
+  /** Registers the executor's instruments. Closing the returned handle unregisters them. */
+  public static AutoCloseable registerInstruments(
+      OpenTelemetry openTelemetry, ThreadPoolTaskExecutor executor) {
+    ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+    Meter meter = openTelemetry.getMeter(StairwayExecutorMetrics.class.getName());
+    var activeThreads =
+        meter
+            .gaugeBuilder(ACTIVE_THREADS_METER_NAME)
+            .setDescription("Number of threads running stairway flights")
+            .setUnit("1")
+            .ofLongs()
+            .buildWithCallback(measurement -> measurement.record(pool.getActiveCount()));
+    var queueDepth =
+        meter
+            .gaugeBuilder(QUEUE_DEPTH_METER_NAME)
+            .setDescription("Number of stairway flights waiting for a thread")
+            .setUnit("1")
+            .ofLongs()
+            .buildWithCallback(measurement -> measurement.record(pool.getQueue().size()));
+    return () -> {
+      activeThreads.close();
+      queueDepth.close();
+    };
+  }
+}
@@ -8,7 +8,6 @@ import io.opentelemetry.sdk.trace.samplers.Sampler;
 import io.opentelemetry.sdk.trace.samplers.SamplingResult;
 import io.opentelemetry.semconv.UrlAttributes;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -16,14 +15,25 @@ import java.util.List;
  * https://github.com/open-telemetry/opentelemetry-java-instrumentation/issues/1060#issuecomment-1711683848.
  * OpenTelemetry does not have a built-in way to exclude urls from sampling, so we have to implement
  * it ourselves.
+ *
+ * <p>Excluded urls may be exact paths, prefixes such as {@code /status/**}, or globs such as {@code
+ * /api/workspaces/*&#47;health}; see {@link UrlPatternMatcher}. Patterns are compiled once, so
+ * sampling decisions do not allocate.
  */
 public class ExcludingUrlSampler implements Sampler {
-  private final Collection<String> excludedUrls;
+  private final UrlPatternMatcher excludedUrls;
   private final Sampler delegate;
+  private final SamplerMetrics metrics;
 
   public ExcludingUrlSampler(Collection<String> excludedUrls, Sampler delegate) {
-    this.excludedUrls = excludedUrls;
+    this(excludedUrls, delegate, new SamplerMetrics());
+  }
+
+  public ExcludingUrlSampler(
+      Collection<String> excludedUrls, Sampler delegate, SamplerMetrics metrics) {
+    this.excludedUrls = new UrlPatternMatcher(excludedUrls);
     this.delegate = delegate;
+    this.metrics = metrics;
   }
 
   @Override
@@ -37,22 +47,23 @@ public class ExcludingUrlSampler implements Sampler {
     // name does not seem to be populated with the route at the time this is called
     // HTTP_TARGET seems to have the right information but that is deprecated
     // check URL_PATH to be forward compatible. JUST CHECK THEM ALL
-    var urlCandidates = new HashSet<String>();
-    urlCandidates.add(attributes.get(UrlAttributes.URL_PATH));
-    urlCandidates.add(attributes.get(UrlAttributes.URL_QUERY));
-    urlCandidates.add(name);
-    // removeAll below does not like nulls so remove any if they exist
-    urlCandidates.remove(null);
-
-    // removeAll returns true if urlCandidates was changed meaning it contained one of the urls to
-    // be excluded
-    return urlCandidates.removeAll(excludedUrls)
-        ? SamplingResult.drop()
-        : delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+    boolean excluded =
+        !excludedUrls.isEmpty()
+            && (excludedUrls.matches(attributes.get(UrlAttributes.URL_PATH))
+                || excludedUrls.matches(attributes.get(UrlAttributes.URL_QUERY))
+                || excludedUrls.matches(name));
+    if (excluded) {
+      metrics.record(SamplerMetrics.Outcome.DROPPED_EXCLUDED);
+      return SamplingResult.drop();
+    }
+    return delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
   }
 
   @Override
   public String getDescription() {
-    return delegate.getDescription() + " excluding urls [" + String.join(", ", excludedUrls) + "]";
+    return delegate.getDescription()
+        + " excluding urls ["
+        + String.join(", ", excludedUrls.getPatterns())
+        + "]";
   }
 }
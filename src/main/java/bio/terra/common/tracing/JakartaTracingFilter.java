@@ -1,5 +1,8 @@
 package bio.terra.common.tracing;
 
+import bio.terra.common.logging.RequestIdFilter;
+import bio.terra.common.opentelemetry.HttpBodySizeExtractor;
+import bio.terra.common.opentelemetry.HttpClientMetrics;
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
@@ -11,14 +14,22 @@ import jakarta.ws.rs.client.ClientRequestContext;
 import jakarta.ws.rs.client.ClientRequestFilter;
 import jakarta.ws.rs.client.ClientResponseContext;
 import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.ext.Provider;
 import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import org.jetbrains.annotations.Nullable;
 
-/** A filter to add tracing span around and headers to outgoing requests. */
+/**
+ * A filter to add tracing span around and headers to outgoing requests. The requestId of the
+ * inbound request being served, if any, is also passed on in the {@link
+ * RequestIdFilter#REQUEST_ID_HEADER} header.
+ *
+ * <p>Span names are the method, host and templated path (see {@link UrlTemplates}).
+ */
 @Provider
 public class JakartaTracingFilter implements ClientRequestFilter, ClientResponseFilter {
   private static final String OPENTELEMETRY_CONTEXT = "opentelemetry.context";
@@ -30,16 +41,46 @@ public class JakartaTracingFilter implements ClientRequestFilter, ClientResponse
   public JakartaTracingFilter(OpenTelemetry openTelemetry) {
     this.instrumenter =
         Instrumenter.<ClientRequestContext, ClientResponseContext>builder(
-                openTelemetry,
-                getClass().getName(),
-                request -> "%s %s".formatted(request.getMethod(), request.getUri().toString()))
+                openTelemetry, getClass().getName(), JakartaTracingFilter::spanName)
             .addAttributesExtractor(
                 HttpClientAttributesExtractor.create(new ClientAttributesExtractor()))
+            .addAttributesExtractor(
+                new HttpBodySizeExtractor<>(
+                    JakartaTracingFilter::requestBodySize,
+                    (request, response) -> response.getLength()))
+            .addOperationMetrics(HttpClientMetrics.get())
             .buildClientInstrumenter(SETTER);
   }
 
+  private static String spanName(ClientRequestContext requestContext) {
+    URI uri = requestContext.getUri();
+    String path = uri.getRawPath() == null ? "" : UrlTemplates.templatize(uri.getRawPath());
+    return requestContext.getMethod() + " " + uri.getHost() + path;
+  }
+
+  // The entity is serialized after the request filters run, so only a declared length is known.
+  private static long requestBodySize(ClientRequestContext requestContext) {
+    if (!requestContext.hasEntity()) {
+      return 0;
+    }
+    String contentLength = requestContext.getHeaderString(HttpHeaders.CONTENT_LENGTH);
+    if (contentLength == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(contentLength.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
   @Override
   public void filter(ClientRequestContext requestContext) throws IOException {
+    String requestId = RequestIdFilter.currentRequestId();
+    if (requestId != null
+        && !requestContext.getHeaders().containsKey(RequestIdFilter.REQUEST_ID_HEADER)) {
+      requestContext.getHeaders().add(RequestIdFilter.REQUEST_ID_HEADER, requestId);
+    }
     if (instrumenter.shouldStart(Context.current(), requestContext)) {
       var otelContext = instrumenter.start(Context.current(), requestContext);
       requestContext.setProperty(OPENTELEMETRY_CONTEXT, otelContext);
@@ -1,5 +1,8 @@
 package bio.terra.common.tracing;
 
+import bio.terra.common.logging.RequestIdFilter;
+import bio.terra.common.opentelemetry.HttpBodySizeExtractor;
+import bio.terra.common.opentelemetry.HttpClientMetrics;
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
@@ -8,98 +11,160 @@ import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
 import io.opentelemetry.instrumentation.api.semconv.http.HttpClientAttributesExtractor;
 import io.opentelemetry.instrumentation.api.semconv.http.HttpClientAttributesGetter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.Request;
+import okhttp3.RequestBody;
 import okhttp3.Response;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-/** An interceptor to add tracing span around and headers to outgoing requests. */
+/**
+ * An interceptor to add tracing span around and headers to outgoing requests. The requestId of the
+ * inbound request being served, if any, is also passed on in the {@link
+ * RequestIdFilter#REQUEST_ID_HEADER} header.
+ *
+ * <p>Span names are the method, host and templated path (see {@link UrlTemplates}), so that they
+ * don't carry ids or query strings.
+ */
 public class OkHttpClientTracingInterceptor implements Interceptor {
-  private static final TextMapSetter<Request.Builder> SETTER =
-      (carrier, key, value) -> carrier.header(key, value);
+  private static final TextMapSetter<OutgoingRequest> SETTER = OutgoingRequest::addHeader;
 
-  private final Instrumenter<Request.Builder, Response> instrumenter;
+  private final Instrumenter<OutgoingRequest, Response> instrumenter;
 
   public OkHttpClientTracingInterceptor(OpenTelemetry openTelemetry) {
     this.instrumenter =
-        Instrumenter.<Request.Builder, Response>builder(
-                openTelemetry,
-                getClass().getName(),
-                request -> {
-                  var builtReq = request.build();
-                  return "%s %s".formatted(builtReq.method(), builtReq.url());
-                })
+        Instrumenter.<OutgoingRequest, Response>builder(
+                openTelemetry, getClass().getName(), OkHttpClientTracingInterceptor::spanName)
             .addAttributesExtractor(
                 HttpClientAttributesExtractor.create(new ClientAttributesExtractor()))
+            .addAttributesExtractor(
+                new HttpBodySizeExtractor<>(
+                    OkHttpClientTracingInterceptor::requestBodySize,
+                    (request, response) ->
+                        response.body() == null ? -1 : response.body().contentLength()))
+            .addOperationMetrics(HttpClientMetrics.get())
             .buildClientInstrumenter(SETTER);
   }
 
   @NotNull
   @Override
   public Response intercept(Chain chain) throws IOException {
-    // we have to use a request builder because the request itself is immutable
-    // the instrumenter methods modify the request builder in place, adding headers
-    var requestBuilder = chain.request().newBuilder();
-    if (instrumenter.shouldStart(Context.current(), requestBuilder)) {
-      Context context = instrumenter.start(Context.current(), requestBuilder);
+    var request = new OutgoingRequest(chain.request());
+    String requestId = RequestIdFilter.currentRequestId();
+    if (requestId != null && request.request.header(RequestIdFilter.REQUEST_ID_HEADER) == null) {
+      request.addHeader(RequestIdFilter.REQUEST_ID_HEADER, requestId);
+    }
+    if (instrumenter.shouldStart(Context.current(), request)) {
+      Context context = instrumenter.start(Context.current(), request);
       try (Scope ignored = context.makeCurrent()) {
-        var response = chain.proceed(requestBuilder.build());
-        instrumenter.end(context, requestBuilder, response, null);
+        var response = chain.proceed(request.build());
+        instrumenter.end(context, request, response, null);
         return response;
       } catch (Exception e) {
-        instrumenter.end(context, requestBuilder, null, e);
+        instrumenter.end(context, request, null, e);
         throw e;
       }
     } else {
-      return chain.proceed(chain.request());
+      return chain.proceed(request.build());
+    }
+  }
+
+  private static String spanName(OutgoingRequest request) {
+    HttpUrl url = request.request.url();
+    return request.request.method() + " " + url.host() + UrlTemplates.templatize(url.encodedPath());
+  }
+
+  private static long requestBodySize(OutgoingRequest request) {
+    RequestBody body = request.request.body();
+    if (body == null) {
+      return 0;
+    }
+    try {
+      return body.contentLength();
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * The request being sent, plus the headers to add to it. OkHttp requests are immutable, so we
+   * read attributes from the original request and only build a new one, once, if headers were
+   * added.
+   */
+  static final class OutgoingRequest {
+    private final Request request;
+    private List<String> addedHeaders;
+
+    OutgoingRequest(Request request) {
+      this.request = request;
+    }
+
+    private void addHeader(String name, String value) {
+      if (addedHeaders == null) {
+        addedHeaders = new ArrayList<>(4);
+      }
+      addedHeaders.add(name);
+      addedHeaders.add(value);
+    }
+
+    Request build() {
+      if (addedHeaders == null) {
+        return request;
+      }
+      Request.Builder builder = request.newBuilder();
+      for (int i = 0; i < addedHeaders.size(); i += 2) {
+        builder.header(addedHeaders.get(i), addedHeaders.get(i + 1));
+      }
+      return builder.build();
     }
   }
 
   private static class ClientAttributesExtractor
-      implements HttpClientAttributesGetter<Request.Builder, Response> {
+      implements HttpClientAttributesGetter<OutgoingRequest, Response> {
 
     @Nullable
     @Override
-    public String getHttpRequestMethod(Request.Builder builder) {
-      return builder.build().method();
+    public String getHttpRequestMethod(OutgoingRequest request) {
+      return request.request.method();
     }
 
     @Override
-    public List<String> getHttpRequestHeader(Request.Builder builder, String name) {
-      return builder.build().headers(name);
+    public List<String> getHttpRequestHeader(OutgoingRequest request, String name) {
+      return request.request.headers(name);
     }
 
     @Nullable
     @Override
     public Integer getHttpResponseStatusCode(
-        Request.Builder builder, Response response, @Nullable Throwable error) {
+        OutgoingRequest request, Response response, @Nullable Throwable error) {
       return response.code();
     }
 
     @Override
     public List<String> getHttpResponseHeader(
-        Request.Builder builder, Response response, String name) {
+        OutgoingRequest request, Response response, String name) {
       return response.headers(name);
     }
 
     @Nullable
     @Override
-    public String getUrlFull(Request.Builder builder) {
-      return builder.build().url().toString();
+    public String getUrlFull(OutgoingRequest request) {
+      return request.request.url().toString();
     }
 
     @Nullable
     @Override
-    public String getServerAddress(Request.Builder builder) {
-      return builder.build().url().host();
+    public String getServerAddress(OutgoingRequest request) {
+      return request.request.url().host();
     }
 
     @Nullable
     @Override
-    public Integer getServerPort(Request.Builder builder) {
-      return builder.build().url().port();
+    public Integer getServerPort(OutgoingRequest request) {
+      return request.request.url().port();
     }
   }
 }
@@ -0,0 +1,50 @@
+package bio.terra.common.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.util.List;
+
+/**
+ * Sampler that delegates to another sampler which can be replaced at runtime, e.g. to raise the
+ * sampling ratio during an incident. The tracer provider is built once, so it keeps this sampler
+ * and we swap what it delegates to.
+ *
+ * <p>Each sampling decision reads the delegate with a single volatile read, so the hot path takes
+ * no locks, and a swap takes effect atomically for all spans started after it.
+ */
+public class ReconfigurableSampler implements Sampler {
+  private volatile Sampler delegate;
+
+  public ReconfigurableSampler(Sampler delegate) {
+    this.delegate = delegate;
+  }
+
+  /** Replaces the sampler which makes the decisions for spans started from now on. */
+  public void setDelegate(Sampler delegate) {
+    this.delegate = delegate;
+  }
+
+  public Sampler getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public SamplingResult shouldSample(
+      Context parentContext,
+      String traceId,
+      String name,
+      SpanKind spanKind,
+      Attributes attributes,
+      List<LinkData> parentLinks) {
+    return delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+  }
+
+  @Override
+  public String getDescription() {
+    return "Reconfigurable{" + delegate.getDescription() + "}";
+  }
+}
@@ -0,0 +1,41 @@
+package bio.terra.common.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.util.List;
+
+/**
+ * Sampler that records the spans its delegate would drop, without sampling them. Unsampled spans
+ * are not exported by the usual span processors, but are still passed to {@link
+ * TailSamplingSpanProcessor}, which can then export the interesting ones after the fact.
+ */
+public class RecordUnsampledSampler implements Sampler {
+  private final Sampler delegate;
+
+  public RecordUnsampledSampler(Sampler delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public SamplingResult shouldSample(
+      Context parentContext,
+      String traceId,
+      String name,
+      SpanKind spanKind,
+      Attributes attributes,
+      List<LinkData> parentLinks) {
+    SamplingResult result =
+        delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+    return result.getDecision() == SamplingDecision.DROP ? SamplingResult.recordOnly() : result;
+  }
+
+  @Override
+  public String getDescription() {
+    return "RecordUnsampled{" + delegate.getDescription() + "}";
+  }
+}
@@ -0,0 +1,147 @@
+package bio.terra.common.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import io.opentelemetry.semconv.HttpAttributes;
+import io.opentelemetry.semconv.UrlAttributes;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Sampler for root spans which picks a sampling ratio by route, and caps the number of traces
+ * sampled per second across all routes.
+ *
+ * <p>Routes are checked in order against the url path, the http route and the span name, using the
+ * patterns supported by {@link UrlPatternMatcher}; the first route that matches decides the ratio.
+ * Spans that match no route use the default ratio. This lets services keep a low ratio for hot,
+ * uninteresting endpoints while sampling rare ones more often.
+ *
+ * <p>Traces which the ratio would sample are then subject to a token bucket that refills at {@code
+ * maxTracesPerSecond} and holds up to one second's worth of traces, so bursts are smoothed rather
+ * than cut off at the start of each second. A non-positive limit disables the cap.
+ *
+ * <p>This sampler is meant for root spans; wrap it in {@link Sampler#parentBased(Sampler)} so that
+ * child spans follow their parent's decision.
+ */
+public class RouteSampler implements Sampler {
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  /** A sampling ratio for spans matching a url pattern. */
+  public record Route(String pattern, double ratio) {}
+
+  private final List<Route> routes;
+  private final UrlPatternMatcher[] routeMatchers;
+  private final Sampler[] routeSamplers;
+  private final Sampler defaultSampler;
+  private final double maxTracesPerSecond;
+  private final SamplerMetrics metrics;
+  private final LongSupplier nanoClock;
+
+  // Token bucket state, kept as the time at which the bucket will be full again ("theoretical
+  // arrival time" in GCRA terms). Each sampled trace pushes it back by intervalNanos.
+  private final long intervalNanos;
+  private final long burstNanos;
+  private final AtomicLong fullAt;
+
+  public RouteSampler(
+      List<Route> routes, double defaultRatio, double maxTracesPerSecond, SamplerMetrics metrics) {
+    this(routes, defaultRatio, maxTracesPerSecond, metrics, System::nanoTime);
+  }
+
+  RouteSampler(
+      List<Route> routes,
+      double defaultRatio,
+      double maxTracesPerSecond,
+      SamplerMetrics metrics,
+      LongSupplier nanoClock) {
+    this.routes = List.copyOf(routes);
+    this.routeMatchers = new UrlPatternMatcher[this.routes.size()];
+    this.routeSamplers = new Sampler[this.routes.size()];
+    for (int i = 0; i < this.routes.size(); i++) {
+      Route route = this.routes.get(i);
+      routeMatchers[i] = new UrlPatternMatcher(List.of(route.pattern()));
+      routeSamplers[i] = Sampler.traceIdRatioBased(route.ratio());
+    }
+    this.defaultSampler = Sampler.traceIdRatioBased(defaultRatio);
+    this.maxTracesPerSecond = maxTracesPerSecond;
+    this.metrics = metrics;
+    this.nanoClock = nanoClock;
+    this.intervalNanos =
+        maxTracesPerSecond > 0 ? Math.max(1, (long) (NANOS_PER_SECOND / maxTracesPerSecond)) : 0;
+    this.burstNanos = Math.max(NANOS_PER_SECOND, intervalNanos);
+    this.fullAt = new AtomicLong(nanoClock.getAsLong());
+  }
+
+  @Override
+  public SamplingResult shouldSample(
+      Context parentContext,
+      String traceId,
+      String name,
+      SpanKind spanKind,
+      Attributes attributes,
+      List<LinkData> parentLinks) {
+    SamplingResult result =
+        samplerFor(name, attributes)
+            .shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+    if (result.getDecision() != SamplingDecision.RECORD_AND_SAMPLE) {
+      metrics.record(SamplerMetrics.Outcome.DROPPED_BY_RATIO);
+      return result;
+    }
+    if (!tryAcquire()) {
+      metrics.record(SamplerMetrics.Outcome.DROPPED_BY_RATE_LIMIT);
+      return SamplingResult.drop();
+    }
+    metrics.record(SamplerMetrics.Outcome.SAMPLED);
+    return result;
+  }
+
+  private Sampler samplerFor(String name, Attributes attributes) {
+    if (routeMatchers.length == 0) {
+      return defaultSampler;
+    }
+    String urlPath = attributes.get(UrlAttributes.URL_PATH);
+    String httpRoute = attributes.get(HttpAttributes.HTTP_ROUTE);
+    for (int i = 0; i < routeMatchers.length; i++) {
+      UrlPatternMatcher matcher = routeMatchers[i];
+      if (matcher.matches(urlPath) || matcher.matches(httpRoute) || matcher.matches(name)) {
+        return routeSamplers[i];
+      }
+    }
+    return defaultSampler;
+  }
+
+  private boolean tryAcquire() {
+    if (intervalNanos == 0) {
+      return true;
+    }
+    while (true) {
+      long now = nanoClock.getAsLong();
+      long current = fullAt.get();
+      long next = Math.max(current, now) + intervalNanos;
+      if (next - now > burstNanos) {
+        return false;
+      }
+      if (fullAt.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public String getDescription() {
+    return String.format(
+        "RouteSampler{default=%s, routes=[%s], maxTracesPerSecond=%s}",
+        defaultSampler.getDescription(),
+        routes.stream()
+            .map(route -> route.pattern() + "=" + route.ratio())
+            .collect(Collectors.joining(", ")),
+        maxTracesPerSecond > 0 ? maxTracesPerSecond : "unlimited");
+  }
+}
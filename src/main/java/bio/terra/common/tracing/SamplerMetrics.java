@@ -0,0 +1,77 @@
+package bio.terra.common.tracing;
+
+import static bio.terra.common.opentelemetry.MetricNames.METRICS_PREFIX;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.ObservableLongCounter;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the sampling decisions made by {@link ExcludingUrlSampler} and {@link RouteSampler}, by
+ * decision and by the reason for it.
+ *
+ * <p>The samplers are built while the OpenTelemetry SDK itself is being built, so they can't use
+ * its meters directly. Instead they record into {@link LongAdder}s, and {@link
+ * #registerInstruments} exposes the counts as an asynchronous counter once the SDK exists.
+ */
+public final class SamplerMetrics {
+  public static final String DECISIONS_METER_NAME = METRICS_PREFIX + "/tracing/sampler/decisions";
+  public static final AttributeKey<String> KEY_DECISION = AttributeKey.stringKey("decision");
+  public static final AttributeKey<String> KEY_REASON = AttributeKey.stringKey("reason");
+
+  /** The outcomes we count; each is reported as one decision and reason pair. */
+  public enum Outcome {
+    /** A root span was sampled by its route's sampling ratio. */
+    SAMPLED("sampled", "ratio"),
+    /** A root span was dropped by its route's sampling ratio. */
+    DROPPED_BY_RATIO("dropped", "ratio"),
+    /** A root span would have been sampled, but the traces-per-second cap was reached. */
+    DROPPED_BY_RATE_LIMIT("dropped", "rate_limit"),
+    /** A span was dropped because it matched one of the excluded urls. */
+    DROPPED_EXCLUDED("dropped", "excluded");
+
+    private final Attributes attributes;
+
+    Outcome(String decision, String reason) {
+      this.attributes = Attributes.of(KEY_DECISION, decision, KEY_REASON, reason);
+    }
+  }
+
+  private final LongAdder[] counts = new LongAdder[Outcome.values().length];
+
+  public SamplerMetrics() {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  void record(Outcome outcome) {
+    counts[outcome.ordinal()].increment();
+  }
+
+  long count(Outcome outcome) {
+    return counts[outcome.ordinal()].sum();
+  }
+
+  /**
+   * Exposes the counts as an OpenTelemetry counter. Closing the returned handle unregisters it,
+   * e.g. when the Spring context which owns the OpenTelemetry instance shuts down.
+   */
+  public AutoCloseable registerInstruments(OpenTelemetry openTelemetry) {
+    ObservableLongCounter decisions =
+        openTelemetry
+            .getMeter(SamplerMetrics.class.getName())
+            .counterBuilder(DECISIONS_METER_NAME)
+            .setDescription("Number of trace sampling decisions, by decision and reason")
+            .setUnit("1")
+            .buildWithCallback(
+                measurement -> {
+                  for (Outcome outcome : Outcome.values()) {
+                    measurement.record(count(outcome), outcome.attributes);
+                  }
+                });
+    return decisions::close;
+  }
+}
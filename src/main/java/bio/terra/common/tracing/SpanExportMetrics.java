@@ -0,0 +1,67 @@
+package bio.terra.common.tracing;
+
+import static bio.terra.common.opentelemetry.MetricNames.METRICS_PREFIX;
+
+import bio.terra.common.opentelemetry.ExportMetrics;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.Collection;
+
+/**
+ * Counts the spans exported or failed to export, and times each export call, for the exporter
+ * returned from {@link #meter(SpanExporter)}. The SDK's {@code BatchSpanProcessor} in front of it
+ * reports its own queue size and processed and dropped span counts.
+ *
+ * <p>Span exporters are built before the SDK's meter provider exists, so nothing is reported until
+ * {@link #registerInstruments(OpenTelemetry)}.
+ */
+public class SpanExportMetrics {
+  public static final String SPANS_METER_NAME = METRICS_PREFIX + "/tracing/export/spans";
+  public static final String LATENCY_METER_NAME = METRICS_PREFIX + "/tracing/export/latency";
+
+  private final ExportMetrics exportMetrics =
+      new ExportMetrics("spans", SPANS_METER_NAME, LATENCY_METER_NAME);
+
+  /** Wraps an exporter to count and time its exports. */
+  public SpanExporter meter(SpanExporter exporter) {
+    return new MeteredSpanExporter(exporter);
+  }
+
+  public long exportedSpans() {
+    return exportMetrics.exported();
+  }
+
+  public long failedSpans() {
+    return exportMetrics.failed();
+  }
+
+  /** Exposes the export metrics as OpenTelemetry instruments, until the handle is closed. */
+  public AutoCloseable registerInstruments(OpenTelemetry openTelemetry) {
+    return exportMetrics.registerInstruments(openTelemetry, SpanExportMetrics.class.getName());
+  }
+
+  private class MeteredSpanExporter implements SpanExporter {
+    private final SpanExporter delegate;
+
+    MeteredSpanExporter(SpanExporter delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+      return exportMetrics.export(spans.size(), () -> delegate.export(spans));
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+      return delegate.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      return delegate.shutdown();
+    }
+  }
+}
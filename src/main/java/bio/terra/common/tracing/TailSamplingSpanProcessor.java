@@ -0,0 +1,431 @@
+package bio.terra.common.tracing;
+
+import static bio.terra.common.opentelemetry.MetricNames.METRICS_PREFIX;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link SpanProcessor} which decides whether to export a trace once the trace is complete,
+ * rather than when it starts.
+ *
+ * <p>The head sampler keeps recording traces it doesn't sample (see {@link
+ * RecordUnsampledSampler}). This processor buffers the spans of those traces by trace ID until the
+ * local root span ends, or until {@code decisionWait} has passed, and then exports the whole trace
+ * if any span ended with an error, any span took at least {@code latencyThreshold}, or it is picked
+ * for a random baseline of {@code baselineRatio}. Spans which end after their trace was decided
+ * follow that decision, as long as the decision is still remembered. Spans the head sampler did
+ * sample are ignored here, as the regular span processors export them.
+ *
+ * <p>Memory is bounded by {@code maxBufferedSpans} across all traces, counting both the spans of
+ * undecided traces and those waiting for export, and by {@code maxSpansPerTrace} for each trace.
+ * When the buffer is full, the oldest undecided traces are evicted without being exported, and
+ * spans of exported traces which don't fit are dropped. Decisions, evictions and the buffer size
+ * are reported by {@link #registerInstruments(OpenTelemetry)}.
+ *
+ * <p>Spans are exported from a single sweeper thread, including on {@link #forceFlush()}, so that
+ * the exporter is never called concurrently.
+ */
+public class TailSamplingSpanProcessor implements SpanProcessor {
+  private static final Logger logger = LoggerFactory.getLogger(TailSamplingSpanProcessor.class);
+
+  public static final String TRACES_METER_NAME = METRICS_PREFIX + "/tracing/tail_sampling/traces";
+  public static final String EVICTED_SPANS_METER_NAME =
+      METRICS_PREFIX + "/tracing/tail_sampling/evicted_spans";
+  public static final String BUFFERED_SPANS_METER_NAME =
+      METRICS_PREFIX + "/tracing/tail_sampling/buffered_spans";
+  public static final AttributeKey<String> KEY_OUTCOME = AttributeKey.stringKey("outcome");
+
+  private static final Duration SWEEP_INTERVAL = Duration.ofSeconds(1);
+  private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+  /** What became of a buffered trace. */
+  enum Outcome {
+    EXPORTED_ERROR("error"),
+    EXPORTED_LATENCY("latency"),
+    EXPORTED_BASELINE("baseline"),
+    DROPPED("dropped"),
+    EVICTED("evicted");
+
+    private final Attributes attributes;
+
+    Outcome(String name) {
+      this.attributes = Attributes.of(KEY_OUTCOME, name);
+    }
+  }
+
+  private final SpanExporter exporter;
+  private final long decisionWaitNanos;
+  private final long latencyThresholdNanos;
+  private final double baselineRatio;
+  private final int maxBufferedSpans;
+  private final int maxSpansPerTrace;
+  private final LongSupplier nanoClock;
+  private final ScheduledExecutorService sweeper;
+
+  // Guarded by this. Insertion order is arrival order, so the eldest entry is the oldest trace.
+  private final LinkedHashMap<String, TraceBuffer> traces = new LinkedHashMap<>();
+  private final LinkedHashMap<String, Boolean> decisions;
+  private List<SpanData> toExport = new ArrayList<>();
+  private int bufferedSpans;
+
+  private final LongAdder[] traceCounts = new LongAdder[Outcome.values().length];
+  private final LongAdder evictedSpans = new LongAdder();
+
+  public TailSamplingSpanProcessor(
+      SpanExporter exporter,
+      Duration decisionWait,
+      Duration latencyThreshold,
+      double baselineRatio,
+      int maxBufferedSpans,
+      int maxSpansPerTrace) {
+    this(
+        exporter,
+        decisionWait,
+        latencyThreshold,
+        baselineRatio,
+        maxBufferedSpans,
+        maxSpansPerTrace,
+        System::nanoTime,
+        true);
+  }
+
+  TailSamplingSpanProcessor(
+      SpanExporter exporter,
+      Duration decisionWait,
+      Duration latencyThreshold,
+      double baselineRatio,
+      int maxBufferedSpans,
+      int maxSpansPerTrace,
+      LongSupplier nanoClock,
+      boolean startSweeper) {
+    this.exporter = exporter;
+    this.decisionWaitNanos = decisionWait.toNanos();
+    this.latencyThresholdNanos = latencyThreshold.toNanos();
+    this.baselineRatio = baselineRatio;
+    this.maxBufferedSpans = maxBufferedSpans;
+    this.maxSpansPerTrace = maxSpansPerTrace;
+    this.nanoClock = nanoClock;
+    // Remember about as many decisions as we buffer spans, to catch spans ending late.
+    this.decisions =
+        new LinkedHashMap<>() {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > maxBufferedSpans;
+          }
+        };
+    for (int i = 0; i < traceCounts.length; i++) {
+      traceCounts[i] = new LongAdder();
+    }
+    if (startSweeper) {
+      sweeper =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, "terra-tail-sampling");
+                thread.setDaemon(true);
+                return thread;
+              });
+      sweeper.scheduleWithFixedDelay(
+          this::sweepSafely,
+          SWEEP_INTERVAL.toMillis(),
+          SWEEP_INTERVAL.toMillis(),
+          TimeUnit.MILLISECONDS);
+    } else {
+      sweeper = null;
+    }
+  }
+
+  @Override
+  public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+  @Override
+  public boolean isStartRequired() {
+    return false;
+  }
+
+  @Override
+  public void onEnd(ReadableSpan span) {
+    SpanContext spanContext = span.getSpanContext();
+    if (spanContext.isSampled()) {
+      return;
+    }
+    SpanData spanData = span.toSpanData();
+    SpanContext parent = span.getParentSpanContext();
+    boolean localRoot = !parent.isValid() || parent.isRemote();
+    boolean error = spanData.getStatus().getStatusCode() == StatusCode.ERROR;
+    boolean slow = span.getLatencyNanos() >= latencyThresholdNanos;
+    String traceId = spanContext.getTraceId();
+    synchronized (this) {
+      Boolean exported = decisions.get(traceId);
+      if (exported != null) {
+        if (exported) {
+          addToExport(spanData);
+        }
+        return;
+      }
+      TraceBuffer trace = traces.computeIfAbsent(traceId, id -> new TraceBuffer(nanoClock));
+      if (trace.spans.size() < maxSpansPerTrace) {
+        trace.spans.add(spanData);
+        bufferedSpans++;
+      } else {
+        evictedSpans.increment();
+      }
+      trace.error |= error;
+      trace.slow |= slow;
+      if (localRoot) {
+        traces.remove(traceId);
+        bufferedSpans -= trace.spans.size();
+        decide(traceId, trace);
+      } else {
+        evictOldestWhileFull();
+      }
+    }
+  }
+
+  @Override
+  public boolean isEndRequired() {
+    return true;
+  }
+
+  // Must hold the lock.
+  private void decide(String traceId, TraceBuffer trace) {
+    Outcome outcome;
+    if (trace.error) {
+      outcome = Outcome.EXPORTED_ERROR;
+    } else if (trace.slow) {
+      outcome = Outcome.EXPORTED_LATENCY;
+    } else if (baselineRatio > 0 && ThreadLocalRandom.current().nextDouble() < baselineRatio) {
+      outcome = Outcome.EXPORTED_BASELINE;
+    } else {
+      outcome = Outcome.DROPPED;
+    }
+    traceCounts[outcome.ordinal()].increment();
+    boolean exported = outcome != Outcome.DROPPED;
+    decisions.put(traceId, exported);
+    if (exported) {
+      trace.spans.forEach(this::addToExport);
+    }
+  }
+
+  // Must hold the lock.
+  private void addToExport(SpanData spanData) {
+    // Spans waiting for export count against the same cap as buffered ones.
+    if (bufferedSpans + toExport.size() >= maxBufferedSpans) {
+      evictedSpans.increment();
+      return;
+    }
+    toExport.add(spanData);
+  }
+
+  // Must hold the lock.
+  private void evictOldestWhileFull() {
+    Iterator<Map.Entry<String, TraceBuffer>> oldest = traces.entrySet().iterator();
+    while (bufferedSpans + toExport.size() > maxBufferedSpans && oldest.hasNext()) {
+      Map.Entry<String, TraceBuffer> entry = oldest.next();
+      TraceBuffer trace = entry.getValue();
+      oldest.remove();
+      // Drop the rest of the trace too, rather than buffering a partial trace again.
+      decisions.put(entry.getKey(), false);
+      bufferedSpans -= trace.spans.size();
+      evictedSpans.add(trace.spans.size());
+      traceCounts[Outcome.EVICTED.ordinal()].increment();
+    }
+  }
+
+  /**
+   * Decides traces which have waited too long for their root span, and exports pending spans. Runs
+   * on the sweeper thread, or the caller's in tests.
+   */
+  CompletableResultCode sweep() {
+    List<SpanData> batch;
+    synchronized (this) {
+      long now = nanoClock.getAsLong();
+      var iterator = traces.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<String, TraceBuffer> entry = iterator.next();
+        if (now - entry.getValue().firstSeenNanos < decisionWaitNanos) {
+          // Traces are in arrival order, so the rest are younger still.
+          break;
+        }
+        iterator.remove();
+        bufferedSpans -= entry.getValue().spans.size();
+        decide(entry.getKey(), entry.getValue());
+      }
+      batch = takeExportBatch();
+    }
+    return batch.isEmpty() ? CompletableResultCode.ofSuccess() : exporter.export(batch);
+  }
+
+  private void sweepSafely() {
+    try {
+      CompletableResultCode result = sweep();
+      result.whenComplete(
+          () -> {
+            if (!result.isSuccess()) {
+              logger.warn("Failed to export tail sampled spans", result.getFailureThrowable());
+            }
+          });
+    } catch (RuntimeException e) {
+      logger.warn("Tail sampling sweep failed", e);
+    }
+  }
+
+  // Must hold the lock.
+  private List<SpanData> takeExportBatch() {
+    List<SpanData> batch = toExport;
+    toExport = new ArrayList<>();
+    return batch;
+  }
+
+  /** Exports pending spans on the sweeper thread, so as not to race with a sweep's export. */
+  @Override
+  public CompletableResultCode forceFlush() {
+    if (sweeper == null) {
+      return flush();
+    }
+    CompletableResultCode result = new CompletableResultCode();
+    try {
+      sweeper.execute(
+          () -> {
+            try {
+              CompletableResultCode flushed = flush();
+              flushed.whenComplete(
+                  () -> {
+                    if (flushed.isSuccess()) {
+                      result.succeed();
+                    } else {
+                      result.fail();
+                    }
+                  });
+            } catch (RuntimeException e) {
+              logger.warn("Tail sampling flush failed", e);
+              result.fail();
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // Shut down; shutdown() exported whatever was pending.
+      return CompletableResultCode.ofSuccess();
+    }
+    return result;
+  }
+
+  private CompletableResultCode flush() {
+    List<SpanData> batch;
+    synchronized (this) {
+      batch = takeExportBatch();
+    }
+    CompletableResultCode exported =
+        batch.isEmpty() ? CompletableResultCode.ofSuccess() : exporter.export(batch);
+    return CompletableResultCode.ofAll(List.of(exported, exporter.flush()));
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    if (sweeper != null) {
+      // Let a running sweep or flush finish its export before exporting the rest from here.
+      sweeper.shutdown();
+      try {
+        if (!sweeper.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+          logger.warn("Tail sampling sweeper did not stop in time");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    List<SpanData> batch;
+    synchronized (this) {
+      // Decide whatever is still buffered, so errors seen so far are not lost.
+      traces.forEach(this::decide);
+      traces.clear();
+      bufferedSpans = 0;
+      batch = takeExportBatch();
+    }
+    if (!batch.isEmpty()) {
+      exporter.export(batch).join(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    return exporter.shutdown();
+  }
+
+  long count(Outcome outcome) {
+    return traceCounts[outcome.ordinal()].sum();
+  }
+
+  /** Returns the number of spans held, whether their trace is undecided or waiting for export. */
+  synchronized int bufferedSpans() {
+    return bufferedSpans + toExport.size();
+  }
+
+  /**
+   * Exposes the tail sampling decisions, evicted spans and buffered spans as OpenTelemetry
+   * instruments. Closing the returned handle unregisters them.
+   */
+  public AutoCloseable registerInstruments(OpenTelemetry openTelemetry) {
+    Meter meter = openTelemetry.getMeter(TailSamplingSpanProcessor.class.getName());
+    var traces =
+        meter
+            .counterBuilder(TRACES_METER_NAME)
+            .setDescription("Number of traces decided by tail sampling, by outcome")
+            .setUnit("1")
+            .buildWithCallback(
+                measurement -> {
+                  for (Outcome outcome : Outcome.values()) {
+                    measurement.record(count(outcome), outcome.attributes);
+                  }
+                });
+    var evicted =
+        meter
+            .counterBuilder(EVICTED_SPANS_METER_NAME)
+            .setDescription("Number of spans dropped by tail sampling because its buffer was full")
+            .setUnit("1")
+            .buildWithCallback(measurement -> measurement.record(evictedSpans.sum()));
+    var buffered =
+        meter
+            .gaugeBuilder(BUFFERED_SPANS_METER_NAME)
+            .ofLongs()
+            .setDescription("Number of spans buffered for tail sampling")
+            .setUnit("1")
+            .buildWithCallback(measurement -> measurement.record(bufferedSpans()));
+    return () -> {
+      traces.close();
+      evicted.close();
+      buffered.close();
+    };
+  }
+
+  private static final class TraceBuffer {
+    private final long firstSeenNanos;
+    private final List<SpanData> spans = new ArrayList<>();
+    private boolean error;
+    private boolean slow;
+
+    TraceBuffer(LongSupplier nanoClock) {
+      this.firstSeenNanos = nanoClock.getAsLong();
+    }
+  }
+}
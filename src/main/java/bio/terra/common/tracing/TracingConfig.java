@@ -1,10 +1,20 @@
 package bio.terra.common.tracing;
 
+import bio.terra.common.opentelemetry.SpanExportProperties;
+import bio.terra.common.opentelemetry.TailSamplingProperties;
 import com.google.cloud.opentelemetry.trace.TraceExporter;
-import io.opentelemetry.sdk.trace.SpanProcessor;
-import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.autoconfigure.spi.AutoConfigurationCustomizerProvider;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.traces.ConfigurableSpanExporterProvider;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -16,18 +26,125 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 @ComponentScan(basePackages = "bio.terra.common.opentelemetry")
 public class TracingConfig implements WebMvcConfigurer {
+  /** The otel.traces.exporter name of the Google Cloud Trace exporter. */
+  public static final String GOOGLE_TRACE_EXPORTER = "terra-google-cloud-trace";
+
   private final Logger logger = LoggerFactory.getLogger(TracingConfig.class);
 
-  /** Creates OpenTelemetry SpanProcessor that exports spans to Google Cloud Trace */
+  /** Counts and times the spans exported to Google Cloud Trace. */
+  @Bean
+  @ConditionalOnProperty(
+      name = "terra.common.google.tracing.enabled",
+      havingValue = "true",
+      matchIfMissing = true)
+  public SpanExportMetrics spanExportMetrics() {
+    return new SpanExportMetrics();
+  }
+
+  /**
+   * Lets the OpenTelemetry SDK autoconfiguration build the exporter for Google Cloud Trace, under
+   * the name {@value #GOOGLE_TRACE_EXPORTER}, metered by {@link SpanExportMetrics}.
+   */
   @Bean
   @ConditionalOnProperty(
       name = "terra.common.google.tracing.enabled",
       havingValue = "true",
       matchIfMissing = true)
-  public SpanProcessor googleTracerProvider() {
+  public ConfigurableSpanExporterProvider googleTraceExporterProvider(
+      SpanExportMetrics spanExportMetrics) {
+    return new ConfigurableSpanExporterProvider() {
+      @Override
+      public SpanExporter createExporter(ConfigProperties config) {
+        return spanExportMetrics.meter(TraceExporter.createWithDefaultConfiguration());
+      }
+
+      @Override
+      public String getName() {
+        return GOOGLE_TRACE_EXPORTER;
+      }
+    };
+  }
+
+  /**
+   * Adds the Google Cloud Trace exporter to the autoconfigured span exporters, and applies the
+   * {@link SpanExportProperties} to the SDK's {@code BatchSpanProcessor} through the standard
+   * otel.bsp.* settings. The processor reports its queue size and the number of dropped spans
+   * through the SDK's meter provider.
+   */
+  @Bean
+  @ConditionalOnProperty(
+      name = "terra.common.google.tracing.enabled",
+      havingValue = "true",
+      matchIfMissing = true)
+  public AutoConfigurationCustomizerProvider googleTraceExportCustomizer(
+      SpanExportProperties spanExportProperties) {
     logger.info("GCP tracing enabled.");
-    var traceExporter = TraceExporter.createWithDefaultConfiguration();
-    return BatchSpanProcessor.builder(traceExporter).build();
+    return customizer ->
+        customizer.addPropertiesCustomizer(
+            config -> {
+              List<String> exporters =
+                  new ArrayList<>(config.getList("otel.traces.exporter", List.of("otlp")));
+              exporters.remove("none");
+              if (!exporters.contains(GOOGLE_TRACE_EXPORTER)) {
+                exporters.add(GOOGLE_TRACE_EXPORTER);
+              }
+              return Map.of(
+                  "otel.traces.exporter",
+                  String.join(",", exporters),
+                  "otel.bsp.max.queue.size",
+                  String.valueOf(spanExportProperties.maxQueueSize()),
+                  "otel.bsp.max.export.batch.size",
+                  String.valueOf(spanExportProperties.maxExportBatchSize()),
+                  "otel.bsp.schedule.delay",
+                  spanExportProperties.scheduleDelay().toMillis() + "ms",
+                  "otel.bsp.export.timeout",
+                  spanExportProperties.exportTimeout().toMillis() + "ms");
+            });
+  }
+
+  /** Exposes the span export metrics, until the application context closes. */
+  @Bean(destroyMethod = "close")
+  public AutoCloseable spanExportInstruments(
+      ObjectProvider<SpanExportMetrics> spanExportMetrics,
+      ObjectProvider<OpenTelemetry> openTelemetry) {
+    SpanExportMetrics metrics = spanExportMetrics.getIfAvailable();
+    OpenTelemetry available = openTelemetry.getIfAvailable();
+    return metrics == null || available == null
+        ? () -> {}
+        : metrics.registerInstruments(available);
+  }
+
+  /**
+   * Creates a tail sampling SpanProcessor that exports slow and failed traces to Google Cloud
+   * Trace, even when the head sampler did not sample them. Its exports are counted by {@link
+   * SpanExportMetrics} along with those of the regular span processor.
+   */
+  @Bean
+  @ConditionalOnExpression(
+      "${terra.common.google.tracing.enabled:true}"
+          + " and ${terra.common.tracing.tail-sampling.enabled:false}")
+  public TailSamplingSpanProcessor googleTailSamplingSpanProcessor(
+      TailSamplingProperties tailSamplingProperties, SpanExportMetrics spanExportMetrics) {
+    logger.info("GCP tail sampling enabled.");
+    return new TailSamplingSpanProcessor(
+        spanExportMetrics.meter(TraceExporter.createWithDefaultConfiguration()),
+        tailSamplingProperties.decisionWait(),
+        tailSamplingProperties.latencyThreshold(),
+        tailSamplingProperties.baselineRatio(),
+        tailSamplingProperties.maxBufferedSpans(),
+        tailSamplingProperties.maxSpansPerTrace());
+  }
+
+  /** Exposes the tail sampling metrics, until the application context closes. */
+  @Bean(destroyMethod = "close")
+  public AutoCloseable tailSamplingInstruments(
+      ObjectProvider<TailSamplingSpanProcessor> processors,
+      ObjectProvider<OpenTelemetry> openTelemetry) {
+    TailSamplingSpanProcessor processor = processors.getIfAvailable();
+    OpenTelemetry available = openTelemetry.getIfAvailable();
+    return processor == null || available == null
+        ? () -> {}
+        : processor.registerInstruments(available);
   }
 
   @Override
@@ -0,0 +1,226 @@
+package bio.terra.common.tracing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Matches URLs or span names against a fixed set of patterns, compiled once up front so that
+ * matching does not allocate.
+ *
+ * <p>Supported patterns:
+ *
+ * <ul>
+ *   <li>Exact: {@code /status} matches only {@code /status}.
+ *   <li>Prefix: {@code /status/**} matches {@code /status/} followed by anything, e.g. {@code
+ *       /status/ready} or {@code /status/a/b}.
+ *   <li>Glob: {@code *} matches any run of characters other than {@code /}, {@code **} matches any
+ *       run of characters, and {@code ?} matches a single character. For example {@code
+ *       /api/v1/workspaces/*&#47;health} matches {@code /api/v1/workspaces/123/health}.
+ * </ul>
+ *
+ * <p>Exact patterns are looked up in a hash set, prefixes in a character trie, and the remaining
+ * globs are matched one by one.
+ */
+public final class UrlPatternMatcher {
+  // Pattern tokens used by compiled globs. These are noncharacters, so they can't appear in input.
+  private static final char ANY_CHAR = '\uFDD0';
+  private static final char SEGMENT_WILDCARD = '\uFDD1';
+  private static final char WILDCARD = '\uFDD2';
+
+  private final List<String> patterns;
+  private final Set<String> exactPatterns = new HashSet<>();
+  private final PrefixTrie prefixPatterns = new PrefixTrie();
+  private final char[][] globPatterns;
+
+  public UrlPatternMatcher(Collection<String> patterns) {
+    this.patterns = List.copyOf(patterns);
+    List<char[]> globs = new ArrayList<>();
+    for (String pattern : this.patterns) {
+      int firstWildcard = indexOfWildcard(pattern);
+      if (firstWildcard < 0) {
+        exactPatterns.add(pattern);
+      } else if (firstWildcard == pattern.length() - 2 && pattern.endsWith("**")) {
+        prefixPatterns.add(pattern.substring(0, firstWildcard));
+      } else {
+        globs.add(compileGlob(pattern));
+      }
+    }
+    this.globPatterns = globs.toArray(new char[0][]);
+  }
+
+  /** Returns the patterns this matcher was built from. */
+  public List<String> getPatterns() {
+    return patterns;
+  }
+
+  public boolean isEmpty() {
+    return patterns.isEmpty();
+  }
+
+  /** Returns true if the candidate matches any of the patterns. A null candidate never matches. */
+  public boolean matches(String candidate) {
+    if (candidate == null) {
+      return false;
+    }
+    if (exactPatterns.contains(candidate) || prefixPatterns.matchesPrefixOf(candidate)) {
+      return true;
+    }
+    for (char[] glob : globPatterns) {
+      if (matchesGlob(glob, candidate)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int indexOfWildcard(String pattern) {
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '*' || c == '?') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static char[] compileGlob(String pattern) {
+    char[] compiled = new char[pattern.length()];
+    int length = 0;
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '*') {
+        if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+          compiled[length++] = WILDCARD;
+          // Treat any longer run of stars as a single **.
+          while (i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+            i++;
+          }
+        } else {
+          compiled[length++] = SEGMENT_WILDCARD;
+        }
+      } else if (c == '?') {
+        compiled[length++] = ANY_CHAR;
+      } else {
+        compiled[length++] = c;
+      }
+    }
+    return Arrays.copyOf(compiled, length);
+  }
+
+  /**
+   * Iterative glob matching with backtracking. Only the most recent wildcard needs to be revisited
+   * on a mismatch, except that a {@code *} can't grow past a {@code /}; in that case we fall back
+   * to the most recent {@code **}, which can.
+   */
+  static boolean matchesGlob(char[] glob, String candidate) {
+    int p = 0;
+    int c = 0;
+    // Resume points for the most recent wildcard of either kind, and for the most recent **.
+    int starP = -1;
+    int starC = -1;
+    int doubleStarP = -1;
+    int doubleStarC = -1;
+    while (c < candidate.length()) {
+      char ch = candidate.charAt(c);
+      if (p < glob.length && (glob[p] == ch || glob[p] == ANY_CHAR)) {
+        p++;
+        c++;
+      } else if (p < glob.length && glob[p] == WILDCARD) {
+        starP = doubleStarP = p++;
+        starC = doubleStarC = c;
+      } else if (p < glob.length && glob[p] == SEGMENT_WILDCARD) {
+        starP = p++;
+        starC = c;
+      } else if (starP >= 0 && (glob[starP] == WILDCARD || candidate.charAt(starC) != '/')) {
+        // Let the most recent wildcard absorb one more character and retry.
+        p = starP + 1;
+        c = ++starC;
+      } else if (doubleStarP >= 0) {
+        // The most recent * can't absorb a '/', so grow the most recent ** instead. Any * after it
+        // is re-matched from scratch.
+        p = doubleStarP + 1;
+        c = ++doubleStarC;
+        starP = doubleStarP;
+        starC = doubleStarC;
+      } else {
+        return false;
+      }
+    }
+    // Trailing wildcards match the empty string.
+    while (p < glob.length && (glob[p] == WILDCARD || glob[p] == SEGMENT_WILDCARD)) {
+      p++;
+    }
+    return p == glob.length;
+  }
+
+  /** A character trie of prefixes; a candidate matches if any prefix ends along its path. */
+  private static final class PrefixTrie {
+    private final Node root = new Node();
+
+    void add(String prefix) {
+      Node node = root;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.childOrCreate(prefix.charAt(i));
+      }
+      node.terminal = true;
+    }
+
+    boolean matchesPrefixOf(String candidate) {
+      Node node = root;
+      if (node.terminal) {
+        return true;
+      }
+      for (int i = 0; i < candidate.length(); i++) {
+        node = node.child(candidate.charAt(i));
+        if (node == null) {
+          return false;
+        }
+        if (node.terminal) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static final class Node {
+      // Children are kept in small parallel arrays sorted by character; URL tries are narrow.
+      private char[] keys = new char[0];
+      private Node[] children = new Node[0];
+      private boolean terminal;
+
+      Node child(char key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? children[index] : null;
+      }
+
+      Node childOrCreate(char key) {
+        int index = Arrays.binarySearch(keys, key);
+        if (index >= 0) {
+          return children[index];
+        }
+        int insertAt = -index - 1;
+        Node child = new Node();
+        keys = insert(keys, insertAt, key);
+        Node[] newChildren = new Node[children.length + 1];
+        System.arraycopy(children, 0, newChildren, 0, insertAt);
+        newChildren[insertAt] = child;
+        System.arraycopy(
+            children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+        children = newChildren;
+        return child;
+      }
+
+      private static char[] insert(char[] array, int index, char value) {
+        char[] result = new char[array.length + 1];
+        System.arraycopy(array, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        return result;
+      }
+    }
+  }
+}
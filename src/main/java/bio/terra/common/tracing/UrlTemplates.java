@@ -0,0 +1,78 @@
+package bio.terra.common.tracing;
+
+/**
+ * Turns request paths into low-cardinality templates for span names, by replacing path segments
+ * which look like identifiers with {@value #ID_PLACEHOLDER}. For example {@code
+ * /api/workspaces/v1/0b8e2e1c-5d4f-4e9b-9f1e-2a5f3c6d7e8f/resources/42} becomes {@code
+ * /api/workspaces/v1/{id}/resources/{id}}.
+ *
+ * <p>A segment is treated as an identifier if it is all digits, a UUID, a hex string of at least
+ * {@value #MIN_HEX_ID_LENGTH} characters, or any string of at least {@value #MIN_TOKEN_ID_LENGTH}
+ * characters containing a digit (e.g. base62 or base64 tokens). Paths without such segments are
+ * returned as is, without allocating.
+ */
+public final class UrlTemplates {
+  static final String ID_PLACEHOLDER = "{id}";
+  static final int MIN_HEX_ID_LENGTH = 16;
+  static final int MIN_TOKEN_ID_LENGTH = 20;
+
+  private UrlTemplates() {}
+
+  /** Returns the path with identifier-like segments replaced. */
+  public static String templatize(String path) {
+    StringBuilder templated = null;
+    int segmentStart = 0;
+    int length = path.length();
+    for (int i = 0; i <= length; i++) {
+      if (i < length && path.charAt(i) != '/') {
+        continue;
+      }
+      if (isIdentifier(path, segmentStart, i)) {
+        if (templated == null) {
+          templated = new StringBuilder(length).append(path, 0, segmentStart);
+        }
+        templated.append(ID_PLACEHOLDER);
+      } else if (templated != null) {
+        templated.append(path, segmentStart, i);
+      }
+      if (templated != null && i < length) {
+        templated.append('/');
+      }
+      segmentStart = i + 1;
+    }
+    return templated == null ? path : templated.toString();
+  }
+
+  private static boolean isIdentifier(String path, int start, int end) {
+    int length = end - start;
+    if (length == 0) {
+      return false;
+    }
+    boolean allDigits = true;
+    boolean allHex = true;
+    boolean hasDigit = false;
+    int dashes = 0;
+    for (int i = start; i < end; i++) {
+      char c = path.charAt(i);
+      boolean digit = c >= '0' && c <= '9';
+      boolean hex = digit || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+      hasDigit |= digit;
+      allDigits &= digit;
+      if (c == '-') {
+        dashes++;
+      } else {
+        allHex &= hex;
+      }
+    }
+    if (allDigits) {
+      return true;
+    }
+    if (allHex && dashes == 4 && length == 36) {
+      return true; // a UUID
+    }
+    if (allHex && dashes == 0 && length >= MIN_HEX_ID_LENGTH) {
+      return true;
+    }
+    return hasDigit && length >= MIN_TOKEN_ID_LENGTH;
+  }
+}
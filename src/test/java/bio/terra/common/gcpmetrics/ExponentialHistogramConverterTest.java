@@ -0,0 +1,84 @@
+package bio.terra.common.gcpmetrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import bio.terra.common.opentelemetry.HistogramProperties;
+import bio.terra.common.stairway.TestMetricExporter;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentSelector;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.View;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.MetricDataType;
+import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
+import java.util.List;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class ExponentialHistogramConverterTest {
+
+  @Test
+  void convertsExponentialHistogramsToExplicitBuckets() {
+    var exporter = new TestMetricExporter();
+    var histogramProperties = new HistogramProperties(true, 20, 160);
+    // The reader the GCP config builds, with a test exporter in place of Cloud Monitoring's. It
+    // exports when the meter provider is closed.
+    var reader = PeriodicMetricReader.create(new ExponentialHistogramConverter(exporter));
+    try (var meterProvider =
+        SdkMeterProvider.builder()
+            .registerMetricReader(reader)
+            .registerView(
+                InstrumentSelector.builder().setName("latency").build(),
+                View.builder()
+                    .setAggregation(
+                        histogramProperties.latencyAggregation(Aggregation.defaultAggregation()))
+                    .build())
+            .build()) {
+      var histogram = meterProvider.get("test").histogramBuilder("latency").ofLongs().build();
+      for (long value : List.of(0L, 1L, 10L, 10L, 100L, 5000L)) {
+        histogram.record(value);
+      }
+    }
+
+    MetricData metric = exporter.getLastMetrics().iterator().next();
+    assertThat(metric.getType(), Matchers.is(MetricDataType.HISTOGRAM));
+    HistogramPointData point = metric.getHistogramData().getPoints().iterator().next();
+    assertThat(point.getCount(), Matchers.is(6L));
+    assertThat(point.getSum(), Matchers.is(5121.0));
+    assertThat(point.getCounts().size(), Matchers.is(point.getBoundaries().size() + 1));
+    assertThat(point.getCounts().stream().mapToLong(Long::longValue).sum(), Matchers.is(6L));
+    // The zero goes in the first bucket, and the rest in buckets bounded close around them.
+    assertThat(point.getCounts().get(0), Matchers.is(1L));
+    assertThat(countAround(point, 10), Matchers.is(2L));
+    assertThat(countAround(point, 5000), Matchers.is(1L));
+  }
+
+  @Test
+  void leavesOtherMetricsAlone() {
+    var exporter = new TestMetricExporter();
+    var reader = PeriodicMetricReader.create(new ExponentialHistogramConverter(exporter));
+    try (var meterProvider = SdkMeterProvider.builder().registerMetricReader(reader).build()) {
+      meterProvider.get("test").counterBuilder("count").build().add(3);
+      meterProvider.get("test").histogramBuilder("latency").build().record(1.5);
+    }
+
+    assertThat(
+        exporter.getLastMetrics().stream().map(MetricData::getType).toList(),
+        Matchers.containsInAnyOrder(MetricDataType.LONG_SUM, MetricDataType.HISTOGRAM));
+  }
+
+  /** Returns the count of the bucket holding the value, checking that it is at most 10% wide. */
+  private static long countAround(HistogramPointData point, double value) {
+    List<Double> boundaries = point.getBoundaries();
+    for (int i = 1; i < boundaries.size(); i++) {
+      if (boundaries.get(i - 1) < value && value <= boundaries.get(i)) {
+        assertThat(boundaries.get(i) / boundaries.get(i - 1), Matchers.lessThan(1.1));
+        return point.getCounts().get(i);
+      }
+    }
+    throw new AssertionError("no bucket holds " + value);
+  }
+}
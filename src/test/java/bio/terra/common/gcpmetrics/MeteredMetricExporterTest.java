@@ -0,0 +1,207 @@
+package bio.terra.common.gcpmetrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import bio.terra.common.opentelemetry.ExportMetrics;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class MeteredMetricExporterTest {
+
+  @Test
+  void splitsExportsIntoBatches() {
+    var fake = new FakeExporter(batch -> CompletableResultCode.ofSuccess());
+    var exporter = new MeteredMetricExporter(fake, 2, Duration.ofSeconds(1));
+
+    assertThat(exporter.export(collectCounters(5)).isSuccess(), Matchers.is(true));
+
+    assertThat(fake.batchSizes(), Matchers.contains(2, 2, 1));
+    assertThat(exporter.exportedPoints(), Matchers.is(5L));
+    assertThat(exporter.failedPoints(), Matchers.is(0L));
+  }
+
+  @Test
+  void countsFailedBatches() {
+    var fake =
+        new FakeExporter(
+            batch ->
+                batch.size() == 1
+                    ? CompletableResultCode.ofFailure()
+                    : CompletableResultCode.ofSuccess());
+    var exporter = new MeteredMetricExporter(fake, 2, Duration.ofSeconds(1));
+
+    assertThat(exporter.export(collectCounters(3)).isSuccess(), Matchers.is(false));
+
+    assertThat(exporter.exportedPoints(), Matchers.is(2L));
+    assertThat(exporter.failedPoints(), Matchers.is(1L));
+  }
+
+  @Test
+  void batchesByPoints() {
+    var fake = new FakeExporter(batch -> CompletableResultCode.ofSuccess());
+    var exporter = new MeteredMetricExporter(fake, 4, Duration.ofSeconds(1));
+    var metrics = new ArrayList<MetricData>(collectCounter(3));
+    metrics.addAll(collectCounters(2));
+    metrics.addAll(collectCounter(5));
+
+    assertThat(exporter.export(metrics).isSuccess(), Matchers.is(true));
+
+    // Metrics are kept whole, so the one with more points than a batch holds is sent on its own.
+    assertThat(fake.batchSizes(), Matchers.contains(4, 1, 5));
+    assertThat(exporter.exportedPoints(), Matchers.is(10L));
+  }
+
+  @Test
+  void timesOutSlowExports() {
+    // The result never completes, like a call to a hung backend.
+    var fake = new FakeExporter(batch -> new CompletableResultCode());
+    var exporter = new MeteredMetricExporter(fake, 200, Duration.ofMillis(10));
+
+    assertThat(exporter.export(collectCounters(1)).isSuccess(), Matchers.is(false));
+    assertThat(exporter.failedPoints(), Matchers.is(1L));
+  }
+
+  @Test
+  void boundsAllBatchesByOneTimeout() {
+    var fake = new FakeExporter(batch -> new CompletableResultCode());
+    var exporter = new MeteredMetricExporter(fake, 1, Duration.ofMillis(50));
+
+    assertThat(exporter.export(collectCounters(3)).isSuccess(), Matchers.is(false));
+
+    // The first batch used up the timeout, so the others were not sent.
+    assertThat(fake.batchSizes(), Matchers.contains(1));
+    assertThat(exporter.failedPoints(), Matchers.is(3L));
+  }
+
+  @Test
+  void exposesInstruments() throws Exception {
+    var fake = new FakeExporter(batch -> CompletableResultCode.ofSuccess());
+    var exporter = new MeteredMetricExporter(fake, 200, Duration.ofSeconds(1));
+    var metricReader = InMemoryMetricReader.create();
+    try (var openTelemetry =
+            OpenTelemetrySdk.builder()
+                .setMeterProvider(
+                    SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+                .build();
+        var ignored = exporter.registerInstruments(openTelemetry)) {
+      exporter.export(collectCounters(3));
+
+      Collection<MetricData> metrics = metricReader.collectAllMetrics();
+      MetricData counts = find(metrics, MeteredMetricExporter.POINTS_METER_NAME);
+      assertThat(
+          counts.getLongSumData().getPoints().stream()
+              .filter(point -> point.getAttributes().equals(exported()))
+              .findFirst()
+              .orElseThrow()
+              .getValue(),
+          Matchers.is(3L));
+      MetricData latency = find(metrics, MeteredMetricExporter.LATENCY_METER_NAME);
+      assertThat(
+          latency.getHistogramData().getPoints().iterator().next().getCount(), Matchers.is(1L));
+    }
+  }
+
+  @Test
+  void exportsPeriodically() {
+    var fake = new FakeExporter(batch -> CompletableResultCode.ofSuccess());
+    var exporter = new MeteredMetricExporter(fake, 200, Duration.ofSeconds(1));
+    // As the GCP config builds it; the reader exports once more when the provider is closed.
+    var reader = PeriodicMetricReader.builder(exporter).setInterval(Duration.ofHours(1)).build();
+    try (var meterProvider = SdkMeterProvider.builder().registerMetricReader(reader).build()) {
+      meterProvider.get("test").counterBuilder("count").build().add(1);
+    }
+
+    assertThat(fake.batchSizes(), Matchers.contains(1));
+    assertThat(exporter.exportedPoints(), Matchers.is(1L));
+  }
+
+  private static Attributes exported() {
+    return Attributes.of(ExportMetrics.KEY_OUTCOME, "exported");
+  }
+
+  private static MetricData find(Collection<MetricData> metrics, String name) {
+    return metrics.stream()
+        .filter(metric -> metric.getName().equals(name))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  /** Collects one counter with the given number of points, one per attribute set. */
+  private static Collection<MetricData> collectCounter(int points) {
+    var metricReader = InMemoryMetricReader.create();
+    try (var meterProvider =
+        SdkMeterProvider.builder().registerMetricReader(metricReader).build()) {
+      var counter = meterProvider.get("test").counterBuilder("count").build();
+      for (int i = 0; i < points; i++) {
+        counter.add(1, Attributes.of(AttributeKey.longKey("index"), (long) i));
+      }
+      return metricReader.collectAllMetrics();
+    }
+  }
+
+  /** Collects the given number of counters, each a metric of its own. */
+  private static Collection<MetricData> collectCounters(int count) {
+    var metricReader = InMemoryMetricReader.create();
+    try (var meterProvider =
+        SdkMeterProvider.builder().registerMetricReader(metricReader).build()) {
+      for (int i = 0; i < count; i++) {
+        meterProvider.get("test").counterBuilder("count" + i).build().add(1);
+      }
+      return metricReader.collectAllMetrics();
+    }
+  }
+
+  /** An exporter which records the number of points in each batch and answers as told. */
+  private static class FakeExporter implements MetricExporter {
+    private final Function<Collection<MetricData>, CompletableResultCode> result;
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    FakeExporter(Function<Collection<MetricData>, CompletableResultCode> result) {
+      this.result = result;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<MetricData> metrics) {
+      batchSizes.add(
+          metrics.stream().mapToInt(metric -> metric.getData().getPoints().size()).sum());
+      return result.apply(metrics);
+    }
+
+    synchronized List<Integer> batchSizes() {
+      return List.copyOf(batchSizes);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+      return AggregationTemporality.CUMULATIVE;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package bio.terra.common.jfr;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrTestUtils {
+  @FunctionalInterface
+  public interface Action {
+    void run() throws Exception;
+  }
+
+  /** Runs the action within a recording of the given events, and returns those recorded. */
+  @SafeVarargs
+  public static List<RecordedEvent> recordEvents(
+      Action action, Class<? extends Event>... eventClasses) throws Exception {
+    Path file = Files.createTempFile("events", ".jfr");
+    try (var recording = new Recording()) {
+      for (var eventClass : eventClasses) {
+        recording.enable(eventClass);
+      }
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
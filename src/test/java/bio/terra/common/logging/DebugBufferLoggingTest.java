@@ -0,0 +1,94 @@
+package bio.terra.common.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+/**
+ * Tests debug-on-error buffering: DEBUG logs of a request are only written out if the request
+ * fails. See {@link LoggingTest} for how the test application is set up.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, classes = LoggingTestApplication.class)
+@SpringJUnitConfig(initializers = LoggingInitializer.class)
+@ActiveProfiles({"logging-test", "debug-buffer-test"})
+@ExtendWith(OutputCaptureExtension.class)
+@Tag("unit")
+public class DebugBufferLoggingTest {
+
+  @Autowired private TestRestTemplate testRestTemplate;
+
+  @Test
+  public void testDebugLogsDroppedForSuccessfulRequest(CapturedOutput capturedOutput) {
+    ResponseEntity<String> response =
+        testRestTemplate.getForEntity("/testDebugBuffer?status=200", String.class);
+    assertThat(response.getStatusCode().value()).isEqualTo(200);
+
+    assertThat(capturedOutput.getAll()).contains("Unbuffered info log for status 200");
+    assertThat(capturedOutput.getAll()).doesNotContain("Buffered debug log for status 200");
+    assertThat(RequestLogBuffer.hasActiveBuffers()).isFalse();
+  }
+
+  @Test
+  public void testDebugLogsFlushedForFailedRequest(CapturedOutput capturedOutput) {
+    ResponseEntity<String> response =
+        testRestTemplate.getForEntity("/testDebugBuffer?status=503", String.class);
+    assertThat(response.getStatusCode().value()).isEqualTo(503);
+
+    String[] lines = capturedOutput.getAll().split("\n");
+    String debugLine = getLogContainingMessage(lines, "Buffered debug log for status 503");
+    assertThat((String) readJson(debugLine, "$.severity")).isEqualTo("DEBUG");
+    // The MDC captured when the event was buffered is preserved.
+    String requestId = readJson(debugLine, "$.requestId");
+    assertThat(requestId).isNotBlank();
+
+    // Structured fields are rendered, since StructuredLog recycles them after the logging call.
+    String structuredLine = getLogContainingMessage(lines, "Buffered structured log");
+    assertThat((String) readJson(structuredLine, "$.eventType")).isEqualTo("buffered-event");
+    assertThat((String) readJson(structuredLine, "$.requestId")).isEqualTo(requestId);
+    String mutableLine = getLogContainingMessage(lines, "Buffered mutable argument");
+    assertThat((String) readJson(mutableLine, "$.state")).isEqualTo("logged");
+
+    // Buffered events are written out after the request summary, preceded by a marker line.
+    int summaryIndex = indexOfLogContainingMessage(lines, "GET /testDebugBuffer");
+    int markerIndex = indexOfLogContainingMessage(lines, "buffered debug events for request");
+    assertThat(markerIndex).isGreaterThan(summaryIndex);
+    assertThat(indexOfLogContainingMessage(lines, "Buffered debug log for status 503"))
+        .isGreaterThan(markerIndex);
+    assertThat(RequestLogBuffer.hasActiveBuffers()).isFalse();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T readJson(String line, String path) {
+    return (T)
+        JsonPath.using(Configuration.defaultConfiguration().addOptions(Option.SUPPRESS_EXCEPTIONS))
+            .parse(line)
+            .read(path);
+  }
+
+  private String getLogContainingMessage(String[] logLines, String message) {
+    return logLines[indexOfLogContainingMessage(logLines, message)];
+  }
+
+  private int indexOfLogContainingMessage(String[] logLines, String message) {
+    for (int i = 0; i < logLines.length; i++) {
+      if (logLines[i].contains(message)) {
+        return i;
+      }
+    }
+    throw new RuntimeException("No log line with message " + message);
+  }
+}
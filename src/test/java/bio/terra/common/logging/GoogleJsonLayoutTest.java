@@ -0,0 +1,130 @@
+package bio.terra.common.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+
+/** Tests the line size limit of {@link GoogleJsonLayout} without starting a Spring application. */
+@Tag("unit")
+class GoogleJsonLayoutTest {
+  private static final int MAX_LINE_SIZE = 64 * 1024;
+  // Far larger than the limit, so an implementation which renders and then cuts the line would
+  // allocate many times the limit.
+  private static final int PATHOLOGICAL_SIZE = 8 * 1024 * 1024;
+
+  private GoogleJsonLayout layout;
+  private Logger logger;
+
+  @BeforeEach
+  void setUp() {
+    layout = new GoogleJsonLayout(new GenericApplicationContext(), MAX_LINE_SIZE);
+    logger = new LoggerContext().getLogger(GoogleJsonLayoutTest.class);
+  }
+
+  @Test
+  void smallEventIsNotTruncated() throws Exception {
+    String line =
+        layout.doLayout(
+            event(
+                "Hello \"world\"\n\ttab",
+                null,
+                LoggingUtils.structuredLogData("list", List.of(1, 2, 3))));
+
+    JsonNode json = LoggingUtils.OBJECT_MAPPER.readTree(line);
+    assertThat(json.get("message").asText()).isEqualTo("Hello \"world\"\n\ttab");
+    assertThat(json.get("severity").asText()).isEqualTo("INFO");
+    assertThat(json.get("list").toString()).isEqualTo("[1,2,3]");
+    assertThat(line).doesNotContain(GoogleJsonLayout.TRUNCATION_MARKER);
+  }
+
+  @Test
+  void hugeMessageIsTruncated() throws Exception {
+    String line = layout.doLayout(event("x".repeat(PATHOLOGICAL_SIZE), null));
+
+    assertBounded(line);
+    JsonNode json = LoggingUtils.OBJECT_MAPPER.readTree(line);
+    assertThat(json.get("message").asText()).endsWith(GoogleJsonLayout.TRUNCATION_MARKER);
+    // The metadata following the message is kept.
+    assertThat(json.get("logger").asText()).isEqualTo(GoogleJsonLayoutTest.class.getName());
+  }
+
+  @Test
+  void deepStackTraceIsTruncated() throws Exception {
+    RuntimeException exception = new RuntimeException("boom");
+    StackTraceElement frame = new StackTraceElement("a.B", "recurse", "B.java", 1);
+    StackTraceElement[] frames = new StackTraceElement[200_000];
+    Arrays.fill(frames, frame);
+    exception.setStackTrace(frames);
+
+    String line = layout.doLayout(event("Failed", exception));
+
+    assertBounded(line);
+    String message = LoggingUtils.OBJECT_MAPPER.readTree(line).get("message").asText();
+    assertThat(message).startsWith("Failed\njava.lang.RuntimeException: boom\n\tat a.B.recurse");
+    assertThat(message).endsWith(GoogleJsonLayout.TRUNCATION_MARKER);
+  }
+
+  @Test
+  void hugeFieldIsReplacedWithMarker() throws Exception {
+    List<String> hugeList = Collections.nCopies(PATHOLOGICAL_SIZE / 8, "payload");
+    String line =
+        layout.doLayout(
+            event(
+                "Big payload",
+                null,
+                LoggingUtils.structuredLogData("huge", hugeList),
+                LoggingUtils.structuredLogData("small", "kept")));
+
+    assertBounded(line);
+    JsonNode json = LoggingUtils.OBJECT_MAPPER.readTree(line);
+    assertThat(json.get("message").asText()).isEqualTo("Big payload");
+    assertThat(json.get("huge").asText()).isEqualTo(GoogleJsonLayout.TRUNCATION_MARKER);
+    assertThat(json.get("small").asText()).isEqualTo("kept");
+  }
+
+  @Test
+  void allocationIsBoundedForPathologicalInputs() {
+    List<String> hugeList = Collections.nCopies(PATHOLOGICAL_SIZE / 8, "payload");
+    String hugeMessage = "y".repeat(PATHOLOGICAL_SIZE);
+    LoggingEvent event =
+        event(hugeMessage, null, LoggingUtils.structuredLogData("huge", hugeList));
+    // Warm up, so one-off costs such as Jackson serializer lookups aren't counted.
+    layout.doLayout(event);
+    layout.doLayout(event);
+
+    long allocated = allocatedBytes(() -> layout.doLayout(event));
+
+    // Rendering the payload in full would allocate well over PATHOLOGICAL_SIZE bytes.
+    assertThat(allocated).isLessThan(16L * MAX_LINE_SIZE);
+  }
+
+  private void assertBounded(String line) {
+    assertThat(line.length()).isLessThanOrEqualTo(MAX_LINE_SIZE + System.lineSeparator().length());
+  }
+
+  private LoggingEvent event(String message, Throwable throwable, Object... args) {
+    LoggingEvent event =
+        new LoggingEvent(Logger.class.getName(), logger, Level.INFO, message, throwable, args);
+    event.setCallerData(new StackTraceElement[0]);
+    return event;
+  }
+
+  private static long allocatedBytes(Runnable runnable) {
+    var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long before = threadBean.getCurrentThreadAllocatedBytes();
+    runnable.run();
+    return threadBean.getCurrentThreadAllocatedBytes() - before;
+  }
+}
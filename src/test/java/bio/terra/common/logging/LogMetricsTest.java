@@ -0,0 +1,110 @@
+package bio.terra.common.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.common.stairway.TestMetricExporter;
+import ch.qos.logback.classic.Level;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class LogMetricsTest {
+  private TestMetricExporter exporter;
+  private OpenTelemetrySdk openTelemetry;
+
+  @BeforeEach
+  void setUp() {
+    exporter = new TestMetricExporter();
+    openTelemetry =
+        OpenTelemetrySdk.builder()
+            .setMeterProvider(
+                SdkMeterProvider.builder()
+                    .registerMetricReader(PeriodicMetricReader.builder(exporter).build())
+                    .build())
+            .build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    openTelemetry.close();
+  }
+
+  @Test
+  void countsEventsBytesAndAlertsByLevelAndLogger() throws Exception {
+    var logMetrics = new LogMetrics(10);
+    logMetrics.recordEvent(Level.INFO, "a", 100);
+    logMetrics.recordEvent(Level.INFO, "a", 50);
+    logMetrics.recordEvent(Level.ERROR, "a", 200);
+    logMetrics.recordAlert(Level.ERROR, "a");
+    logMetrics.recordEvent(Level.WARN, "b", 10);
+
+    try (var ignored = logMetrics.registerInstruments(openTelemetry)) {
+      var metrics = collect();
+      assertEquals(
+          Map.of(
+              attributes("INFO", "a"), 2L,
+              attributes("ERROR", "a"), 1L,
+              attributes("WARN", "b"), 1L),
+          metrics.get(LogMetrics.EVENTS_METER_NAME));
+      assertEquals(
+          Map.of(
+              attributes("INFO", "a"), 150L,
+              attributes("ERROR", "a"), 200L,
+              attributes("WARN", "b"), 10L),
+          metrics.get(LogMetrics.BYTES_METER_NAME));
+      assertEquals(
+          Map.of(attributes("ERROR", "a"), 1L), metrics.get(LogMetrics.ALERTS_METER_NAME));
+    }
+  }
+
+  @Test
+  void loggersOverLimitAreCountedAsOverflow() throws Exception {
+    var logMetrics = new LogMetrics(2);
+    logMetrics.recordEvent(Level.INFO, "a", 1);
+    logMetrics.recordEvent(Level.INFO, "b", 1);
+    logMetrics.recordEvent(Level.INFO, "c", 1);
+    logMetrics.recordEvent(Level.INFO, "d", 1);
+    // Loggers seen before the limit was hit keep their own series.
+    logMetrics.recordEvent(Level.INFO, "a", 1);
+
+    try (var ignored = logMetrics.registerInstruments(openTelemetry)) {
+      var events = collect().get(LogMetrics.EVENTS_METER_NAME);
+      assertEquals(
+          Map.of(
+              attributes("INFO", "a"), 2L,
+              attributes("INFO", "b"), 1L,
+              attributes("INFO", LogMetrics.OVERFLOW_LOGGER), 2L),
+          events);
+    }
+  }
+
+  private Map<String, Map<Attributes, Long>> collect() {
+    assertTrue(
+        openTelemetry.getSdkMeterProvider().forceFlush().join(10, TimeUnit.SECONDS).isSuccess());
+    return exporter.getLastMetrics().stream()
+        .collect(
+            Collectors.toMap(
+                MetricData::getName,
+                metric ->
+                    metric.getLongSumData().getPoints().stream()
+                        .collect(
+                            Collectors.toMap(
+                                LongPointData::getAttributes, LongPointData::getValue))));
+  }
+
+  private static Attributes attributes(String level, String logger) {
+    return Attributes.of(LogMetrics.KEY_LEVEL, level, LogMetrics.KEY_LOGGER, logger);
+  }
+}
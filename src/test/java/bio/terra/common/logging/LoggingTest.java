@@ -140,6 +140,36 @@ public class LoggingTest {
     assertThat((String) readJson(event4, "$.foo.bar")).isEqualTo("baz");
   }
 
+  @Test
+  public void testFluentStructuredLogging(CapturedOutput capturedOutput) {
+    ResponseEntity<String> response =
+        testRestTemplate.getForEntity("/testFluentStructuredLogging", String.class);
+    assertThat(response.getStatusCode().value()).isEqualTo(200);
+
+    String[] lines = capturedOutput.getAll().split("\n");
+    String event = getLogContainingMessage(lines, "Fluent structured data");
+    assertThat((String) readJson(event, "$.severity")).isEqualTo("INFO");
+    assertThat((String) readJson(event, "$.eventType")).isEqualTo("fluent-event");
+    assertThat((Integer) readJson(event, "$.count")).isEqualTo(3);
+    StructuredDataPojo pojo = readJson(event, "$.pojo", StructuredDataPojo.class);
+    assertThat(pojo).isNotNull();
+    assertThat(pojo.name).isEqualTo("asdf");
+    assertThat(pojo.id).isEqualTo(1234);
+    assertThat(capturedOutput.getAll()).doesNotContain("Disabled fluent event");
+
+    // The pooled field container is reused, so fields from the first event must not leak into the
+    // next one.
+    String alert = getLogContainingMessage(lines, "Fluent alert");
+    assertThat((String) readJson(alert, "$.severity")).isEqualTo("ERROR");
+    assertThat((Integer) readJson(alert, "$.count")).isEqualTo(4);
+    assertThat((String) readJson(alert, "$.eventType")).isNull();
+    assertTrue((Boolean) readJson(alert, "$." + LoggingUtils.ALERT_KEY));
+
+    String braces = getLogContainingMessage(lines, "Fluent braces {} kept");
+    assertThat((String) readJson(braces, "$.message")).isEqualTo("Fluent braces {} kept");
+    assertThat((String) readJson(braces, "$.eventType")).isEqualTo("braces-event");
+  }
+
   @Test
   public void testAlertLogging(CapturedOutput capturedOutput) {
     ResponseEntity<String> response =
@@ -2,9 +2,13 @@ package bio.terra.common.logging;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.gson.JsonObject;
+import java.util.HashMap;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -54,6 +58,39 @@ public class LoggingTestController {
     LOG.info("GSON object", jsonObject);
   }
 
+  @GetMapping("/testFluentStructuredLogging")
+  public void testFluentStructuredLogging() {
+    StructuredDataPojo pojo = new StructuredDataPojo();
+    pojo.name = "asdf";
+    pojo.id = 1234;
+    // Should show up as {... "eventType": "fluent-event", "count": 3, "pojo": {...}, ...}
+    StructuredLog.info(LOG)
+        .field("eventType", "fluent-event")
+        .field("count", 3)
+        .field("pojo", pojo)
+        .log("Fluent structured data");
+    // TRACE is disabled, so none of these fields should make it into the output.
+    StructuredLog.trace(LOG).field("eventType", "disabled-event").log("Disabled fluent event");
+    // Alerts are supported through the fluent API too.
+    StructuredLog.error(LOG).field("count", 4).alert().log("Fluent alert");
+    // The message is logged as is, rather than treated as a format for the fields.
+    StructuredLog.info(LOG).field("eventType", "braces-event").log("Fluent braces {} kept");
+  }
+
+  @GetMapping("/testDebugBuffer")
+  public ResponseEntity<Void> testDebugBuffer(@RequestParam int status) {
+    // DEBUG is disabled, so these only show up if the debug buffer is enabled and flushed.
+    LOG.debug("Buffered debug log for status {}", status);
+    StructuredLog.debug(LOG).field("eventType", "buffered-event").log("Buffered structured log");
+    // Buffered events are rendered when logged, so later changes to the argument don't show up.
+    Map<String, Object> state = new HashMap<>();
+    state.put("state", "logged");
+    LOG.debug("Buffered mutable argument", state);
+    state.put("state", "changed");
+    LOG.info("Unbuffered info log for status {}", status);
+    return ResponseEntity.status(status).build();
+  }
+
   @GetMapping("/testAlertLogging")
   public void testAlertLogging() throws JsonProcessingException {
     // Test logging a message which should trigger an alert
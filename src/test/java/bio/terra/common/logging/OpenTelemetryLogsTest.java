@@ -0,0 +1,90 @@
+package bio.terra.common.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.logs.Severity;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.autoconfigure.spi.AutoConfigurationCustomizerProvider;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryLogRecordExporter;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+/**
+ * Tests the OpenTelemetry Logs pipeline, with the configured exporter swapped for an in-memory
+ * one. See {@link LoggingTest} for how the test application is set up.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, classes = LoggingTestApplication.class)
+@SpringJUnitConfig(initializers = LoggingInitializer.class)
+@ActiveProfiles({"logging-test", "otel-logs-test"})
+@Tag("unit")
+public class OpenTelemetryLogsTest {
+  private static final InMemoryLogRecordExporter EXPORTER = InMemoryLogRecordExporter.create();
+
+  @TestConfiguration
+  static class InMemoryExporterConfig {
+    @Bean
+    public AutoConfigurationCustomizerProvider inMemoryLogExporterCustomizer() {
+      return customizer ->
+          customizer.addLogRecordExporterCustomizer(
+              (exporter, unused) -> {
+                exporter.shutdown();
+                return EXPORTER;
+              });
+    }
+  }
+
+  @Autowired private TestRestTemplate testRestTemplate;
+  @Autowired private OpenTelemetry openTelemetry;
+
+  @BeforeEach
+  public void setUp() {
+    EXPORTER.reset();
+  }
+
+  @Test
+  public void testLogsExportedWithTraceContext() {
+    testRestTemplate.getForEntity("/testRequestLogging", String.class);
+    flush();
+
+    LogRecordData record = findRecord("This is an INFO log");
+    assertThat(record.getSeverity()).isEqualTo(Severity.INFO);
+    // The record shares the resource and trace context of the request's server span.
+    assertThat(record.getSpanContext().isValid()).isTrue();
+    assertThat(record.getResource().getAttribute(AttributeKey.stringKey("service.name")))
+        .isEqualTo("loggingTest");
+    assertThat(record.getAttributes().get(AttributeKey.stringKey("requestId"))).isNotBlank();
+    // Events below the configured level are not exported.
+    assertThat(EXPORTER.getFinishedLogRecordItems())
+        .noneMatch(data -> data.getBody().asString().equals("This is a DEBUG log"));
+  }
+
+  private void flush() {
+    assertThat(
+            ((OpenTelemetrySdk) openTelemetry)
+                .getSdkLoggerProvider()
+                .forceFlush()
+                .join(10, TimeUnit.SECONDS)
+                .isSuccess())
+        .isTrue();
+  }
+
+  private LogRecordData findRecord(String body) {
+    return EXPORTER.getFinishedLogRecordItems().stream()
+        .filter(data -> data.getBody().asString().equals(body))
+        .findFirst()
+        .orElseThrow(() -> new AssertionError("No log record with body " + body));
+  }
+}
@@ -0,0 +1,24 @@
+package bio.terra.common.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class RequestIdFilterTest {
+
+  @Test
+  void generatedRequestIdsAreUrlSafeAndDistinct() {
+    RequestIdFilter filter = new RequestIdFilter();
+    Set<String> requestIds = new HashSet<>();
+    for (int i = 0; i < 10_000; i++) {
+      String requestId = filter.generateRequestId();
+      assertThat(requestId).matches("[0-9A-Za-z]{11}");
+      requestIds.add(requestId);
+    }
+    assertThat(requestIds).hasSize(10_000);
+  }
+}
@@ -0,0 +1,72 @@
+package bio.terra.common.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+/**
+ * Tests raising the log level of a single request via the {@link
+ * RequestLogLevelFilter#LOG_LEVEL_HEADER} header. See {@link LoggingTest} for how the test
+ * application is set up.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, classes = LoggingTestApplication.class)
+@SpringJUnitConfig(initializers = LoggingInitializer.class)
+@ActiveProfiles({"logging-test", "request-log-level-test"})
+@ExtendWith(OutputCaptureExtension.class)
+@Tag("unit")
+public class RequestLogLevelTest {
+
+  @Autowired private TestRestTemplate testRestTemplate;
+
+  @Test
+  public void testLevelRaisedWithValidToken(CapturedOutput capturedOutput) {
+    assertThat(getWithLogLevel("DEBUG", "test-token").getStatusCode().value()).isEqualTo(200);
+
+    assertThat(capturedOutput.getAll()).contains("This is a DEBUG log");
+    // Levels below the requested one are still filtered.
+    assertThat(capturedOutput.getAll()).doesNotContain("This is a TRACE log");
+  }
+
+  @Test
+  public void testLevelUnchangedWithInvalidToken(CapturedOutput capturedOutput) {
+    assertThat(getWithLogLevel("DEBUG", "wrong-token").getStatusCode().value()).isEqualTo(200);
+
+    assertThat(capturedOutput.getAll()).contains("This is an INFO log");
+    assertThat(capturedOutput.getAll()).doesNotContain("This is a DEBUG log");
+  }
+
+  @Test
+  public void testLevelNotLeakedToLaterRequests(CapturedOutput capturedOutput) {
+    getWithLogLevel("TRACE", "test-token");
+    int end = capturedOutput.getAll().length();
+    assertThat(capturedOutput.getAll()).contains("This is a TRACE log");
+
+    // The server may serve the next request on the same thread, which must not inherit the level.
+    testRestTemplate.getForEntity("/testRequestLogging", String.class);
+    String laterOutput = capturedOutput.getAll().substring(end);
+    assertThat(laterOutput).contains("This is an INFO log");
+    assertThat(laterOutput).doesNotContain("This is a DEBUG log");
+  }
+
+  private ResponseEntity<String> getWithLogLevel(String level, String token) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.add(RequestLogLevelFilter.LOG_LEVEL_HEADER, level);
+    headers.add(RequestLogLevelFilter.LOG_LEVEL_TOKEN_HEADER, token);
+    return testRestTemplate.exchange(
+        "/testRequestLogging", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+  }
+}
@@ -0,0 +1,95 @@
+package bio.terra.common.opentelemetry;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.util.Map;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class CardinalityLimitsTest {
+  private static final AttributeKey<String> KEY_FLIGHT = AttributeKey.stringKey("flight_name");
+
+  @Test
+  void overflowsPastTheLimit() {
+    var limits = new CardinalityLimits();
+    limits.configure(2, Map.of());
+    var limiter = limits.limiter("latency");
+
+    assertThat(limiter.limit(flight("a")), Matchers.is(flight("a")));
+    assertThat(limiter.limit(flight("b")), Matchers.is(flight("b")));
+    assertThat(limiter.limit(flight("c")), Matchers.is(CardinalityLimits.OVERFLOW));
+    // Attribute sets let through before are still let through.
+    assertThat(limiter.limit(flight("a")), Matchers.is(flight("a")));
+    assertThat(limiter.limit(flight("d")), Matchers.is(CardinalityLimits.OVERFLOW));
+    assertThat(limiter.overflows(), Matchers.is(2L));
+  }
+
+  @Test
+  void limitsArePerInstrument() {
+    var limits = new CardinalityLimits();
+    var latency = limits.limiter("latency");
+    var errors = limits.limiter("errors");
+    limits.configure(1, Map.of("errors", 2));
+
+    latency.limit(flight("a"));
+    errors.limit(flight("a"));
+    assertThat(latency.limit(flight("b")), Matchers.is(CardinalityLimits.OVERFLOW));
+    assertThat(errors.limit(flight("b")), Matchers.is(flight("b")));
+    assertThat(limits.limiter("latency"), Matchers.sameInstance(latency));
+  }
+
+  @Test
+  void raisingTheLimitLetsMoreThrough() {
+    var limits = new CardinalityLimits();
+    limits.configure(1, Map.of());
+    var limiter = limits.limiter("latency");
+    limiter.limit(flight("a"));
+    assertThat(limiter.limit(flight("b")), Matchers.is(CardinalityLimits.OVERFLOW));
+
+    limits.configure(0, null);
+    for (int i = 0; i < 100; i++) {
+      assertThat(limiter.limit(flight("flight" + i)), Matchers.is(flight("flight" + i)));
+    }
+  }
+
+  @Test
+  void countsOverflowsByInstrument() throws Exception {
+    var limits = new CardinalityLimits();
+    limits.configure(1, Map.of());
+    var limiter = limits.limiter("latency");
+    limits.limiter("errors").limit(flight("a"));
+    for (String name : new String[] {"a", "b", "c", "d"}) {
+      limiter.limit(flight(name));
+    }
+
+    var metricReader = InMemoryMetricReader.create();
+    try (var openTelemetry =
+            OpenTelemetrySdk.builder()
+                .setMeterProvider(
+                    SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+                .build();
+        var ignored = limits.registerInstruments(openTelemetry)) {
+      var metric = metricReader.collectAllMetrics().iterator().next();
+
+      assertThat(metric.getName(), Matchers.is(CardinalityLimits.OVERFLOWS_METER_NAME));
+      // Only instruments which overflowed are reported.
+      assertThat(metric.getLongSumData().getPoints(), Matchers.hasSize(1));
+      LongPointData point = metric.getLongSumData().getPoints().iterator().next();
+      assertThat(point.getValue(), Matchers.is(3L));
+      assertThat(
+          point.getAttributes().get(CardinalityLimits.KEY_INSTRUMENT), Matchers.is("latency"));
+    }
+  }
+
+  private static Attributes flight(String name) {
+    return Attributes.of(KEY_FLIGHT, name);
+  }
+}
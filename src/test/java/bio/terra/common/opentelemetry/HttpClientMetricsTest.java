@@ -0,0 +1,71 @@
+package bio.terra.common.opentelemetry;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class HttpClientMetricsTest {
+
+  @Test
+  void recordsDurationAndBodySizes() {
+    var metricReader = InMemoryMetricReader.create();
+    try (var openTelemetry =
+        OpenTelemetrySdk.builder()
+            .setMeterProvider(SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+            .build()) {
+      // Requests and responses are modelled as their body sizes.
+      Instrumenter<Long, Long> instrumenter =
+          Instrumenter.<Long, Long>builder(openTelemetry, "test", request -> "GET")
+              .addAttributesExtractor(
+                  new HttpBodySizeExtractor<Long, Long>(
+                      request -> request, (request, response) -> response))
+              .addOperationMetrics(HttpClientMetrics.get())
+              .buildInstrumenter();
+
+      Context context = instrumenter.start(Context.root(), 100L);
+      instrumenter.end(context, 100L, 5000L, null);
+      context = instrumenter.start(Context.root(), -1L);
+      instrumenter.end(context, -1L, -1L, null);
+
+      Map<String, MetricData> metrics =
+          metricReader.collectAllMetrics().stream()
+              .collect(Collectors.toMap(MetricData::getName, metric -> metric));
+      assertThat(
+          metrics.keySet(),
+          Matchers.containsInAnyOrder(
+              "http.client.request.duration",
+              "http.client.request.body.size",
+              "http.client.response.body.size"));
+      assertThat(count(metrics.get("http.client.request.duration")), Matchers.is(2L));
+      // Unknown sizes are not recorded.
+      assertThat(count(metrics.get("http.client.request.body.size")), Matchers.is(1L));
+      assertThat(sum(metrics.get("http.client.request.body.size")), Matchers.is(100.0));
+      assertThat(count(metrics.get("http.client.response.body.size")), Matchers.is(1L));
+      assertThat(sum(metrics.get("http.client.response.body.size")), Matchers.is(5000.0));
+    }
+  }
+
+  private static long count(MetricData metric) {
+    return metric.getHistogramData().getPoints().stream()
+        .mapToLong(HistogramPointData::getCount)
+        .sum();
+  }
+
+  private static double sum(MetricData metric) {
+    return metric.getHistogramData().getPoints().stream()
+        .mapToDouble(HistogramPointData::getSum)
+        .sum();
+  }
+}
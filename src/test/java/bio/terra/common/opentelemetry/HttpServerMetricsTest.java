@@ -0,0 +1,89 @@
+package bio.terra.common.opentelemetry;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class HttpServerMetricsTest {
+
+  @Test
+  void recordsActiveRequestsAndBodySizes() {
+    var metricReader = InMemoryMetricReader.create();
+    try (var openTelemetry =
+        OpenTelemetrySdk.builder()
+            .setMeterProvider(SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+            .build()) {
+      Instrumenter<String, String> instrumenter =
+          Instrumenter.<String, String>builder(openTelemetry, "test", request -> "GET")
+              .addOperationMetrics(HttpServerMetrics.get())
+              .buildInstrumenter();
+
+      Context first = instrumenter.start(Context.root(), "first");
+      Context second = instrumenter.start(Context.root(), "second");
+      assertThat(activeRequests(metricReader.collectAllMetrics()), Matchers.is(2L));
+
+      HttpServerMetrics.recordBodySizes(first, 100, 5000);
+      instrumenter.end(first, "first", "ok", null);
+      // Sizes that were never reported are not recorded.
+      instrumenter.end(second, "second", "ok", null);
+
+      Map<String, MetricData> metrics =
+          metricReader.collectAllMetrics().stream()
+              .collect(Collectors.toMap(MetricData::getName, metric -> metric));
+      assertThat(
+          metrics.keySet(),
+          Matchers.containsInAnyOrder(
+              "http.server.request.duration",
+              "http.server.active_requests",
+              "http.server.request.body.size",
+              "http.server.response.body.size"));
+      assertThat(activeRequests(metrics.values()), Matchers.is(0L));
+      assertThat(count(metrics.get("http.server.request.duration")), Matchers.is(2L));
+      assertThat(count(metrics.get("http.server.request.body.size")), Matchers.is(1L));
+      assertThat(sum(metrics.get("http.server.request.body.size")), Matchers.is(100.0));
+      assertThat(count(metrics.get("http.server.response.body.size")), Matchers.is(1L));
+      assertThat(sum(metrics.get("http.server.response.body.size")), Matchers.is(5000.0));
+    }
+  }
+
+  @Test
+  void recordBodySizesWithoutServerMetricsIsIgnored() {
+    HttpServerMetrics.recordBodySizes(Context.root(), 100, 5000);
+  }
+
+  private static long activeRequests(Iterable<MetricData> metrics) {
+    long total = 0;
+    for (MetricData metric : metrics) {
+      if (metric.getName().equals("http.server.active_requests")) {
+        total +=
+            metric.getLongSumData().getPoints().stream().mapToLong(LongPointData::getValue).sum();
+      }
+    }
+    return total;
+  }
+
+  private static long count(MetricData metric) {
+    return metric.getHistogramData().getPoints().stream()
+        .mapToLong(HistogramPointData::getCount)
+        .sum();
+  }
+
+  private static double sum(MetricData metric) {
+    return metric.getHistogramData().getPoints().stream()
+        .mapToDouble(HistogramPointData::getSum)
+        .sum();
+  }
+}
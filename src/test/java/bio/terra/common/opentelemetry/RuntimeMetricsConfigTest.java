@@ -0,0 +1,44 @@
+package bio.terra.common.opentelemetry;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.time.Duration;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class RuntimeMetricsConfigTest {
+
+  @Test
+  void recordsJvmMetrics() throws Exception {
+    var metricReader = InMemoryMetricReader.create();
+    try (var openTelemetry =
+            OpenTelemetrySdk.builder()
+                .setMeterProvider(
+                    SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+                .build();
+        var ignored =
+            RuntimeMetricsConfig.start(
+                openTelemetry,
+                new RuntimeMetricsProperties(true, false, true, Duration.ofMillis(20)))) {
+      var names = metricReader.collectAllMetrics().stream().map(MetricData::getName).toList();
+
+      assertThat(
+          names,
+          Matchers.hasItems(
+              "jvm.memory.used", "jvm.thread.count", "jvm.class.loaded", "jvm.cpu.time"));
+    }
+  }
+
+  @Test
+  void pinningNeedsJdk21() {
+    assertThat(
+        VirtualThreadPinningMetrics.isAvailable(),
+        Matchers.is(Runtime.version().feature() >= 21));
+  }
+}
@@ -0,0 +1,88 @@
+package bio.terra.common.opentelemetry;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.common.tracing.SamplerMetrics;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.semconv.UrlAttributes;
+import java.util.List;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+@Tag("unit")
+class TracingSamplerManagerTest {
+  private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+
+  private static SamplingDecision sample(TracingSamplerManager manager, String urlPath) {
+    return manager
+        .getSampler()
+        .shouldSample(
+            Context.root(),
+            TRACE_ID,
+            "GET",
+            SpanKind.SERVER,
+            Attributes.of(UrlAttributes.URL_PATH, urlPath),
+            List.of())
+        .getDecision();
+  }
+
+  @Test
+  void earlierConstructorUsesDefaults() {
+    var properties = new TracingProperties(0.5, List.of("/status"));
+
+    assertThat(properties.routeSamplingRatios(), Matchers.empty());
+    assertThat(properties.maxTracesPerSecond(), Matchers.is(0.0));
+  }
+
+  @Test
+  void updateAppliesToTheInstalledSampler() {
+    var manager =
+        new TracingSamplerManager(
+            new TracingProperties(0.0, null, null, 0), new SamplerMetrics(), new MockEnvironment());
+    var installed = manager.getSampler();
+    assertThat(sample(manager, "/api"), Matchers.is(SamplingDecision.DROP));
+
+    manager.update(new TracingProperties(1.0, List.of("/api/quiet/**"), null, 0));
+
+    assertThat(manager.getSampler(), Matchers.sameInstance(installed));
+    assertThat(sample(manager, "/api"), Matchers.is(SamplingDecision.RECORD_AND_SAMPLE));
+    assertThat(sample(manager, "/api/quiet/x"), Matchers.is(SamplingDecision.DROP));
+  }
+
+  @Test
+  void invalidUpdateKeepsCurrentSettings() {
+    var manager =
+        new TracingSamplerManager(
+            new TracingProperties(1.0, null, null, 0), new SamplerMetrics(), new MockEnvironment());
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> manager.update(new TracingProperties(2.0, null, null, 0)));
+
+    assertThat(manager.getCurrent().samplingRatio(), Matchers.is(1.0));
+    assertThat(sample(manager, "/api"), Matchers.is(SamplingDecision.RECORD_AND_SAMPLE));
+  }
+
+  @Test
+  void reloadReadsTheEnvironment() {
+    var environment = new MockEnvironment();
+    var manager =
+        new TracingSamplerManager(
+            new TracingProperties(0.0, null, null, 0), new SamplerMetrics(), environment);
+
+    environment
+        .withProperty("terra.common.tracing.sampling-ratio", "0.0")
+        .withProperty("terra.common.tracing.route-sampling-ratios[0].pattern", "/api/**")
+        .withProperty("terra.common.tracing.route-sampling-ratios[0].ratio", "1.0");
+    manager.reload();
+
+    assertThat(sample(manager, "/api/x"), Matchers.is(SamplingDecision.RECORD_AND_SAMPLE));
+    assertThat(sample(manager, "/other"), Matchers.is(SamplingDecision.DROP));
+  }
+}
@@ -0,0 +1,231 @@
+package bio.terra.common.prometheus;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import bio.terra.common.opentelemetry.HistogramProperties;
+import bio.terra.common.stairway.MetricsHelper;
+import bio.terra.common.stairway.StairwayConfig;
+import bio.terra.stairway.FlightStatus;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class PrometheusConfigTest {
+  private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+  private static final SpanContext SAMPLED_SPAN =
+      SpanContext.create(
+          TRACE_ID, "b7ad6b7169203331", TraceFlags.getSampled(), TraceState.getDefault());
+
+  @Test
+  void servesExplicitBucketLatencies() throws Exception {
+    String metrics = scrapeFlightLatency(new HistogramProperties(false, 20, 160));
+
+    assertThat(metrics, Matchers.containsString("terra_common_lib_stairway_flight_latency"));
+    assertThat(metrics, Matchers.containsString("le=\"1000.0\""));
+  }
+
+  @Test
+  void servesExponentialLatenciesAsNativeHistograms() throws Exception {
+    String metrics = scrapeFlightLatency(new HistogramProperties(true, 20, 160));
+
+    // The text format only carries the count and sum of a native histogram, not its buckets.
+    assertThat(metrics, Matchers.containsString("terra_common_lib_stairway_flight_latency"));
+    assertThat(metrics, Matchers.containsString("_count"));
+    assertThat(metrics, Matchers.not(Matchers.containsString("le=\"1000.0\"")));
+  }
+
+  @Test
+  void servesExemplarsAsOpenMetrics() throws Exception {
+    String metrics =
+        scrapeFlightLatency(
+            new HistogramProperties(false, 20, 160), "application/openmetrics-text; version=1.0.0");
+
+    // Exemplars follow the bucket they belong to, e.g. ... # {span_id="...",trace_id="..."} 3.0
+    assertThat(metrics, Matchers.containsString("trace_id=\"" + TRACE_ID + "\""));
+  }
+
+  @Test
+  void servesGzipWhenAccepted() throws Exception {
+    var prometheusProperties = new PrometheusProperties();
+    prometheusProperties.setEndpointPort(freePort());
+    var server = new PrometheusConfig().prometheusHttpServer(prometheusProperties);
+    try (var meterProvider = SdkMeterProvider.builder().registerMetricReader(server).build()) {
+      meterProvider.get("test").counterBuilder("scraped").build().add(1);
+
+      HttpResponse<byte[]> response = scrape(prometheusProperties, "gzip");
+      assertThat(
+          response.headers().firstValue("Content-Encoding").orElseThrow(), Matchers.is("gzip"));
+      try (var body = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+        assertThat(
+            new String(body.readAllBytes(), StandardCharsets.UTF_8),
+            Matchers.containsString("scraped_total"));
+      }
+    }
+  }
+
+  @Test
+  void servesCachedSnapshotWithinRefreshInterval() throws Exception {
+    var prometheusProperties = new PrometheusProperties();
+    prometheusProperties.setEndpointPort(freePort());
+    prometheusProperties.setSnapshotMinRefreshInterval(Duration.ofHours(1));
+    var server = new PrometheusConfig().prometheusHttpServer(prometheusProperties);
+    try (var meterProvider = SdkMeterProvider.builder().registerMetricReader(server).build()) {
+      var counter = meterProvider.get("test").counterBuilder("scraped").build();
+      counter.add(1);
+      String first = body(scrape(prometheusProperties, "identity"));
+      counter.add(1);
+      String second = body(scrape(prometheusProperties, "identity"));
+
+      assertThat(first, Matchers.containsString("scraped_total"));
+      assertThat(second, Matchers.is(first));
+    }
+  }
+
+  @Test
+  void recordsWhetherScrapesReusedTheSnapshot() throws Exception {
+    var prometheusProperties = new PrometheusProperties();
+    prometheusProperties.setEndpointPort(freePort());
+    prometheusProperties.setSnapshotMinRefreshInterval(Duration.ofHours(1));
+    var server = new PrometheusConfig().prometheusHttpServer(prometheusProperties);
+    var metricReader = InMemoryMetricReader.create();
+    try (var openTelemetry =
+            OpenTelemetrySdk.builder()
+                .setMeterProvider(
+                    SdkMeterProvider.builder()
+                        .registerMetricReader(server)
+                        .registerMetricReader(metricReader)
+                        .build())
+                .build();
+        var ignored = server.registerInstruments(openTelemetry)) {
+      scrape(prometheusProperties, "identity");
+      scrape(prometheusProperties, "identity");
+
+      // The scrape is measured after its response is sent.
+      await()
+          .atMost(Duration.ofSeconds(5))
+          .untilAsserted(
+              () ->
+                  assertThat(
+                      scrapeCachedAttributes(metricReader.collectAllMetrics()),
+                      Matchers.containsInAnyOrder(false, true)));
+    }
+  }
+
+  private static List<Boolean> scrapeCachedAttributes(Collection<MetricData> metrics) {
+    return metrics.stream()
+        .filter(
+            metric -> metric.getName().equals(PrometheusScrapeServer.SCRAPE_DURATION_METER_NAME))
+        .flatMap(metric -> metric.getHistogramData().getPoints().stream())
+        .map(point -> point.getAttributes().get(PrometheusScrapeServer.KEY_CACHED))
+        .toList();
+  }
+
+  @Test
+  void recordsScrapeDurationAndSize() throws Exception {
+    var prometheusProperties = new PrometheusProperties();
+    prometheusProperties.setEndpointPort(freePort());
+    var server = new PrometheusConfig().prometheusHttpServer(prometheusProperties);
+    try (var openTelemetry =
+            OpenTelemetrySdk.builder()
+                .setMeterProvider(SdkMeterProvider.builder().registerMetricReader(server).build())
+                .build();
+        var ignored = server.registerInstruments(openTelemetry)) {
+      scrape(prometheusProperties, "identity");
+      String metrics = body(scrape(prometheusProperties, "identity"));
+
+      // Measured by the first scrape, and served by the second.
+      assertThat(metrics, Matchers.containsString("terra_common_lib_prometheus_scrape_duration"));
+      assertThat(metrics, Matchers.containsString("terra_common_lib_prometheus_scrape_size"));
+    }
+  }
+
+  private static HttpResponse<byte[]> scrape(
+      PrometheusProperties prometheusProperties, String acceptEncoding)
+      throws IOException, InterruptedException {
+    HttpResponse<byte[]> response =
+        HttpClient.newHttpClient()
+            .send(
+                HttpRequest.newBuilder(
+                        URI.create(
+                            "http://localhost:%d/metrics"
+                                .formatted(prometheusProperties.getEndpointPort())))
+                    .header("Accept-Encoding", acceptEncoding)
+                    .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+    assertThat(response.statusCode(), Matchers.is(200));
+    return response;
+  }
+
+  private static String body(HttpResponse<byte[]> response) {
+    return new String(response.body(), StandardCharsets.UTF_8);
+  }
+
+  private static String scrapeFlightLatency(HistogramProperties histogramProperties)
+      throws IOException, InterruptedException {
+    return scrapeFlightLatency(histogramProperties, "text/plain; version=0.0.4");
+  }
+
+  private static String scrapeFlightLatency(HistogramProperties histogramProperties, String accept)
+      throws IOException, InterruptedException {
+    var prometheusProperties = new PrometheusProperties();
+    prometheusProperties.setEndpointPort(freePort());
+    var view = new StairwayConfig().flightLatencyView(histogramProperties);
+    try (var openTelemetry =
+        OpenTelemetrySdk.builder()
+            .setMeterProvider(
+                SdkMeterProvider.builder()
+                    .registerMetricReader(
+                        new PrometheusConfig().prometheusHttpServer(prometheusProperties))
+                    .registerView(view.getFirst(), view.getSecond())
+                    .build())
+            .build()) {
+      // Measured within a sampled span, as MonitoringHook does.
+      try (var ignored = Context.root().with(Span.wrap(SAMPLED_SPAN)).makeCurrent()) {
+        new MetricsHelper(openTelemetry)
+            .recordFlightLatency("flight", FlightStatus.SUCCESS, Duration.ofMillis(3));
+      }
+
+      HttpResponse<String> response =
+          HttpClient.newHttpClient()
+              .send(
+                  HttpRequest.newBuilder(
+                          URI.create(
+                              "http://localhost:%d/metrics"
+                                  .formatted(prometheusProperties.getEndpointPort())))
+                      .header("Accept", accept)
+                      .build(),
+                  HttpResponse.BodyHandlers.ofString());
+      assertThat(response.statusCode(), Matchers.is(200));
+      return response.body();
+    }
+  }
+
+  private static int freePort() throws IOException {
+    try (var socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -2,6 +2,11 @@ package bio.terra.common.retry.transaction;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import bio.terra.common.jfr.JfrTestUtils;
+import bio.terra.common.jfr.TransactionEvent;
+import bio.terra.common.jfr.TransactionRetryEvent;
+import java.util.List;
+import jdk.jfr.consumer.RecordedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -41,6 +46,36 @@ public class TransactionRetryTest {
     assertEquals(4, transactionRetryProbe.getCount());
   }
 
+  @Test
+  public void testRecordsTransactionEvents() throws Exception {
+    List<RecordedEvent> events =
+        JfrTestUtils.recordEvents(
+            () ->
+                assertThrows(
+                    CannotCreateTransactionException.class,
+                    () ->
+                        transactionRetryProbe.throwMe(
+                            new CannotCreateTransactionException("test"))),
+            TransactionEvent.class,
+            TransactionRetryEvent.class);
+
+    List<RecordedEvent> retries =
+        events.stream()
+            .filter(event -> event.getEventType().getName().endsWith("TransactionRetry"))
+            .toList();
+    assertEquals(4, retries.size());
+    assertEquals("TransactionRetryProbe.throwMe", retries.get(0).getString("method"));
+    assertEquals(
+        CannotCreateTransactionException.class.getName(), retries.get(0).getString("exception"));
+    RecordedEvent transaction =
+        events.stream()
+            .filter(event -> event.getEventType().getName().endsWith(".Transaction"))
+            .findFirst()
+            .orElseThrow();
+    assertEquals(4, transaction.getInt("attempts"));
+    assertFalse(transaction.getBoolean("succeeded"));
+  }
+
   @Test
   public void testNoRetry() {
     assertThrows(Exception.class, () -> transactionRetryProbe.throwMe(new Exception("test")));
@@ -1,12 +1,18 @@
 package bio.terra.common.sam;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import bio.terra.common.jfr.JfrTestUtils;
+import bio.terra.common.jfr.SamCallEvent;
 import java.net.SocketTimeoutException;
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import jdk.jfr.consumer.RecordedEvent;
 import org.apache.http.HttpStatus;
 import org.broadinstitute.dsde.workbench.client.sam.ApiException;
 import org.junit.jupiter.api.BeforeEach;
@@ -57,6 +63,30 @@ public class SamRetryTest {
     SamRetry.retry(() -> testRetryVoidFinishInner(2));
   }
 
+  @Test
+  void testRecordsSamCallEvents() throws Exception {
+    List<RecordedEvent> events =
+        JfrTestUtils.recordEvents(
+            () -> {
+              SamRetry.retry(() -> true);
+              assertThrows(
+                  ApiException.class,
+                  () ->
+                      SamRetry.retry(
+                          () -> {
+                            throw new ApiException(HttpStatus.SC_BAD_REQUEST, "testing");
+                          }));
+            },
+            SamCallEvent.class);
+
+    assertEquals(2, events.size());
+    assertEquals(1, events.get(0).getInt("attempts"));
+    assertTrue(events.get(0).getBoolean("succeeded"));
+    assertEquals(-1, events.get(0).getInt("errorCode"));
+    assertFalse(events.get(1).getBoolean("succeeded"));
+    assertEquals(HttpStatus.SC_BAD_REQUEST, events.get(1).getInt("errorCode"));
+  }
+
   @Test
   void testInterruptedExceptionThrown() throws Exception {
     AtomicBoolean gotInterruptedException = new AtomicBoolean(false);
@@ -0,0 +1,52 @@
+package bio.terra.common.stairway;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import bio.terra.stairway.Direction;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class FlightTimelineTest {
+
+  @Test
+  void accountsForDoUndoAndWaitTimes() {
+    var timeline = new FlightTimeline(millis(0));
+    timeline.addStep(0, "First", Direction.DO, millis(5), millis(15));
+    timeline.addStep(1, "Second", Direction.DO, millis(20), millis(40));
+    timeline.addStep(1, "Second", Direction.SWITCH, millis(40), millis(41));
+    timeline.addStep(0, "First", Direction.UNDO, millis(45), millis(52));
+    timeline.end(millis(60));
+
+    assertThat(timeline.doMillis(), Matchers.is(30L));
+    assertThat(timeline.undoMillis(), Matchers.is(8L));
+    assertThat(timeline.waitMillis(), Matchers.is(22L));
+    assertThat(timeline.totalMillis(), Matchers.is(60L));
+    assertThat(timeline.steps().get(1).startMillis(), Matchers.is(20L));
+    assertThat(timeline.steps().get(1).durationMillis(), Matchers.is(20L));
+  }
+
+  @Test
+  void countsRetriesByStepAndDirection() {
+    var timeline = new FlightTimeline(millis(0));
+    timeline.addStep(0, "First", Direction.DO, millis(0), millis(1));
+    timeline.addStep(0, "First", Direction.DO, millis(1), millis(2));
+    timeline.addStep(0, "First", Direction.DO, millis(2), millis(3));
+    timeline.addStep(1, "Second", Direction.DO, millis(3), millis(4));
+    timeline.addStep(0, "First", Direction.UNDO, millis(4), millis(5));
+    timeline.end(millis(5));
+
+    assertThat(
+        timeline.retries(),
+        Matchers.contains(
+            new FlightTimeline.StepRetries("First", Direction.DO, 2),
+            new FlightTimeline.StepRetries("Second", Direction.DO, 0),
+            new FlightTimeline.StepRetries("First", Direction.UNDO, 0)));
+  }
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+}
@@ -2,12 +2,20 @@ package bio.terra.common.stairway;
 
 import static bio.terra.common.stairway.MetricsHelper.FLIGHT_ERROR_METER_NAME;
 import static bio.terra.common.stairway.MetricsHelper.FLIGHT_LATENCY_METER_NAME;
+import static bio.terra.common.stairway.MetricsHelper.FLIGHT_PHASE_TIME_METER_NAME;
+import static bio.terra.common.stairway.MetricsHelper.FLIGHT_QUEUE_LATENCY_METER_NAME;
+import static bio.terra.common.stairway.MetricsHelper.FLIGHT_RUNNING_METER_NAME;
 import static bio.terra.common.stairway.MetricsHelper.STEP_ERROR_METER_NAME;
 import static bio.terra.common.stairway.MetricsHelper.STEP_LATENCY_METER_NAME;
+import static bio.terra.common.stairway.MetricsHelper.STEP_RETRIES_METER_NAME;
 import static bio.terra.common.stairway.MetricsTestUtils.*;
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import bio.terra.common.logging.RequestIdFilter;
 import bio.terra.common.stairway.test.StairwayTestUtils;
 import bio.terra.stairway.Direction;
 import bio.terra.stairway.Flight;
@@ -15,6 +23,7 @@ import bio.terra.stairway.FlightContext;
 import bio.terra.stairway.FlightMap;
 import bio.terra.stairway.FlightState;
 import bio.terra.stairway.FlightStatus;
+import bio.terra.stairway.RetryRuleFixedInterval;
 import bio.terra.stairway.Stairway;
 import bio.terra.stairway.StairwayBuilder;
 import bio.terra.stairway.Step;
@@ -31,6 +40,7 @@ import io.opentelemetry.sdk.OpenTelemetrySdk;
 import io.opentelemetry.sdk.metrics.SdkMeterProvider;
 import io.opentelemetry.sdk.metrics.data.MetricData;
 import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
@@ -42,6 +52,7 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
 
 @Tag("unit")
 public class MonitoringHookTest {
@@ -102,6 +113,71 @@ public class MonitoringHookTest {
     assertAllDifferentSpanIds(contextRecord);
   }
 
+  @Test
+  void submissionStoredAsTraceparent() {
+    var instrumenter =
+        Instrumenter.<String, Object>builder(openTelemetry, "test", name -> name)
+            .buildInstrumenter();
+    var parentContext = instrumenter.start(Context.current(), "parent");
+    var inputMap = new FlightMap();
+    try (var ignored = parentContext.makeCurrent()) {
+      MonitoringHook.storeCurrentContextAsSubmission(inputMap, openTelemetry);
+    } finally {
+      instrumenter.end(parentContext, "parent", null, null);
+    }
+
+    String traceparent = inputMap.get(MonitoringHook.SUBMISSION_TRACEPARENT_MAP_KEY, String.class);
+    SpanContext parent = Span.fromContext(parentContext).getSpanContext();
+    assertEquals("00-%s-%s-01".formatted(parent.getTraceId(), parent.getSpanId()), traceparent);
+    SpanContext decoded =
+        Span.fromContext(MonitoringHook.decodeTraceparent(traceparent)).getSpanContext();
+    assertEquals(parent.getTraceId(), decoded.getTraceId());
+    assertEquals(parent.getSpanId(), decoded.getSpanId());
+    assertTrue(decoded.isRemote());
+  }
+
+  @Test
+  void malformedTraceparentIgnored() {
+    String traceId = "0af7651916cd43dd8448eb211c80319c";
+    String spanId = "b7ad6b7169203331";
+    assertNull(MonitoringHook.decodeTraceparent("00-%s_%s-01".formatted(traceId, spanId)));
+    assertNull(MonitoringHook.decodeTraceparent("00-%s-%s_01".formatted(traceId, spanId)));
+    assertNull(MonitoringHook.decodeTraceparent("00-%s-%s-zz".formatted(traceId, spanId)));
+    String badTraceId = traceId.replace('a', 'g');
+    assertNull(MonitoringHook.decodeTraceparent("00-%s-%s-01".formatted(badTraceId, spanId)));
+  }
+
+  @Test
+  void spansConnectedToLegacySubmissionContext() throws Exception {
+    var instrumenter =
+        Instrumenter.<String, Object>builder(openTelemetry, "test", name -> name)
+            .buildInstrumenter();
+    var parentContext = instrumenter.start(Context.current(), "parent");
+
+    List<SpanContext> contextRecord = new ArrayList<>();
+    RecordContextStep.setRecord(contextRecord);
+
+    try (var ignored = parentContext.makeCurrent()) {
+      contextRecord.add(Span.current().getSpanContext());
+      // As stored by earlier versions of this library.
+      var inputMap = new FlightMap();
+      inputMap.put(
+          MonitoringHook.SUBMISSION_SPAN_CONTEXT_MAP_KEY,
+          MonitoringHook.serializeCurrentTracingContext(openTelemetry));
+
+      Stairway stairway =
+          StairwayTestUtils.setupStairway(
+              new StairwayBuilder().stairwayHook(new MonitoringHook(openTelemetry)));
+      StairwayTestUtils.blockUntilFlightCompletes(
+          stairway, SpanRecordingFlight.class, inputMap, Duration.ofSeconds(5));
+    } finally {
+      instrumenter.end(parentContext, "parent", null, null);
+    }
+
+    assertThat(contextRecord, Matchers.hasSize(3));
+    assertSharedTraceId(contextRecord);
+  }
+
   @Test
   void recordMetricsOnSuccess() throws Exception {
     Stairway stairway =
@@ -112,7 +188,7 @@ public class MonitoringHookTest {
             stairway, SpanRecordingFlight.class, new FlightMap(), Duration.ofSeconds(5));
 
     var metricsByName =
-        waitForMetrics(testMetricExporter, METRICS_COLLECTION_INTERVAL, 4).stream()
+        waitForMetrics(testMetricExporter, METRICS_COLLECTION_INTERVAL, 7).stream()
             .collect(Collectors.toMap(MetricData::getName, Function.identity()));
 
     assertEquals(FlightStatus.SUCCESS, flightState.getFlightStatus());
@@ -120,8 +196,11 @@ public class MonitoringHookTest {
         Set.of(
             FLIGHT_LATENCY_METER_NAME,
             FLIGHT_ERROR_METER_NAME,
+            FLIGHT_RUNNING_METER_NAME,
+            FLIGHT_PHASE_TIME_METER_NAME,
             STEP_ERROR_METER_NAME,
-            STEP_LATENCY_METER_NAME),
+            STEP_LATENCY_METER_NAME,
+            STEP_RETRIES_METER_NAME),
         metricsByName.keySet());
 
     assertFlightErrorMeterValues(
@@ -134,6 +213,114 @@ public class MonitoringHookTest {
     assertLatencyTotalCount(metricsByName.get(STEP_LATENCY_METER_NAME), 2L);
   }
 
+  @Test
+  void recordQueueLatencyFromSubmission() throws Exception {
+    var metricReader = InMemoryMetricReader.create();
+    var meteredOpenTelemetry =
+        OpenTelemetrySdk.builder()
+            .setMeterProvider(SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+            .build();
+    var inputMap = new FlightMap();
+    MonitoringHook.storeCurrentContextAsSubmission(inputMap, meteredOpenTelemetry);
+    assertThat(
+        inputMap.get(MonitoringHook.SUBMISSION_TIME_MAP_KEY, Long.class),
+        Matchers.lessThanOrEqualTo(System.currentTimeMillis()));
+
+    Stairway stairway =
+        StairwayTestUtils.setupStairway(
+            new StairwayBuilder().stairwayHook(new MonitoringHook(meteredOpenTelemetry)));
+    StairwayTestUtils.blockUntilFlightCompletes(
+        stairway, SpanRecordingFlight.class, inputMap, Duration.ofSeconds(5));
+
+    var metricsByName =
+        metricReader.collectAllMetrics().stream()
+            .collect(Collectors.toMap(MetricData::getName, Function.identity()));
+    // Recorded once, for the first step of the flight.
+    assertLatencyTotalCount(metricsByName.get(FLIGHT_QUEUE_LATENCY_METER_NAME), 1L);
+    // The hook may still be ending the flight when Stairway reports it complete.
+    await()
+        .atMost(Duration.ofSeconds(5))
+        .until(
+            () ->
+                metricReader.collectAllMetrics().stream()
+                    .filter(metric -> metric.getName().equals(FLIGHT_RUNNING_METER_NAME))
+                    .flatMap(metric -> metric.getLongSumData().getPoints().stream())
+                    .allMatch(point -> point.getValue() == 0));
+  }
+
+  @Test
+  void latenciesLinkedToTraces() throws Exception {
+    var metricReader = InMemoryMetricReader.create();
+    var tracedOpenTelemetry =
+        OpenTelemetrySdk.builder()
+            .setMeterProvider(SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+            .build();
+    Stairway stairway =
+        StairwayTestUtils.setupStairway(
+            new StairwayBuilder().stairwayHook(new MonitoringHook(tracedOpenTelemetry)));
+    StairwayTestUtils.blockUntilFlightCompletes(
+        stairway, SpanRecordingFlight.class, new FlightMap(), Duration.ofSeconds(5));
+
+    var metricsByName =
+        metricReader.collectAllMetrics().stream()
+            .collect(Collectors.toMap(MetricData::getName, Function.identity()));
+    for (String latency : List.of(FLIGHT_LATENCY_METER_NAME, STEP_LATENCY_METER_NAME)) {
+      var exemplars =
+          metricsByName.get(latency).getHistogramData().getPoints().stream()
+              .flatMap(point -> point.getExemplars().stream())
+              .toList();
+      assertThat(exemplars, Matchers.not(Matchers.empty()));
+      exemplars.forEach(exemplar -> assertTrue(exemplar.getSpanContext().isSampled()));
+    }
+  }
+
+  @Test
+  void requestIdRestoredInFlight() throws Exception {
+    MDC.put(RequestIdFilter.REQUEST_ID_MDC_KEY, "submitting-request");
+    var inputMap = new FlightMap();
+    try {
+      MonitoringHook.storeCurrentContextAsSubmission(inputMap, openTelemetry);
+    } finally {
+      MDC.remove(RequestIdFilter.REQUEST_ID_MDC_KEY);
+    }
+    assertEquals(
+        "submitting-request", inputMap.get(MonitoringHook.REQUEST_ID_MAP_KEY, String.class));
+
+    Stairway stairway =
+        StairwayTestUtils.setupStairway(
+            new StairwayBuilder().stairwayHook(new MonitoringHook(openTelemetry)));
+    FlightState flightState =
+        StairwayTestUtils.blockUntilFlightCompletes(
+            stairway, RequestIdRecordingFlight.class, inputMap, Duration.ofSeconds(5));
+
+    assertEquals(FlightStatus.SUCCESS, flightState.getFlightStatus());
+    assertEquals("submitting-request", RecordRequestIdStep.requestId);
+  }
+
+  /** A {@link Flight} which records the requestId in the MDC while it runs. */
+  public static class RequestIdRecordingFlight extends Flight {
+    public RequestIdRecordingFlight(FlightMap inputParameters, Object applicationContext) {
+      super(inputParameters, applicationContext);
+      addStep(new RecordRequestIdStep());
+    }
+  }
+
+  /** A {@link Step} that records the requestId in the MDC. */
+  public static class RecordRequestIdStep implements Step {
+    private static volatile String requestId;
+
+    @Override
+    public StepResult doStep(FlightContext flightContext) {
+      requestId = MDC.get(RequestIdFilter.REQUEST_ID_MDC_KEY);
+      return StepResult.getStepResultSuccess();
+    }
+
+    @Override
+    public StepResult undoStep(FlightContext flightContext) {
+      return StepResult.getStepResultSuccess();
+    }
+  }
+
   /** A {@link Flight} with two steps for recording the span context. */
   public static class SpanRecordingFlight extends Flight {
     public SpanRecordingFlight(FlightMap inputParameters, Object applicationContext) {
@@ -174,15 +361,18 @@ public class MonitoringHookTest {
     assertEquals(FlightStatus.ERROR, flightState.getFlightStatus());
 
     var metricsByName =
-        waitForMetrics(testMetricExporter, METRICS_COLLECTION_INTERVAL, 4).stream()
+        waitForMetrics(testMetricExporter, METRICS_COLLECTION_INTERVAL, 7).stream()
             .collect(Collectors.toMap(MetricData::getName, Function.identity()));
 
     assertEquals(
         Set.of(
             FLIGHT_LATENCY_METER_NAME,
             FLIGHT_ERROR_METER_NAME,
+            FLIGHT_RUNNING_METER_NAME,
+            FLIGHT_PHASE_TIME_METER_NAME,
             STEP_ERROR_METER_NAME,
-            STEP_LATENCY_METER_NAME),
+            STEP_LATENCY_METER_NAME,
+            STEP_RETRIES_METER_NAME),
         metricsByName.keySet());
 
     assertFlightErrorMeterValues(
@@ -216,6 +406,54 @@ public class MonitoringHookTest {
         1L);
   }
 
+  @Test
+  void recordTimelineOfRetriedAndUndoneSteps() throws Exception {
+    var metricReader = InMemoryMetricReader.create();
+    var meteredOpenTelemetry =
+        OpenTelemetrySdk.builder()
+            .setMeterProvider(SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+            .build();
+    Stairway stairway =
+        StairwayTestUtils.setupStairway(
+            new StairwayBuilder().stairwayHook(new MonitoringHook(meteredOpenTelemetry)));
+    var flightState =
+        StairwayTestUtils.blockUntilFlightCompletes(
+            stairway, RetryThenFailFlight.class, new FlightMap(), Duration.ofSeconds(5));
+    assertEquals(FlightStatus.ERROR, flightState.getFlightStatus());
+
+    // The hook may still be ending the flight when Stairway reports it complete.
+    await()
+        .atMost(Duration.ofSeconds(5))
+        .until(
+            () ->
+                metricReader.collectAllMetrics().stream()
+                    .anyMatch(metric -> metric.getName().equals(FLIGHT_PHASE_TIME_METER_NAME)));
+    var metricsByName =
+        metricReader.collectAllMetrics().stream()
+            .collect(Collectors.toMap(MetricData::getName, Function.identity()));
+
+    var phases =
+        metricsByName.get(FLIGHT_PHASE_TIME_METER_NAME).getHistogramData().getPoints().stream()
+            .map(point -> point.getAttributes().get(MetricsHelper.KEY_PHASE))
+            .toList();
+    assertThat(phases, Matchers.containsInAnyOrder("do", "undo", "wait"));
+
+    var retriesByStep =
+        metricsByName.get(STEP_RETRIES_METER_NAME).getHistogramData().getPoints().stream()
+            .filter(
+                point ->
+                    Direction.DO
+                        .name()
+                        .equals(point.getAttributes().get(MetricsHelper.KEY_STEP_DIRECTION)))
+            .collect(
+                Collectors.toMap(
+                    point -> point.getAttributes().get(MetricsHelper.KEY_STEP_NAME),
+                    point -> point.getSum()));
+    assertEquals(
+        Map.of(RetryOnceStep.class.getName(), 1.0, FailureStep.class.getName(), 0.0),
+        retriesByStep);
+  }
+
   private static void assertSharedTraceId(List<SpanContext> contextRecord) {
     assertEquals(1, contextRecord.stream().map(SpanContext::getTraceId).distinct().count());
   }
@@ -236,6 +474,34 @@ public class MonitoringHookTest {
     }
   }
 
+  /** A {@link Flight} with a {@link RetryOnceStep} and a {@link FailureStep}. */
+  public static class RetryThenFailFlight extends Flight {
+    public RetryThenFailFlight(FlightMap inputParameters, Object applicationContext) {
+      super(inputParameters, applicationContext);
+      addStep(new RetryOnceStep(), new RetryRuleFixedInterval(0, 2));
+      addStep(new FailureStep());
+    }
+  }
+
+  /** A {@link Step} that asks to be retried the first time it is done. */
+  public static class RetryOnceStep implements Step {
+    private boolean retried;
+
+    @Override
+    public StepResult doStep(FlightContext flightContext) {
+      if (!retried) {
+        retried = true;
+        return new StepResult(StepStatus.STEP_RESULT_FAILURE_RETRY);
+      }
+      return StepResult.getStepResultSuccess();
+    }
+
+    @Override
+    public StepResult undoStep(FlightContext flightContext) {
+      return StepResult.getStepResultSuccess();
+    }
+  }
+
   /** A {@link Step} that records the current span within each step execution. */
   public static class RecordContextStep implements Step {
     /** The current list within which to record step execution spans. */
@@ -0,0 +1,62 @@
+package bio.terra.common.stairway;
+
+import static bio.terra.common.stairway.MetricsHelper.FLIGHT_LATENCY_METER_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import bio.terra.common.opentelemetry.HistogramProperties;
+import bio.terra.stairway.FlightStatus;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.MetricDataType;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.time.Duration;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class StairwayConfigTest {
+
+  @Test
+  void latencyViewUsesExplicitBucketsByDefault() {
+    MetricData metric = recordFlightLatency(new HistogramProperties(false, 20, 160));
+
+    assertThat(metric.getType(), Matchers.is(MetricDataType.HISTOGRAM));
+    var point = metric.getHistogramData().getPoints().iterator().next();
+    assertThat(point.getBoundaries().size(), Matchers.is(29));
+    assertThat(point.getBoundaries().get(28), Matchers.is(64000.0));
+  }
+
+  @Test
+  void latencyViewUsesExponentialBuckets() {
+    MetricData metric = recordFlightLatency(new HistogramProperties(true, 5, 160));
+
+    assertThat(metric.getType(), Matchers.is(MetricDataType.EXPONENTIAL_HISTOGRAM));
+    var point = metric.getExponentialHistogramData().getPoints().iterator().next();
+    assertThat(point.getScale(), Matchers.lessThanOrEqualTo(5));
+    assertThat(point.getCount(), Matchers.is(2L));
+  }
+
+  private static MetricData recordFlightLatency(HistogramProperties histogramProperties) {
+    var metricReader = InMemoryMetricReader.create();
+    var view = new StairwayConfig().flightLatencyView(histogramProperties);
+    try (var openTelemetry =
+        OpenTelemetrySdk.builder()
+            .setMeterProvider(
+                SdkMeterProvider.builder()
+                    .registerMetricReader(metricReader)
+                    .registerView(view.getFirst(), view.getSecond())
+                    .build())
+            .build()) {
+      var metricsHelper = new MetricsHelper(openTelemetry);
+      metricsHelper.recordFlightLatency("flight", FlightStatus.SUCCESS, Duration.ofMillis(3));
+      metricsHelper.recordFlightLatency("flight", FlightStatus.SUCCESS, Duration.ofSeconds(30));
+
+      return metricReader.collectAllMetrics().stream()
+          .filter(metric -> metric.getName().equals(FLIGHT_LATENCY_METER_NAME))
+          .findFirst()
+          .orElseThrow();
+    }
+  }
+}
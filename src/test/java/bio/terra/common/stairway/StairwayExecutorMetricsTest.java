@@ -0,0 +1,68 @@
+package bio.terra.common.stairway;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Tag("unit")
+class StairwayExecutorMetricsTest {
+
+  @Test
+  void recordsActiveThreadsAndQueueDepth() throws Exception {
+    // Like Stairway's executor, with one thread and an unbounded queue.
+    var executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(1);
+    executor.setMaxPoolSize(1);
+    executor.initialize();
+    var metricReader = InMemoryMetricReader.create();
+    var running = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    try (var openTelemetry =
+            OpenTelemetrySdk.builder()
+                .setMeterProvider(
+                    SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+                .build();
+        var ignored = StairwayExecutorMetrics.registerInstruments(openTelemetry, executor)) {
+      Runnable flight =
+          () -> {
+            running.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          };
+      executor.execute(flight);
+      running.await();
+      executor.execute(flight);
+
+      Map<String, MetricData> metricsByName =
+          metricReader.collectAllMetrics().stream()
+              .collect(Collectors.toMap(MetricData::getName, Function.identity()));
+      assertThat(
+          gauge(metricsByName.get(StairwayExecutorMetrics.ACTIVE_THREADS_METER_NAME)),
+          Matchers.is(1L));
+      assertThat(
+          gauge(metricsByName.get(StairwayExecutorMetrics.QUEUE_DEPTH_METER_NAME)),
+          Matchers.is(1L));
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  private static long gauge(MetricData metric) {
+    return metric.getLongGaugeData().getPoints().iterator().next().getValue();
+  }
+}
@@ -51,10 +51,6 @@ class ExcludingUrlSamplerTest {
 
   @Test
   void testShouldNotSampleByUrlPath() {
-    // note that the internal implementation of ExcludingUrlSampler has slightly different behavior
-    // when the size of the excludedUrls is smaller than the size of the urlCandidates. So this test
-    // has only one excludedUrl to make sure the scenario works. The different behavior comes from
-    // the implementation of Set.removeAll
     var sampler = new ExcludingUrlSampler(Set.of("/bar"), Sampler.alwaysOn());
     assertThat(
         sampler
@@ -84,4 +80,28 @@ class ExcludingUrlSamplerTest {
             .getDecision(),
         Matchers.is(SamplingDecision.DROP));
   }
+
+  @Test
+  void testShouldNotSampleByPrefix() {
+    var sampler = new ExcludingUrlSampler(Set.of("/status/**"), Sampler.alwaysOn());
+    assertThat(
+        sampler
+            .shouldSample(
+                Context.root(),
+                "",
+                "GET",
+                SpanKind.SERVER,
+                Attributes.of(UrlAttributes.URL_PATH, "/status/ready"),
+                List.of())
+            .getDecision(),
+        Matchers.is(SamplingDecision.DROP));
+  }
+
+  @Test
+  void testDescriptionListsPatterns() {
+    var sampler = new ExcludingUrlSampler(List.of("/status", "/health/**"), Sampler.alwaysOn());
+    assertThat(
+        sampler.getDescription(),
+        Matchers.is("AlwaysOnSampler excluding urls [/status, /health/**]"));
+  }
 }
@@ -0,0 +1,104 @@
+package bio.terra.common.tracing;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.semconv.UrlAttributes;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class RouteSamplerTest {
+  private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+
+  private static SamplingDecision sample(Sampler sampler, String urlPath) {
+    return sampler
+        .shouldSample(
+            Context.root(),
+            TRACE_ID,
+            "GET",
+            SpanKind.SERVER,
+            Attributes.of(UrlAttributes.URL_PATH, urlPath),
+            List.of())
+        .getDecision();
+  }
+
+  @Test
+  void firstMatchingRouteDecidesRatio() {
+    var metrics = new SamplerMetrics();
+    var sampler =
+        new RouteSampler(
+            List.of(
+                new RouteSampler.Route("/api/hot/**", 0.0),
+                new RouteSampler.Route("/api/**", 1.0)),
+            0.0,
+            0,
+            metrics);
+
+    assertThat(sample(sampler, "/api/hot/path"), Matchers.is(SamplingDecision.DROP));
+    assertThat(sample(sampler, "/api/rare"), Matchers.is(SamplingDecision.RECORD_AND_SAMPLE));
+    assertThat(sample(sampler, "/other"), Matchers.is(SamplingDecision.DROP));
+    assertThat(metrics.count(SamplerMetrics.Outcome.SAMPLED), Matchers.is(1L));
+    assertThat(metrics.count(SamplerMetrics.Outcome.DROPPED_BY_RATIO), Matchers.is(2L));
+  }
+
+  @Test
+  void routeMatchesSpanName() {
+    var sampler =
+        new RouteSampler(
+            List.of(new RouteSampler.Route("flight *", 1.0)), 0.0, 0, new SamplerMetrics());
+    assertThat(
+        sampler
+            .shouldSample(
+                Context.root(),
+                TRACE_ID,
+                "flight CreateWorkspace",
+                SpanKind.INTERNAL,
+                Attributes.empty(),
+                List.of())
+            .getDecision(),
+        Matchers.is(SamplingDecision.RECORD_AND_SAMPLE));
+  }
+
+  @Test
+  void capsTracesPerSecond() {
+    var metrics = new SamplerMetrics();
+    var now = new AtomicLong();
+    var sampler = new RouteSampler(List.of(), 1.0, 2, metrics, now::get);
+
+    // The bucket starts with one second's worth of traces.
+    assertThat(sample(sampler, "/a"), Matchers.is(SamplingDecision.RECORD_AND_SAMPLE));
+    assertThat(sample(sampler, "/a"), Matchers.is(SamplingDecision.RECORD_AND_SAMPLE));
+    assertThat(sample(sampler, "/a"), Matchers.is(SamplingDecision.DROP));
+
+    // It then refills at the configured rate.
+    now.addAndGet(500_000_000L);
+    assertThat(sample(sampler, "/a"), Matchers.is(SamplingDecision.RECORD_AND_SAMPLE));
+    assertThat(sample(sampler, "/a"), Matchers.is(SamplingDecision.DROP));
+
+    assertThat(metrics.count(SamplerMetrics.Outcome.SAMPLED), Matchers.is(3L));
+    assertThat(metrics.count(SamplerMetrics.Outcome.DROPPED_BY_RATE_LIMIT), Matchers.is(2L));
+  }
+
+  @Test
+  void excludedUrlsAreCounted() {
+    var metrics = new SamplerMetrics();
+    var sampler =
+        new ExcludingUrlSampler(
+            List.of("/status"),
+            Sampler.parentBased(new RouteSampler(List.of(), 1.0, 0, metrics)),
+            metrics);
+
+    assertThat(sample(sampler, "/status"), Matchers.is(SamplingDecision.DROP));
+    assertThat(sample(sampler, "/api"), Matchers.is(SamplingDecision.RECORD_AND_SAMPLE));
+    assertThat(metrics.count(SamplerMetrics.Outcome.DROPPED_EXCLUDED), Matchers.is(1L));
+    assertThat(metrics.count(SamplerMetrics.Outcome.SAMPLED), Matchers.is(1L));
+  }
+}
@@ -0,0 +1,132 @@
+package bio.terra.common.tracing;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class SpanExportMetricsTest {
+  private static Tracer tracer(SdkTracerProvider tracerProvider) {
+    return tracerProvider.get("test");
+  }
+
+  private static BatchSpanProcessor processor(
+      SpanExportMetrics metrics, SpanExporter exporter, int maxQueueSize, int maxBatchSize) {
+    return BatchSpanProcessor.builder(metrics.meter(exporter))
+        .setMaxQueueSize(maxQueueSize)
+        .setMaxExportBatchSize(maxBatchSize)
+        .setScheduleDelay(Duration.ofHours(1))
+        .build();
+  }
+
+  @Test
+  void countsExportedSpans() {
+    var metrics = new SpanExportMetrics();
+    var exporter = InMemorySpanExporter.create();
+    var processor = processor(metrics, exporter, 100, 10);
+    try (var tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build()) {
+      for (int i = 0; i < 25; i++) {
+        tracer(tracerProvider).spanBuilder("span" + i).startSpan().end();
+      }
+      processor.forceFlush().join(5, TimeUnit.SECONDS);
+
+      assertThat(exporter.getFinishedSpanItems(), Matchers.hasSize(25));
+      assertThat(metrics.exportedSpans(), Matchers.is(25L));
+      assertThat(metrics.failedSpans(), Matchers.is(0L));
+    }
+  }
+
+  @Test
+  void countsFailedSpans() {
+    var metrics = new SpanExportMetrics();
+    var exporter = new FixedResultExporter(CompletableResultCode.ofFailure());
+    var processor = processor(metrics, exporter, 100, 10);
+    try (var tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build()) {
+      tracer(tracerProvider).spanBuilder("span").startSpan().end();
+      processor.forceFlush().join(5, TimeUnit.SECONDS);
+
+      assertThat(metrics.exportedSpans(), Matchers.is(0L));
+      assertThat(metrics.failedSpans(), Matchers.is(1L));
+    }
+  }
+
+  @Test
+  void exposesExportMetricsOnceRegistered() throws Exception {
+    var metrics = new SpanExportMetrics();
+    var processor = processor(metrics, InMemorySpanExporter.create(), 100, 10);
+    var metricReader = InMemoryMetricReader.create();
+    try (var openTelemetry =
+            OpenTelemetrySdk.builder()
+                .setMeterProvider(
+                    SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+                .build();
+        var ignored = metrics.registerInstruments(openTelemetry);
+        var tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build()) {
+      for (int i = 0; i < 5; i++) {
+        tracer(tracerProvider).spanBuilder("span" + i).startSpan().end();
+      }
+      processor.forceFlush().join(5, TimeUnit.SECONDS);
+
+      Collection<MetricData> collected = metricReader.collectAllMetrics();
+      assertThat(
+          find(collected, SpanExportMetrics.SPANS_METER_NAME)
+              .getLongSumData()
+              .getPoints()
+              .stream()
+              .mapToLong(LongPointData::getValue)
+              .sum(),
+          Matchers.is(5L));
+      assertThat(
+          collected.stream().map(MetricData::getName).toList(),
+          Matchers.hasItem(SpanExportMetrics.LATENCY_METER_NAME));
+    }
+  }
+
+  private static MetricData find(Collection<MetricData> metrics, String name) {
+    return metrics.stream()
+        .filter(metric -> metric.getName().equals(name))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  /** An exporter which answers every export as told. */
+  private static class FixedResultExporter implements SpanExporter {
+    private final CompletableResultCode result;
+
+    FixedResultExporter(CompletableResultCode result) {
+      this.result = result;
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+      return result;
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      return CompletableResultCode.ofSuccess();
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package bio.terra.common.tracing;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class TailSamplingSpanProcessorTest {
+  private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+  private final AtomicLong now = new AtomicLong();
+  private SdkTracerProvider tracerProvider;
+  private TailSamplingSpanProcessor processor;
+
+  private Tracer tracer(Sampler headSampler, int maxBufferedSpans) {
+    processor =
+        new TailSamplingSpanProcessor(
+            exporter,
+            Duration.ofSeconds(10),
+            Duration.ofSeconds(2),
+            0.0,
+            maxBufferedSpans,
+            100,
+            now::get,
+            false);
+    tracerProvider =
+        SdkTracerProvider.builder()
+            .setSampler(new RecordUnsampledSampler(headSampler))
+            .addSpanProcessor(processor)
+            .build();
+    return tracerProvider.get("test");
+  }
+
+  @AfterEach
+  void tearDown() {
+    tracerProvider.close();
+  }
+
+  @Test
+  void exportsWholeTraceWithError() {
+    Tracer tracer = tracer(Sampler.parentBased(Sampler.alwaysOff()), 100);
+
+    Span root = tracer.spanBuilder("root").startSpan();
+    Span child = tracer.spanBuilder("child").setParent(Context.current().with(root)).startSpan();
+    child.setStatus(StatusCode.ERROR);
+    child.end();
+    root.end();
+    tracer.spanBuilder("uninteresting").startSpan().end();
+    processor.sweep().join(1, TimeUnit.SECONDS);
+
+    assertThat(
+        exporter.getFinishedSpanItems().stream().map(SpanData::getName).toList(),
+        Matchers.containsInAnyOrder("root", "child"));
+    assertThat(processor.count(TailSamplingSpanProcessor.Outcome.EXPORTED_ERROR), Matchers.is(1L));
+    assertThat(processor.count(TailSamplingSpanProcessor.Outcome.DROPPED), Matchers.is(1L));
+    assertThat(processor.bufferedSpans(), Matchers.is(0));
+  }
+
+  @Test
+  void exportsSlowTrace() {
+    Tracer tracer = tracer(Sampler.alwaysOff(), 100);
+
+    tracer
+        .spanBuilder("slow")
+        .setStartTimestamp(0, TimeUnit.SECONDS)
+        .startSpan()
+        .end(3, TimeUnit.SECONDS);
+    processor.sweep().join(1, TimeUnit.SECONDS);
+
+    assertThat(exporter.getFinishedSpanItems(), Matchers.hasSize(1));
+    assertThat(
+        processor.count(TailSamplingSpanProcessor.Outcome.EXPORTED_LATENCY), Matchers.is(1L));
+  }
+
+  @Test
+  void ignoresHeadSampledSpans() {
+    Tracer tracer = tracer(Sampler.alwaysOn(), 100);
+
+    Span span = tracer.spanBuilder("sampled").startSpan();
+    span.setStatus(StatusCode.ERROR);
+    span.end();
+    processor.sweep().join(1, TimeUnit.SECONDS);
+
+    assertThat(exporter.getFinishedSpanItems(), Matchers.empty());
+  }
+
+  @Test
+  void decidesAfterWaitingForRoot() {
+    Tracer tracer = tracer(Sampler.parentBased(Sampler.alwaysOff()), 100);
+
+    Span root = tracer.spanBuilder("root").startSpan();
+    Span child = tracer.spanBuilder("child").setParent(Context.current().with(root)).startSpan();
+    child.setStatus(StatusCode.ERROR);
+    child.end();
+    processor.sweep().join(1, TimeUnit.SECONDS);
+    assertThat(exporter.getFinishedSpanItems(), Matchers.empty());
+
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    processor.sweep().join(1, TimeUnit.SECONDS);
+    assertThat(exporter.getFinishedSpanItems(), Matchers.hasSize(1));
+
+    // The root ending late follows the decision already made for its trace.
+    root.end();
+    processor.sweep().join(1, TimeUnit.SECONDS);
+    assertThat(exporter.getFinishedSpanItems(), Matchers.hasSize(2));
+  }
+
+  @Test
+  void evictsOldestTracesWhenFull() {
+    Tracer tracer = tracer(Sampler.parentBased(Sampler.alwaysOff()), 2);
+
+    for (int i = 0; i < 3; i++) {
+      Span root = tracer.spanBuilder("root" + i).startSpan();
+      tracer.spanBuilder("child" + i).setParent(Context.current().with(root)).startSpan().end();
+      tracer.spanBuilder("child" + i).setParent(Context.current().with(root)).startSpan().end();
+    }
+
+    assertThat(processor.bufferedSpans(), Matchers.is(2));
+    assertThat(processor.count(TailSamplingSpanProcessor.Outcome.EVICTED), Matchers.is(2L));
+  }
+
+  @Test
+  void countsSpansWaitingForExportAgainstTheBuffer() {
+    Tracer tracer = tracer(Sampler.parentBased(Sampler.alwaysOff()), 2);
+
+    Span root = tracer.spanBuilder("root").startSpan();
+    tracer
+        .spanBuilder("child")
+        .setParent(Context.current().with(root))
+        .startSpan()
+        .setStatus(StatusCode.ERROR)
+        .end();
+    root.end();
+    // The exported trace fills the buffer until the next sweep, so a new trace is evicted.
+    Span other = tracer.spanBuilder("other").startSpan();
+    tracer.spanBuilder("otherChild").setParent(Context.current().with(other)).startSpan().end();
+
+    assertThat(processor.bufferedSpans(), Matchers.is(2));
+    assertThat(processor.count(TailSamplingSpanProcessor.Outcome.EVICTED), Matchers.is(1L));
+    processor.sweep().join(1, TimeUnit.SECONDS);
+    assertThat(exporter.getFinishedSpanItems(), Matchers.hasSize(2));
+    assertThat(processor.bufferedSpans(), Matchers.is(0));
+  }
+}
@@ -0,0 +1,67 @@
+package bio.terra.common.tracing;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class UrlPatternMatcherTest {
+  @Test
+  void exactMatch() {
+    var matcher = new UrlPatternMatcher(List.of("/status", "/version"));
+    assertThat(matcher.matches("/status"), Matchers.is(true));
+    assertThat(matcher.matches("/version"), Matchers.is(true));
+    assertThat(matcher.matches("/status/"), Matchers.is(false));
+    assertThat(matcher.matches("/stat"), Matchers.is(false));
+    assertThat(matcher.matches(null), Matchers.is(false));
+  }
+
+  @Test
+  void prefixMatch() {
+    var matcher = new UrlPatternMatcher(List.of("/status/**", "/api/admin/**"));
+    assertThat(matcher.matches("/status/"), Matchers.is(true));
+    assertThat(matcher.matches("/status/ready"), Matchers.is(true));
+    assertThat(matcher.matches("/api/admin/a/b/c"), Matchers.is(true));
+    assertThat(matcher.matches("/status"), Matchers.is(false));
+    assertThat(matcher.matches("/api/adm"), Matchers.is(false));
+    assertThat(matcher.matches("/api/user/a"), Matchers.is(false));
+  }
+
+  @Test
+  void emptyPrefixMatchesEverything() {
+    var matcher = new UrlPatternMatcher(List.of("**"));
+    assertThat(matcher.matches(""), Matchers.is(true));
+    assertThat(matcher.matches("/anything/at/all"), Matchers.is(true));
+  }
+
+  @Test
+  void segmentWildcardDoesNotCrossSlash() {
+    var matcher = new UrlPatternMatcher(List.of("/api/workspaces/*/health"));
+    assertThat(matcher.matches("/api/workspaces/123/health"), Matchers.is(true));
+    assertThat(matcher.matches("/api/workspaces//health"), Matchers.is(true));
+    assertThat(matcher.matches("/api/workspaces/1/2/health"), Matchers.is(false));
+    assertThat(matcher.matches("/api/workspaces/123/healthz"), Matchers.is(false));
+  }
+
+  @Test
+  void doubleWildcardCrossesSlash() {
+    var matcher = new UrlPatternMatcher(List.of("/api/**/health"));
+    assertThat(matcher.matches("/api/workspaces/123/health"), Matchers.is(true));
+    assertThat(matcher.matches("/api/health/x/health"), Matchers.is(true));
+    assertThat(matcher.matches("/api/health"), Matchers.is(false));
+    assertThat(matcher.matches("/api/workspaces/123/health/x"), Matchers.is(false));
+  }
+
+  @Test
+  void mixedWildcards() {
+    var matcher = new UrlPatternMatcher(List.of("/**/resources/*.json", "/v?/ping"));
+    assertThat(matcher.matches("/a/b/resources/x.json"), Matchers.is(true));
+    assertThat(matcher.matches("/a/resources/b/resources/x.json"), Matchers.is(true));
+    assertThat(matcher.matches("/a/resources/b/x.json"), Matchers.is(false));
+    assertThat(matcher.matches("/v1/ping"), Matchers.is(true));
+    assertThat(matcher.matches("/v10/ping"), Matchers.is(false));
+  }
+}
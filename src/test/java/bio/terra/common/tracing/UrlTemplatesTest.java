@@ -0,0 +1,33 @@
+package bio.terra.common.tracing;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+class UrlTemplatesTest {
+  @Test
+  void replacesIdentifiers() {
+    assertThat(
+        UrlTemplates.templatize(
+            "/api/workspaces/v1/0b8e2e1c-5d4f-4e9b-9f1e-2a5f3c6d7e8f/resources/42"),
+        Matchers.is("/api/workspaces/v1/{id}/resources/{id}"));
+    assertThat(
+        UrlTemplates.templatize("/users/abcdef0123456789/groups"),
+        Matchers.is("/users/{id}/groups"));
+    assertThat(
+        UrlTemplates.templatize("/tokens/aZ3kLm9Qw8Er7Ty6Ui5Op"), Matchers.is("/tokens/{id}"));
+  }
+
+  @Test
+  void keepsOrdinarySegments() {
+    String path = "/api/v1/register/user";
+    assertThat(UrlTemplates.templatize(path), Matchers.sameInstance(path));
+    assertThat(UrlTemplates.templatize("/"), Matchers.is("/"));
+    assertThat(UrlTemplates.templatize(""), Matchers.is(""));
+    assertThat(UrlTemplates.templatize("/a//b/"), Matchers.is("/a//b/"));
+    assertThat(UrlTemplates.templatize("/cafe/decade"), Matchers.is("/cafe/decade"));
+  }
+}